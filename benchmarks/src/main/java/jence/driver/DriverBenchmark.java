@@ -0,0 +1,92 @@
+/**
+ * The MIT LICENSE (MIT):
+ * 
+ * Copyright  2021 Ejaz Jamil, Jence.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of 
+ * this software and associated documentation files (the Software), to deal in 
+ * the Software without restriction, including without limitation the rights to 
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+ * of the Software, and to permit persons to whom the Software is furnished to do 
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. 
+ * 
+ */
+package jence.driver;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the driver calls, run against {@link FakeHIDUart}. The cost 
+ * measured is the Java side of each call: JNA argument handling, buffers,
+ * strings and metrics.
+ * 
+ * @author Ejaz Jamil, Jence.
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DriverBenchmark {
+	private CP2110HidDriver driver_;
+	private final byte[] dst_ = new byte[CP2110HidDriver.READ_SIZE];
+	private final byte[] deviceString_ = new byte[260];
+
+	@Setup
+	public void setup() throws DriverException {
+		CP2110HidDriver.setBackend(new FakeHIDUart(1));
+		driver_ = new CP2110HidDriver();
+		driver_.connect("SER0", 9600, 8, 'N', 1, false);
+		byte[] s = "CP2110 HID USB-to-UART Bridge\0".getBytes();
+		System.arraycopy(s, 0, deviceString_, 0, s.length);
+	}
+
+	@Benchmark
+	public byte[] read() throws DriverException {
+		return driver_.read();
+	}
+
+	@Benchmark
+	public int readInto() throws DriverException {
+		return driver_.read(dst_, 0, dst_.length);
+	}
+
+	@Benchmark
+	public String stripNull() {
+		return CP2110HidDriver.stripNull(deviceString_);
+	}
+
+	@Benchmark
+	public String getString() throws DriverException {
+		return CP2110HidDriver.getString(0, 0, 0, 0x04);
+	}
+
+	@Benchmark
+	public Properties getProperties() throws DriverException {
+		return driver_.getProperties();
+	}
+}
@@ -0,0 +1,163 @@
+/**
+ * The MIT LICENSE (MIT):
+ * 
+ * Copyright  2021 Ejaz Jamil, Jence.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of 
+ * this software and associated documentation files (the Software), to deal in 
+ * the Software without restriction, including without limitation the rights to 
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+ * of the Software, and to permit persons to whom the Software is furnished to do 
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. 
+ * 
+ */
+package jence.driver;
+
+import com.sun.jna.Pointer;
+import com.sun.jna.ptr.IntByReference;
+
+/**
+ * In-process backend used by the benchmarks. Every call succeeds immediately;
+ * a read returns one card frame. The answers are prepared up front, so the
+ * fake itself does not allocate memory.
+ * 
+ * @author Ejaz Jamil, Jence.
+ *
+ */
+class FakeHIDUart implements HidUartBackend {
+	/**
+	 * Frame returned by every read, as sent by an LF card reader.
+	 */
+	static final byte[] FRAME = {0x02, 0x30, 0x31, 0x00, 0x12, 0x34, 0x56, 0x78, (byte)0x9A, 0x0D, 0x0A, 0x03};
+
+	private final int devices_;
+	private final byte[][] strings_ = new byte[7][];
+	private int baudRate_;
+	private byte dataBits_, parity_, stopBits_, flowControl_;
+
+	/**
+	 * Creates the fake.
+	 * 
+	 * @param devices number of attached devices.
+	 */
+	FakeHIDUart(int devices) {
+		devices_ = devices;
+		String[] values = {"", "10C4", "EA80", "/dev/hidraw0", "SER0", "Silicon Labs", "CP2110 HID USB-to-UART Bridge"};
+		for (int i = 0; i < values.length; i++)
+			strings_[i] = (values[i] + "\0").getBytes();
+	}
+
+	private void string(int options, byte[] deviceString) {
+		byte[] s = strings_[options];
+		System.arraycopy(s, 0, deviceString, 0, s.length);
+	}
+
+	@Override
+	public byte HidUart_GetLibraryVersion(byte[] major, byte[] minor, boolean[] release) {
+		major[0] = 1;
+		minor[0] = 7;
+		release[0] = true;
+		return HID_UART_SUCCESS;
+	}
+
+	@Override
+	public byte HidUart_GetHidLibraryVersion(byte[] major, byte[] minor, boolean[] release) {
+		return HidUart_GetLibraryVersion(major, minor, release);
+	}
+
+	@Override
+	public byte HidUart_GetNumDevices(int[] numDevices, short vid, short pid) {
+		numDevices[0] = devices_;
+		return HID_UART_SUCCESS;
+	}
+
+	@Override
+	public byte HidUart_GetString(int deviceNum, short vid, short pid, byte[] deviceString, int options) {
+		string(options, deviceString);
+		return HID_UART_SUCCESS;
+	}
+
+	@Override
+	public byte HidUart_IsOpened(long device, IntByReference opened) {
+		opened.setValue(1);
+		return HID_UART_SUCCESS;
+	}
+
+	@Override
+	public byte HidUart_Open(long[] device, int deviceNum, short vid, short pid) {
+		device[0] = deviceNum + 1;
+		return HID_UART_SUCCESS;
+	}
+
+	@Override
+	public byte HidUart_GetPartNumber(long device, byte[] partNumber, byte[] version) {
+		partNumber[0] = 0x0A;
+		version[0] = 1;
+		return HID_UART_SUCCESS;
+	}
+
+	@Override
+	public byte HidUart_SetUartConfig(long device, int baudRate, byte dataBits, byte parity, byte stopBits, byte flowControl) {
+		baudRate_ = baudRate;
+		dataBits_ = dataBits;
+		parity_ = parity;
+		stopBits_ = stopBits;
+		flowControl_ = flowControl;
+		return HID_UART_SUCCESS;
+	}
+
+	@Override
+	public byte HidUart_GetUartStatus(long device, short[] transmitFifoSize, short[] receiveFifoSize, byte[] errorStatus, byte[] lineBreakStatus) {
+		return HID_UART_SUCCESS;
+	}
+
+	@Override
+	public byte HidUart_GetUartConfig(long device, int[] baudRate, byte[] dataBits, byte[] parity, byte[] stopBits, byte[] flowControl) {
+		baudRate[0] = baudRate_;
+		dataBits[0] = dataBits_;
+		parity[0] = parity_;
+		stopBits[0] = stopBits_;
+		flowControl[0] = flowControl_;
+		return HID_UART_SUCCESS;
+	}
+
+	@Override
+	public byte HidUart_SetTimeouts(long device, int readTimeout, int writeTimeout) {
+		return HID_UART_SUCCESS;
+	}
+
+	@Override
+	public byte HidUart_GetOpenedString(long device, byte[] deviceString, int options) {
+		string(options, deviceString);
+		return HID_UART_SUCCESS;
+	}
+
+	@Override
+	public byte HidUart_Close(long device) {
+		return HID_UART_SUCCESS;
+	}
+
+	@Override
+	public byte HidUart_Read(long device, Pointer buffer, int numBytesToRead, IntByReference numBytesRead) {
+		int n = Math.min(numBytesToRead, FRAME.length);
+		buffer.write(0, FRAME, 0, n);
+		numBytesRead.setValue(n);
+		return (n < numBytesToRead) ? HID_UART_READ_TIMED_OUT : HID_UART_SUCCESS;
+	}
+
+	@Override
+	public byte HidUart_Write(long device, Pointer buffer, int numBytesToWrite, IntByReference numBytesWritten) {
+		numBytesWritten.setValue(numBytesToWrite);
+		return HID_UART_SUCCESS;
+	}
+}
@@ -0,0 +1,110 @@
+/**
+ * The MIT LICENSE (MIT):
+ * 
+ * Copyright  2021 Ejaz Jamil, Jence.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of 
+ * this software and associated documentation files (the Software), to deal in 
+ * the Software without restriction, including without limitation the rights to 
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+ * of the Software, and to permit persons to whom the Software is furnished to do 
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. 
+ * 
+ */
+package jence.driver;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks of the {@link DriverListener} calls made for every frame, 
+ * as in the example listener: <code>setData()</code>, <code>mask(8*6, 32)</code>,
+ * <code>dataAsHex()</code> and <code>dataAsDecimal()</code>. The 
+ * <code>bigInteger</code> benchmark repeats the same work the way the listener
+ * did before the primitive fast path, for comparison.
+ * 
+ * @author Ejaz Jamil, Jence.
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ListenerBenchmark {
+	private final byte[] frame_ = FakeHIDUart.FRAME.clone();
+	private final char[] chars_ = new char[20];
+	private final DriverListener listener_ = new DriverListener() {
+		@Override
+		protected void onData() {
+		}
+	};
+
+	@Benchmark
+	public void setData(Blackhole bh) {
+		listener_.setData("SER0", DriverListener.CardType.LF, frame_);
+		bh.consume(listener_.getSize());
+	}
+
+	@Benchmark
+	public void mask(Blackhole bh) {
+		listener_.mask(8*6, 32);
+		listener_.mask(-1, -1);
+		bh.consume(listener_);
+	}
+
+	@Benchmark
+	public void dataAsHex(Blackhole bh) {
+		listener_.setData("SER0", DriverListener.CardType.LF, frame_);
+		listener_.mask(8*6, 32);
+		bh.consume(listener_.dataAsHex());
+	}
+
+	@Benchmark
+	public void dataAsDecimal(Blackhole bh) {
+		listener_.setData("SER0", DriverListener.CardType.LF, frame_);
+		listener_.mask(8*6, 32);
+		bh.consume(listener_.dataAsDecimal());
+	}
+
+	@Benchmark
+	public int dataAsDecimalInto() {
+		listener_.setData("SER0", DriverListener.CardType.LF, frame_);
+		listener_.mask(8*6, 32);
+		return listener_.dataAsDecimal(chars_, 0);
+	}
+
+	@Benchmark
+	public void bigInteger(Blackhole bh) {
+		BigInteger big = new BigInteger(frame_);
+		char[] exmarks = new char[32];
+		Arrays.fill(exmarks, '1');
+		BigInteger mask = new BigInteger(new String(exmarks), 2);
+		BigInteger masked = big.shiftRight(8*6 - 32).and(mask);
+		bh.consume(masked.toString(16));
+		bh.consume(masked.toString(10));
+	}
+}
@@ -0,0 +1,148 @@
+/**
+ * The MIT LICENSE (MIT):
+ * 
+ * Copyright  2021 Ejaz Jamil, Jence.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of 
+ * this software and associated documentation files (the Software), to deal in 
+ * the Software without restriction, including without limitation the rights to 
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+ * of the Software, and to permit persons to whom the Software is furnished to do 
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. 
+ * 
+ */
+package jence.driver;
+
+/**
+ * Adjusts the read request size and the read timeout for the
+ * {@link ReadProfile#ADAPTIVE} profile. The outcome of every read is
+ * recorded and the settings are re-evaluated every {@link #WINDOW} reads:
+ * 
+ * <ul>
+ * <li>Reads that fill the whole request mean data arrives faster than it is 
+ * read, the request size is doubled.</li>
+ * <li>Reads that end with <code>HID_UART_READ_TIMED_OUT</code> after some data
+ * mean the caller waited for bytes that never came. The request is sized to 
+ * the data expected within one timeout at the observed arrival rate, but not 
+ * below the average chunk, and the timeout is halved.</li>
+ * <li>Reads without data mean the line is idle, the timeout grows back towards 
+ * {@link CP2110HidDriver#READ_TIMEOUT} to save wake ups.</li>
+ * </ul>
+ * 
+ * The tuner is not thread safe, it is only called from within a read.
+ * 
+ * @author Ejaz Jamil, Jence.
+ *
+ */
+public class AdaptiveReadTuner {
+	/**
+	 * Number of reads between two adjustments.
+	 */
+	public static final int WINDOW = 16;
+	/**
+	 * Smallest request size the tuner uses.
+	 */
+	public static final int MIN_READ_SIZE = 16;
+	/**
+	 * Shortest read timeout the tuner uses, in milliseconds.
+	 */
+	public static final int MIN_READ_TIMEOUT = 5;
+	/**
+	 * Longest read timeout the tuner uses, in milliseconds.
+	 */
+	public static final int MAX_READ_TIMEOUT = CP2110HidDriver.READ_TIMEOUT;
+
+	private int readSize_;
+	private int readTimeout_;
+	private int reads_ = 0;
+	private int full_ = 0;
+	private int partial_ = 0;
+	private long partialBytes_ = 0;
+	private long bytes_ = 0;
+	private long windowStart_ = 0;
+
+	/**
+	 * Creates the tuner.
+	 * 
+	 * @param readSize initial request size.
+	 * @param readTimeout initial read timeout in milliseconds.
+	 */
+	public AdaptiveReadTuner(int readSize, int readTimeout) {
+		readSize_ = readSize;
+		readTimeout_ = readTimeout;
+	}
+
+	/**
+	 * Records the outcome of one read.
+	 * 
+	 * @param requested number of bytes requested.
+	 * @param read number of bytes read.
+	 * @param timedOut <true>, if the read returned <code>HID_UART_READ_TIMED_OUT</code>.
+	 * @return <true>, if the read timeout changed and must be applied to the device.
+	 */
+	public boolean observe(int requested, int read, boolean timedOut) {
+		if (reads_ == 0)
+			windowStart_ = System.nanoTime();
+		reads_++;
+		bytes_ += read;
+		if (read >= requested) {
+			full_++;
+		} else if (read > 0 && timedOut) {
+			partial_++;
+			partialBytes_ += read;
+		}
+		if (reads_ < WINDOW)
+			return false;
+
+		int timeout = readTimeout_;
+		if (full_ > partial_) {
+			readSize_ = Math.min(readSize_ * 2, CP2110HidDriver.HID_UART_MAX_READ_SIZE);
+		} else if (partial_ > 0) {
+			long elapsed = Math.max(1, System.nanoTime() - windowStart_);
+			long perTimeout = bytes_ * readTimeout_ * 1000000L / elapsed;
+			long average = partialBytes_ / partial_;
+			readSize_ = clamp(Math.max(average, perTimeout), MIN_READ_SIZE, CP2110HidDriver.HID_UART_MAX_READ_SIZE);
+			timeout = Math.max(MIN_READ_TIMEOUT, readTimeout_ / 2);
+		} else if (bytes_ == 0) {
+			timeout = Math.min(MAX_READ_TIMEOUT, readTimeout_ * 2);
+		}
+		reads_ = full_ = partial_ = 0;
+		bytes_ = partialBytes_ = 0;
+		if (timeout == readTimeout_)
+			return false;
+		readTimeout_ = timeout;
+		return true;
+	}
+
+	private static int clamp(long v, int min, int max) {
+		return (int)Math.max(min, Math.min(max, v));
+	}
+
+	/**
+	 * Gets the current request size.
+	 * 
+	 * @return read size in bytes.
+	 */
+	public int getReadSize() {
+		return readSize_;
+	}
+
+	/**
+	 * Gets the current read timeout.
+	 * 
+	 * @return timeout in milliseconds.
+	 */
+	public int getReadTimeout() {
+		return readTimeout_;
+	}
+}
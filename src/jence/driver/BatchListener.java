@@ -0,0 +1,45 @@
+/**
+ * The MIT LICENSE (MIT):
+ * 
+ * Copyright  2021 Ejaz Jamil, Jence.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of 
+ * this software and associated documentation files (the Software), to deal in 
+ * the Software without restriction, including without limitation the rights to 
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+ * of the Software, and to permit persons to whom the Software is furnished to do 
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. 
+ * 
+ */
+package jence.driver;
+
+import java.util.List;
+
+/**
+ * Receives frames in batches from a {@link FrameBatcher}, so a sink such as a
+ * database can write once per batch instead of once per frame.
+ * 
+ * @author Ejaz Jamil, Jence.
+ *
+ */
+public interface BatchListener {
+	/**
+	 * Called with a batch of frames in arrival order. The list is read only and
+	 * may be kept by the listener. Called from the listen loop, or from the 
+	 * batcher's thread or executor when a batch is delivered because of its age.
+	 * The batcher is not locked during the call.
+	 * 
+	 * @param batch read only list of frames, never empty.
+	 */
+	void onBatch(List<Frame> batch);
+}
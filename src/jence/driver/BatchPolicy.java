@@ -0,0 +1,82 @@
+/**
+ * The MIT LICENSE (MIT):
+ * 
+ * Copyright  2021 Ejaz Jamil, Jence.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of 
+ * this software and associated documentation files (the Software), to deal in 
+ * the Software without restriction, including without limitation the rights to 
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+ * of the Software, and to permit persons to whom the Software is furnished to do 
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. 
+ * 
+ */
+package jence.driver;
+
+/**
+ * Decides when a {@link FrameBatcher} hands its frames to the 
+ * {@link BatchListener}. A batch is delivered as soon as one of the limits
+ * is reached.
+ * 
+ * @author Ejaz Jamil, Jence.
+ *
+ */
+public final class BatchPolicy {
+	private final int maxFrames_;
+	private final int maxBytes_;
+	private final long maxLingerMillis_;
+
+	/**
+	 * Creates the policy.
+	 * 
+	 * @param maxFrames maximum number of frames in a batch.
+	 * @param maxBytes maximum number of data bytes in a batch. Zero for no limit.
+	 * @param maxLingerMillis maximum time the first frame of a batch waits for delivery.
+	 */
+	public BatchPolicy(int maxFrames, int maxBytes, long maxLingerMillis) {
+		if (maxFrames < 1)
+			throw new IllegalArgumentException("Invalid frame count "+maxFrames);
+		if (maxBytes < 0 || maxLingerMillis <= 0)
+			throw new IllegalArgumentException("Invalid batch limits.");
+		maxFrames_ = maxFrames;
+		maxBytes_ = maxBytes;
+		maxLingerMillis_ = maxLingerMillis;
+	}
+
+	/**
+	 * Gets the maximum number of frames in a batch.
+	 * 
+	 * @return frame count.
+	 */
+	public int getMaxFrames() {
+		return maxFrames_;
+	}
+
+	/**
+	 * Gets the maximum number of data bytes in a batch.
+	 * 
+	 * @return bytes, zero for no limit.
+	 */
+	public int getMaxBytes() {
+		return maxBytes_;
+	}
+
+	/**
+	 * Gets the maximum time the first frame of a batch waits for delivery.
+	 * 
+	 * @return time in milliseconds.
+	 */
+	public long getMaxLingerMillis() {
+		return maxLingerMillis_;
+	}
+}
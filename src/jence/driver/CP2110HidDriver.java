@@ -23,15 +23,28 @@
  */
 package jence.driver;
 
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
 
 import com.sun.jna.Library;
+import com.sun.jna.Memory;
 import com.sun.jna.Native;
 import com.sun.jna.Platform;
+import com.sun.jna.Pointer;
+import com.sun.jna.ptr.IntByReference;
 
 /**
  * This class designed to use Silicon Labs CP2110 chip sets, which is a HID
@@ -43,24 +56,31 @@ import com.sun.jna.Platform;
  * should work for all the OSes as long as the driver is able to load the 
  * driver DLL or shared objects. 
  * 
+ * <h2>Concurrency</h2>
+ * A driver instance owns one device handle and may be used by several threads:
+ * <ul>
+ * <li>Reads are serialized with each other, and so are writes, but a read and 
+ * a write run at the same time. A command written while the listen loop waits
+ * in a read goes out at once instead of waiting for the read timeout.</li>
+ * <li>Configuration calls, that is the connect and disconnect methods, 
+ * {@link #reconnect()}, {@link #setReadWriteTimeout(int, int)} and 
+ * {@link #setReadProfile(ReadProfile)}, wait until the reads and writes in
+ * progress return, at most one read or write timeout, and hold off new ones
+ * until done. A handle is never closed under a read or a write.</li>
+ * <li>Queries, {@link #isConnected(String)} and {@link #getUartStatus()}, 
+ * run alongside the reads and writes.</li>
+ * <li>Different instances share no lock, except while enumerating the devices 
+ * in a connect, so several devices read and write in parallel.</li>
+ * </ul>
+ * Locks are taken in the order configuration, read, write. The data read is
+ * handed to the listeners after the read lock is released, so a listener may
+ * call any method of the driver.
+ * 
  * @author Ejaz Jamil, Soalib Inc.
  * @version 1.0
  */
 public class CP2110HidDriver {
-	private interface IHIDUart extends Library {
-		public byte HidUart_GetLibraryVersion(byte[] major, byte[] minor, boolean[] release);
-		public byte HidUart_GetHidLibraryVersion(byte[] major, byte[] minor, boolean[] release);
-		public byte HidUart_GetNumDevices(int[] numDevices, short vid, short pid);
-		public byte HidUart_GetString(int deviceNum, short vid, short pid, byte[] deviceString, int options);
-		public byte HidUart_IsOpened(long device);
-		public byte HidUart_Open(long[] device, int deviceNum, short vid, short pid);
-		public byte HidUart_GetPartNumber(long device, byte[] partNumber, byte[] version);
-		public byte HidUart_SetUartConfig(long device, int baudRate, byte dataBits, byte parity, byte stopBits, byte flowControl);
-		public byte HidUart_GetUartStatus(long device, short[] transmitFifoSize, short[] receiveFifoSize, byte[] errorStatus, byte[] lineBreakStatus);
-		public byte HidUart_GetUartConfig(long device, int[] baudRate, byte[] dataBits, byte[] parity, byte[] stopBits, byte[] flowControl);
-		public byte HidUart_SetTimeouts(long device, int readTimeout, int writeTimeout);
-		public byte HidUart_GetOpenedString(long device, byte[] deviceString, int options);
-		public byte HidUart_Close(long device);
+	interface IHIDUart extends Library, HidUartBackend {
 		public byte HidUart_Read(long device, byte[] buffer, int numBytesToRead, int[] numBytesRead);
 	}
 	
@@ -138,7 +158,7 @@ HidUart_GetSerialString
 HidUart_GetTimeouts
 	[X] HidUart_GetUartConfig
 HidUart_GetUartEnable
-HidUart_GetUartStatus
+	[X] HidUart_GetUartStatus
 HidUart_GetUsbConfig
 	[X] HidUart_IsOpened
 	[X] HidUart_Open
@@ -156,7 +176,7 @@ HidUart_SetUartEnable
 HidUart_SetUsbConfig
 HidUart_StartBreak
 HidUart_StopBreak
-HidUart_Write
+	[X] HidUart_Write
 HidUart_WriteLatch
 */
 	private static boolean CONSOLE = true;
@@ -239,22 +259,82 @@ HidUart_WriteLatch
 	public static final int HID_UART_MAX_WRITE_SIZE			= 4096;
 
 	public static final int READ_SIZE						= 1000;
+
+	// operations that can wait for their turn in the asynchronous API
+	public static final int ASYNC_QUEUE_SIZE				= 64;
+
+	// pause between two polls of an empty receive FIFO, see ReadProfile.FIFO_POLLING
+	private static final long MIN_POLL_NANOS				= TimeUnit.MILLISECONDS.toNanos(1);
+	private static final long MAX_POLL_NANOS				= TimeUnit.MILLISECONDS.toNanos(16);
 	
 	//typedef long jint;
 	//typedef DWORD = __int64 = jlong;
 	//typedef signed char jbyte;
 	
-	private static IHIDUart hid = null;
+	private static volatile HidUartBackend hid = null;
+	// cached enumeration, rebuilt when the number of attached devices changes.
+	private static volatile DeviceInfo[] s_devices = null;
+	// library calls not tied to a device go through here, for the metrics.
+	private static final MeteredHIDUart s_lib = new MeteredHIDUart(new DriverMetrics("library"));
+	// library version, fetched once per backend.
+	private static volatile String s_version = null;
 	
 	long	m_hidUart;
 	byte	m_partNumber;
 	byte	m_version;
-	long	m_hNotifyDevNode;
 	String  m_vid;
 	String  m_pid;
 	String  m_product;
 	String  m_mfg;
 	String  m_path;
+	String  m_deviceid;
+	// index and settings of the last connect, for the fast reconnect
+	int		m_index = -1;
+	int		m_baudRate, m_dataBits, m_parity, m_stopBits;
+	boolean	m_flow;
+	// snapshot returned by getProperties(), built on first use after connect
+	volatile Properties m_properties;
+	
+	// see the concurrency model in the class comment. The reads and writes hold
+	// the configuration lock shared, the configuration calls hold it exclusive.
+	private final ReentrantReadWriteLock m_configLock = new ReentrantReadWriteLock();
+	private final ReentrantLock m_readLock = new ReentrantLock();
+	private final ReentrantLock m_writeLock = new ReentrantLock();
+
+	// per handle native read buffer, reused by every read call.
+	Memory	m_readBuffer;
+	ByteBuffer m_readView;
+	IntByReference m_numBytesRead = new IntByReference();
+	// bytes of a readAsync() that ended after its deadline, returned by the next read
+	byte[]	m_unread;
+	int		m_unreadPos;
+	// status of the last failed read, see isLost()
+	volatile int m_readStatus = HID_UART_SUCCESS;
+	// UART status polled before each read, see ReadProfile.FIFO_POLLING
+	short[] m_txFifo = {0}, m_rxFifo = {0};
+	byte[] m_uartErrors = {0}, m_lineBreak = {0};
+	long	m_pollNanos = MIN_POLL_NANOS;
+	// per handle native write buffer, used for data not already in a direct buffer.
+	Memory	m_writeBuffer;
+	IntByReference m_numBytesWritten = new IntByReference();
+	// read settings, see setReadProfile()
+	ReadProfile m_readProfile = ReadProfile.BALANCED;
+	AdaptiveReadTuner m_tuner;
+	volatile int m_readSize = READ_SIZE;
+	volatile int m_readTimeout = READ_TIMEOUT;
+	volatile int m_writeTimeout = WRITE_TIMEOUT;
+	// splits the data read into frames before it reaches the listener, see setFramer()
+	volatile Framer m_framer;
+	// drops repeated card reads before they reach the listener, see setDeduplicator()
+	volatile CardDeduplicator m_dedup;
+	// records what every read returned, see setCapture()
+	volatile CaptureWriter m_capture;
+	// runs the asynchronous operations in order, see connectAsync(). Not locked
+	// by the driver, so a submission does not wait for a read in progress.
+	private final DeviceExecutor m_io = new DeviceExecutor(ASYNC_QUEUE_SIZE);
+	// library calls of this device go through here, for the metrics.
+	DriverMetrics m_metrics = new DriverMetrics("");
+	MeteredHIDUart m_lib = new MeteredHIDUart(m_metrics);
 
 	/**
 	 * Gets the description of the status code.
@@ -262,44 +342,39 @@ HidUart_WriteLatch
 	 * @param status status id.
 	 * @return a description of status as String.
 	 */
-	private static String getStatus(int status)
+	static String getStatus(int status)
 	{
-		String statusStr = "Unknown status";
-
-		switch (status)
-		{
-		case HID_UART_SUCCESS:					statusStr = "Success";					break;
-		case HID_UART_DEVICE_NOT_FOUND:			statusStr = "Device not found";			break;
-		case HID_UART_INVALID_HANDLE:			statusStr = "Invalid handle";			break;
-		case HID_UART_INVALID_DEVICE_OBJECT:	statusStr = "Invalid device object";	break;
-		case HID_UART_INVALID_PARAMETER:		statusStr = "Invalid parameter";		break;
-		case HID_UART_INVALID_REQUEST_LENGTH:	statusStr = "Invalid request length";	break;
-
-		case HID_UART_READ_ERROR:				statusStr = "Read error";				break;
-		case HID_UART_WRITE_ERROR:				statusStr = "Write error";				break;
-		case HID_UART_READ_TIMED_OUT:			statusStr = "Read timed out";			break;
-		case HID_UART_WRITE_TIMED_OUT:			statusStr = "Write timed out";			break;
-		case HID_UART_DEVICE_IO_FAILED:			statusStr = "Device I/O failed";		break;
-		case HID_UART_DEVICE_ACCESS_ERROR:		statusStr = "Device access error";		break;
-		case HID_UART_DEVICE_NOT_SUPPORTED:		statusStr = "Device not supported";		break;
-
-		case HID_UART_UNKNOWN_ERROR:			statusStr = "Unknown error";			break;
-		}
-
-		return statusStr;
+		HidUartStatus known = HidUartStatus.fromCode(status);
+		return (known != null) ? known.getDescription() : "Unknown status";
 	}
 
 	/**
-	 * Checks if the status is Valid. If not, throws exception with status message.
+	 * Checks if the status is Valid. If not, throws exception with status message
+	 * and status.
+	 * Loads the library if no backend is installed yet, so the static methods 
+	 * work without creating an instance first.
 	 * 
 	 * @param status status id.
 	 * @throws DriverException
 	 */
 	private static void checkValidity(int status) throws DriverException {
+		checkValidity(status, null);
+	}
+
+	/**
+	 * Same as {@link #checkValidity(int)}, but the message names the device. A new
+	 * exception is thrown each time, see {@link DriverException#forStatus(int, String)};
+	 * the reads throw the shared ones instead.
+	 * 
+	 * @param status status id.
+	 * @param deviceid id of the device.
+	 * @throws DriverException
+	 */
+	private static void checkValidity(int status, String deviceid) throws DriverException {
 		if (hid == null)
-			throw new DriverException("Library not loaded.");
+			library();
 		if (status != HID_UART_SUCCESS)
-			throw new DriverException(getStatus(status));
+			throw DriverException.forStatus(status, deviceid);
 	}
 
 	/**
@@ -308,7 +383,7 @@ HidUart_WriteLatch
 	 * @param s bytes read.
 	 * @return null removed String.
 	 */
-	private static String stripNull(byte[] s) {
+	static String stripNull(byte[] s) {
 		try {
 			int nullIndex = 0;
 			while(s[nullIndex++] != 0)
@@ -323,21 +398,26 @@ HidUart_WriteLatch
 	}
 
 	/**
-	 * Gets the version of the library.
+	 * Gets the version of the library. It is read from the library once.
 	 * 
 	 * @return version as String.
 	 * @throws DriverException
 	 */
 	public static String getVersion() throws DriverException {
 		checkValidity(0);
+		String cached = s_version;
+		if (cached != null)
+			return cached;
 		byte[] major = {0}, minor = {0};
 		boolean[] release = {false};
 		//hid.HidDevice_GetNumHidDevices((short)0, (short)0);
-		byte status = hid.HidUart_GetLibraryVersion(major, minor, release);
+		byte status = s_lib.HidUart_GetLibraryVersion(major, minor, release);
 		checkValidity(status);
 		String version = "LIB:" + major[0]+"."+minor[0]+ " " + ((release[0]) ? "Release" : "Debug");
-		status = hid.HidUart_GetHidLibraryVersion(major, minor, release);
+		status = s_lib.HidUart_GetHidLibraryVersion(major, minor, release);
 		version += ", HID:" + major[0]+"."+minor[0]+ " " + ((release[0]) ? "Release" : "Debug") ;
+		if (status == HID_UART_SUCCESS)
+			s_version = version;
 		return version;
 	}
 
@@ -352,7 +432,7 @@ HidUart_WriteLatch
 	public static int getDeviceCount(int vid, int pid) throws DriverException {
 		checkValidity(0);
 		int[] devices = {0};
-		int status = hid.HidUart_GetNumDevices(devices, (short)vid, (short)pid);
+		int status = s_lib.HidUart_GetNumDevices(devices, (short)vid, (short)pid);
 		checkValidity(status);
 		return devices[0];
 	}
@@ -367,10 +447,10 @@ HidUart_WriteLatch
 	 * @return the String value.
 	 * @throws DriverException
 	 */
-	private static String getString(int index, int vid, int pid, int strType) throws DriverException {
+	static String getString(int index, int vid, int pid, int strType) throws DriverException {
 		checkValidity(0);
 		byte[] deviceString = new byte[HID_UART_DEVICE_STRLEN];
-		int status = hid.HidUart_GetString(index, (short)vid, (short)pid, deviceString, strType);
+		int status = s_lib.HidUart_GetString(index, (short)vid, (short)pid, deviceString, strType);
 		checkValidity(status);
 		return stripNull(deviceString);
 	}
@@ -380,32 +460,49 @@ HidUart_WriteLatch
 	 * devices.
 	 * 
 	 * @param device
+	 * @param deviceid id of the device, for the error message.
 	 * @param strType
 	 * @return
 	 * @throws DriverException
 	 */
-	private String getOpenedString(long device, int strType) throws DriverException {
+	private String getOpenedString(long device, String deviceid, int strType) throws DriverException {
 		checkValidity(0);
 		byte[] deviceString = new byte[HID_UART_DEVICE_STRLEN];
-		int status = hid.HidUart_GetOpenedString(device, deviceString, strType);
-		checkValidity(status);
+		int status = m_lib.HidUart_GetOpenedString(device, deviceString, strType);
+		checkValidity(status, deviceid);
 		return stripNull(deviceString);
 	}
 
+	/**
+	 * Internal method that reads the serial number of the open device.
+	 * 
+	 * @return serial number.
+	 * @throws DriverException
+	 */
+	String getOpenedSerial() throws DriverException {
+		m_configLock.readLock().lock();
+		try {
+			return getOpenedString(m_hidUart, m_deviceid, HID_UART_GET_SERIAL_STR).trim();
+		} finally {
+			m_configLock.readLock().unlock();
+		}
+	}
+
 	/**
 	 * Opens a device at index.
 	 * 
 	 * @param index device index.
 	 * @param vid vendor id. Provide 0 if not known.
 	 * @param pid product id. Provide 0 if not known.
+	 * @param deviceid id of the device, for the error message.
 	 * @return status id.
 	 * @throws DriverException
 	 */
-	private long open(int index, int vid, int pid) throws DriverException {
+	private long open(int index, int vid, int pid, String deviceid) throws DriverException {
 		checkValidity(0);
 		long[] hiduar = {0};
-		int status = hid.HidUart_Open(hiduar, index, (short)vid, (short)pid);
-		checkValidity(status);
+		int status = m_lib.HidUart_Open(hiduar, index, (short)vid, (short)pid);
+		checkValidity(status, deviceid);
 		return hiduar[0];
 	}
 
@@ -416,17 +513,126 @@ HidUart_WriteLatch
 	 * @throws DriverException
 	 */
 	public static String[] listDevices() throws DriverException {
+		return listDevices(0, 0);
+	}
+
+	/**
+	 * List the attached devices of CP2110 type with the given vendor and product id.
+	 * 
+	 * @param vid Provide specific vendor ID, if known. Otherwise pass zero for all vendors.
+	 * @param pid Provide specific product ID, if known. Otherwise pass zero for all products.
+	 * @return an array of device id as String.
+	 * @throws DriverException
+	 */
+	public static String[] listDevices(int vid, int pid) throws DriverException {
 		ArrayList<String> list = new ArrayList<String>();
+		for (DeviceInfo info : getDevices(vid, pid)) {
+			if (info.getSerial().length() > 0) {
+				list.add(info.getSerial());
+			}
+		}
+		return (String[])list.toArray(new String[]{});
+	}
+
+	/**
+	 * Gets a description of every attached device with the given vendor and product id.
+	 * The devices are enumerated once and the result is cached until the number of
+	 * attached devices changes, so repeated calls cost a single native call.
+	 * 
+	 * @param vid Provide specific vendor ID, if known. Otherwise pass zero for all vendors.
+	 * @param pid Provide specific product ID, if known. Otherwise pass zero for all products.
+	 * @return array of device descriptions.
+	 * @throws DriverException
+	 */
+	public static DeviceInfo[] getDevices(int vid, int pid) throws DriverException {
+		DeviceInfo[] devices = snapshot();
+		if (vid == 0 && pid == 0)
+			return devices.clone();
+		ArrayList<DeviceInfo> list = new ArrayList<DeviceInfo>();
+		for (DeviceInfo info : devices) {
+			if (info.matches(vid, pid))
+				list.add(info);
+		}
+		return (DeviceInfo[])list.toArray(new DeviceInfo[]{});
+	}
+
+	/**
+	 * Finds an attached device by its device ID.
+	 * 
+	 * @param deviceid device ID as returned by {@link #listDevices()}.
+	 * @return the device description, or null if the device is not attached.
+	 * @throws DriverException
+	 */
+	public static DeviceInfo findDevice(String deviceid) throws DriverException {
+		for (DeviceInfo info : snapshot()) {
+			if (info.getSerial().equals(deviceid.trim()))
+				return info;
+		}
+		return null;
+	}
+
+	/**
+	 * Discards the cached device enumeration. The cache is rebuilt automatically
+	 * when the number of attached devices changes, this method is only needed if
+	 * a device was replaced by another one in between two calls.
+	 */
+	public static void invalidateDevices() {
+		s_devices = null;
+	}
+
+	/**
+	 * Internal method that returns the cached enumeration, or rebuilds it if the
+	 * number of attached devices changed.
+	 * 
+	 * @return all attached devices.
+	 * @throws DriverException
+	 */
+	private static DeviceInfo[] snapshot() throws DriverException {
 		int n = getDeviceCount(0, 0);
+		DeviceInfo[] devices = s_devices;
+		if (devices != null && devices.length == n)
+			return devices;
+		return enumerate(n);
+	}
+
+	/**
+	 * Internal method that reads the strings of all attached devices.
+	 * 
+	 * @param n number of attached devices.
+	 * @return all attached devices.
+	 * @throws DriverException
+	 */
+	private static synchronized DeviceInfo[] enumerate(int n) throws DriverException {
+		DeviceInfo[] devices = s_devices;
+		if (devices != null && devices.length == n)
+			return devices;
+		devices = new DeviceInfo[n];
 		for (int i = 0; i < n; i++)
 		{
-			// Search through all HID devices for a matching serial string
-			String deviceString = getString(i, 0, 0, HID_UART_GET_SERIAL_STR);
-			if (deviceString != null && deviceString.trim().length() > 0) {
-				list.add(deviceString.trim());
-			}
+			String serial = getString(i, 0, 0, HID_UART_GET_SERIAL_STR);
+			devices[i] = new DeviceInfo(i, (serial == null) ? "" : serial.trim(),
+					parseId(getString(i, 0, 0, HID_UART_GET_VID_STR)),
+					parseId(getString(i, 0, 0, HID_UART_GET_PID_STR)),
+					getString(i, 0, 0, HID_UART_GET_PATH_STR),
+					getString(i, 0, 0, HID_UART_GET_MANUFACTURER_STR),
+					getString(i, 0, 0, HID_UART_GET_PRODUCT_STR));
+		}
+		s_devices = devices;
+		return devices;
+	}
+
+	/**
+	 * Internal method that parses a vendor or product id string, which is in hex.
+	 * 
+	 * @param s id string.
+	 * @return id, or zero if not valid.
+	 */
+	private static int parseId(String s) {
+		try {
+			return (s == null) ? 0 : Integer.parseInt(s.trim(), 16);
+		} catch (NumberFormatException e) {
+			return 0;
 		}
-		return (String[])list.toArray(new String[]{});
 	}
 
 	/**
@@ -436,10 +642,16 @@ HidUart_WriteLatch
 	 * @return <true>, if connected.
 	 */
 	public boolean isConnected(String device) {
-		int status = hid.HidUart_IsOpened(m_hidUart);
-		if (status == HID_UART_SUCCESS)
-			return true;
-		return false;
+		m_configLock.readLock().lock();
+		try {
+			IntByReference opened = new IntByReference();
+			int status = m_lib.HidUart_IsOpened(m_hidUart, opened);
+			if (status == HID_UART_SUCCESS && opened.getValue() != 0)
+				return true;
+			return false;
+		} finally {
+			m_configLock.readLock().unlock();
+		}
 	}
 
 	/**
@@ -452,111 +664,281 @@ HidUart_WriteLatch
 	 * 'M' = mark parity. 'N' is more common.
 	 * @param stopBits valid values are 1 or 2. 1 is more common.
 	 * @param flow <false> for no flow control. <true> is not frequently used.
-	 * @throws DriverException
+	 * @throws DriverException if the device is not found or cannot be opened and
+	 * configured, with the status returned by the library when there is one.
 	 */
 	public void connect(String deviceid, int baudRate, int dataBits, int parity, int stopBits, boolean flow) throws DriverException
 	{
-		// connect(deviceString, 9600, HID_UART_EIGHT_DATA_BITS, HID_UART_NO_PARITY, HID_UART_SHORT_STOP_BIT, HID_UART_NO_FLOW_CONTROL);
-		dataBits -= 5;
+		try {
+			connectDevice(deviceid, baudRate, dataBits, parity, stopBits, flow);
+		} catch (DriverException e) {
+			// Notify the user that an error occurred
+			if (CONSOLE) {
+				System.out.println("Failed to connect to "+deviceid+": "+e.getMessage());
+			}
+			throw e;
+		} catch (RuntimeException e) {
+			if (CONSOLE) {
+				System.out.println("Failed to connect to "+deviceid+": "+e);
+			}
+			throw new DriverException("Failed to connect to "+deviceid, e);
+		}
+	}
+
+	/**
+	 * Internal method that finds the device and connects to it, retrying once 
+	 * if the cached enumeration is stale.
+	 * 
+	 * @param deviceid a valid device ID.
+	 * @param baudRate see {@link #connect(String, int, int, int, int, boolean)}.
+	 * @param dataBits see {@link #connect(String, int, int, int, int, boolean)}.
+	 * @param parity see {@link #connect(String, int, int, int, int, boolean)}.
+	 * @param stopBits see {@link #connect(String, int, int, int, int, boolean)}.
+	 * @param flow see {@link #connect(String, int, int, int, int, boolean)}.
+	 * @throws DriverException
+	 */
+	private void connectDevice(String deviceid, int baudRate, int dataBits, int parity, int stopBits, boolean flow) throws DriverException
+	{
+		m_configLock.writeLock().lock();
+		try {
+			if (reopen(deviceid, baudRate, dataBits, parity, stopBits, flow))
+				return;
+			for (int attempt = 0; attempt < 2; attempt++) {
+				DeviceInfo info = findDevice(deviceid);
+				if (info == null)
+					throw new DeviceNotFoundException("Device not found for "+deviceid);
+				// Open the device
+				connect(info.getIndex(), deviceid, baudRate, dataBits, parity, stopBits, flow);
+				// The cached index is stale if a device was replaced by another one
+				if (info.getSerial().equals(getOpenedString(m_hidUart, deviceid, HID_UART_GET_SERIAL_STR).trim()))
+					return;
+				m_lib.HidUart_Close(m_hidUart);
+				m_hidUart = 0;
+				invalidateDevices();
+			}
+		} finally {
+			m_configLock.writeLock().unlock();
+		}
+		
+		throw new DeviceNotFoundException("No device found.");
+	}
+
+	/**
+	 * Internal method that converts the parity letter of {@link #connect(String, int, int, int, int, boolean)}
+	 * to the library code.
+	 * 
+	 * @param parity N, E, O, M or S.
+	 * @return parity code.
+	 */
+	private static int parityCode(int parity) {
 		switch(parity) {
-		case 'N': parity = HID_UART_NO_PARITY; break;
-		case 'E': parity = HID_UART_ODD_PARITY; break;
-		case 'O': parity = HID_UART_EVEN_PARITY; break;
-		case 'M': parity = HID_UART_MARK_PARITY; break;
-		case 'S': parity = HID_UART_SPACE_PARITY; break;
+		case 'N': return HID_UART_NO_PARITY;
+		case 'E': return HID_UART_ODD_PARITY;
+		case 'O': return HID_UART_EVEN_PARITY;
+		case 'M': return HID_UART_MARK_PARITY;
+		case 'S': return HID_UART_SPACE_PARITY;
+		}
+		return parity;
+	}
+
+	/**
+	 * Internal method for the fast reconnect. If the device and the settings are
+	 * those of the last connect, opens the device at the same index and checks its 
+	 * serial, then sets the UART configuration and the timeouts again. The part 
+	 * number, the descriptor strings and the confirmation of the configuration are 
+	 * kept from the last connect, and nothing is printed.
+	 * 
+	 * @return <true>, if connected. <false>, if the full connect is needed.
+	 */
+	private boolean reopen(String deviceid, int baudRate, int dataBits, int parity, int stopBits, boolean flow)
+	{
+		if (m_index < 0 || !deviceid.equals(m_deviceid) || baudRate != m_baudRate || dataBits != m_dataBits
+			|| parity != m_parity || stopBits != m_stopBits || flow != m_flow)
+			return false;
+		if (m_hidUart != 0) {
+			// the handle of a device that went away
+			m_lib.HidUart_Close(m_hidUart);
+			m_hidUart = 0;
+		}
+		try {
+			m_hidUart = open(m_index, 0, 0, deviceid);
+			if (!deviceid.equals(getOpenedString(m_hidUart, deviceid, HID_UART_GET_SERIAL_STR).trim()))
+				throw new DriverException("Device moved.");
+			int status = m_lib.HidUart_SetUartConfig(m_hidUart, baudRate, (byte)(dataBits - 5), (byte)parityCode(parity), 
+				(byte)(stopBits - 1), (byte)((flow) ? HID_UART_NO_FLOW_CONTROL : HID_UART_RTS_CTS_FLOW_CONTROL));
+			checkValidity(status, deviceid);
+			status = m_lib.HidUart_SetTimeouts(m_hidUart, m_readTimeout, m_writeTimeout);
+			checkValidity(status, deviceid);
+			m_metrics.register();
+			return true;
+		} catch (DriverException e) {
+			if (m_hidUart != 0) {
+				m_lib.HidUart_Close(m_hidUart);
+				m_hidUart = 0;
+			}
+			invalidateDevices();
+			return false;
+		}
+	}
+
+	/**
+	 * Connects again to the device of the last successful connect, with the same
+	 * settings, for example after the device was unplugged or reset. When the 
+	 * device comes back with the same serial at the same index, the old handle is
+	 * closed and only four library calls are made; otherwise the device is searched as by 
+	 * {@link #connect(String, int, int, int, int, boolean)}.
+	 * 
+	 * @throws DriverException if the device is not found or fails to open.
+	 */
+	public void reconnect() throws DriverException
+	{
+		m_configLock.writeLock().lock();
+		try {
+			if (m_deviceid == null)
+				throw new DriverException("Not connected before.");
+			connectDevice(m_deviceid, m_baudRate, m_dataBits, m_parity, m_stopBits, m_flow);
+		} finally {
+			m_configLock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Internal method that tells if the last read failed because the device is
+	 * gone, from the status of that read or, failing that, from the library's 
+	 * view of the handle. Clears the status of the last read.
+	 * 
+	 * @return <true>, if the device must be connected again.
+	 */
+	boolean isLost() {
+		int status = m_readStatus;
+		m_readStatus = HID_UART_SUCCESS;
+		switch (status) {
+		case HID_UART_DEVICE_NOT_FOUND:
+		case HID_UART_INVALID_HANDLE:
+		case HID_UART_INVALID_DEVICE_OBJECT:
+		case HID_UART_DEVICE_IO_FAILED:
+			return true;
+		}
+		if (hid == null)
+			return false;
+		m_configLock.readLock().lock();
+		try {
+			IntByReference opened = new IntByReference();
+			int result = m_lib.HidUart_IsOpened(m_hidUart, opened);
+			return result != HID_UART_SUCCESS || opened.getValue() == 0;
+		} finally {
+			m_configLock.readLock().unlock();
 		}
+	}
+
+	/**
+	 * Connect to the device at a known index, without scanning the attached devices.
+	 * 
+	 * @param index device index, as used by {@link #getDeviceCount(int, int)}.
+	 * @param deviceid the device ID found at this index.
+	 * @param baudRate see {@link #connect(String, int, int, int, int, boolean)}.
+	 * @param dataBits see {@link #connect(String, int, int, int, int, boolean)}.
+	 * @param parity see {@link #connect(String, int, int, int, int, boolean)}.
+	 * @param stopBits see {@link #connect(String, int, int, int, int, boolean)}.
+	 * @param flow see {@link #connect(String, int, int, int, int, boolean)}.
+	 * @throws DriverException
+	 */
+	void connect(int index, String deviceid, int baudRate, int dataBits, int parity, int stopBits, boolean flow) throws DriverException
+	{
+		// connect(deviceString, 9600, HID_UART_EIGHT_DATA_BITS, HID_UART_NO_PARITY, HID_UART_SHORT_STOP_BIT, HID_UART_NO_FLOW_CONTROL);
+		int baudArg = baudRate, dataBitsArg = dataBits, parityArg = parity, stopBitsArg = stopBits;
+		dataBits -= 5;
+		parity = parityCode(parity);
 		stopBits = stopBits - 1;
 		int flowControl = (flow) ? HID_UART_NO_FLOW_CONTROL : HID_UART_RTS_CTS_FLOW_CONTROL;
 
+		m_configLock.writeLock().lock();
 		try {
-			int n = getDeviceCount(0, 0);
-			if (n == 0)
-				throw new DriverException("Device not found for "+deviceid);
-			
-			for (int i = 0; i < n; i++)
-			{
-				// Search through all HID devices for a matching serial string
-				String deviceString = getString(i, 0, 0, HID_UART_GET_SERIAL_STR);
-				// Found a matching device
-				if (deviceid.equals(deviceString)) {
-					// Open the device
-					m_hidUart = open(i, 0, 0);
-					break;
-				}
-			}
-			
-			if (m_hidUart == 0) {
-				throw new DriverException("No device found.");
+			if (!deviceid.equals(m_metrics.getDevice())) {
+				m_metrics.unregister();
+				m_metrics = new DriverMetrics(deviceid);
+				m_lib = new MeteredHIDUart(m_metrics);
 			}
+
+			try {
+				m_hidUart = open(index, 0, 0, deviceid);
 	
-			// Found and opened the device
-			// Get part number and version
-			byte[] partno = {0}, version = {0};
-			int status = hid.HidUart_GetPartNumber(m_hidUart, partno, version);
-			checkValidity(status);
-			m_partNumber = partno[0];
-			m_version = version[0];
+				// Found and opened the device
+				// Get part number and version
+				byte[] partno = {0}, version = {0};
+				int status = m_lib.HidUart_GetPartNumber(m_hidUart, partno, version);
+				checkValidity(status, deviceid);
+				m_partNumber = partno[0];
+				m_version = version[0];
 	
-			// Got part number
-			// Configure the UART
-			status = hid.HidUart_SetUartConfig(m_hidUart, baudRate, (byte)dataBits, (byte)parity, (byte)stopBits, (byte)flowControl);
-			checkValidity(status);
+				// Got part number
+				// Configure the UART
+				status = m_lib.HidUart_SetUartConfig(m_hidUart, baudRate, (byte)dataBits, (byte)parity, (byte)stopBits, (byte)flowControl);
+				checkValidity(status, deviceid);
 	
-			// Confirm UART settings
-			int[] vBaudRate = {0};
-			byte[] vDataBits = {0};
-			byte[] vParity = {0};
-			byte[] vStopBits = {0};
-			byte[] vFlowControl = {0};
+				// Confirm UART settings
+				int[] vBaudRate = {0};
+				byte[] vDataBits = {0};
+				byte[] vParity = {0};
+				byte[] vStopBits = {0};
+				byte[] vFlowControl = {0};
 	
-			status = hid.HidUart_GetUartConfig(m_hidUart, vBaudRate, vDataBits, vParity, vStopBits, vFlowControl);
+				status = m_lib.HidUart_GetUartConfig(m_hidUart, vBaudRate, vDataBits, vParity, vStopBits, vFlowControl);
 	
-			if (vBaudRate[0] != baudRate ||
-				vDataBits[0] != dataBits ||
-				vParity[0] != parity ||
-				vStopBits[0] != stopBits ||
-				vFlowControl[0] != flowControl) {
-				status = HID_UART_INVALID_PARAMETER;
-				checkValidity(status);
-			}
+				if (vBaudRate[0] != baudRate ||
+					vDataBits[0] != dataBits ||
+					vParity[0] != parity ||
+					vStopBits[0] != stopBits ||
+					vFlowControl[0] != flowControl) {
+					status = HID_UART_INVALID_PARAMETER;
+					checkValidity(status, deviceid);
+				}
 	
-			// Configured the UART
-			// Set short read timeouts for periodic read timer
-			// Set longer write timeouts for user transmits
-			status = hid.HidUart_SetTimeouts(m_hidUart, READ_TIMEOUT, WRITE_TIMEOUT);
-			checkValidity(status);
+				// Configured the UART
+				// Set short read timeouts for periodic read timer
+				// Set longer write timeouts for user transmits
+				status = m_lib.HidUart_SetTimeouts(m_hidUart, m_readTimeout, m_writeTimeout);
+				checkValidity(status, deviceid);
 	
-			// Fully connected to the device
-			m_vid = getOpenedString(m_hidUart, HID_UART_GET_VID_STR);
-			m_pid = getOpenedString(m_hidUart, HID_UART_GET_PID_STR);
-			m_product = getOpenedString(m_hidUart, HID_UART_GET_PRODUCT_STR);
-			m_mfg = getOpenedString(m_hidUart, HID_UART_GET_MANUFACTURER_STR);
-			m_path = getOpenedString(m_hidUart, HID_UART_GET_PATH_STR);
+				// Fully connected to the device
+				m_vid = getOpenedString(m_hidUart, deviceid, HID_UART_GET_VID_STR);
+				m_pid = getOpenedString(m_hidUart, deviceid, HID_UART_GET_PID_STR);
+				m_product = getOpenedString(m_hidUart, deviceid, HID_UART_GET_PRODUCT_STR);
+				m_mfg = getOpenedString(m_hidUart, deviceid, HID_UART_GET_MANUFACTURER_STR);
+				m_path = getOpenedString(m_hidUart, deviceid, HID_UART_GET_PATH_STR);
+				m_deviceid = deviceid;
+				m_properties = null;
+				m_index = index;
+				m_baudRate = baudArg;
+				m_dataBits = dataBitsArg;
+				m_parity = parityArg;
+				m_stopBits = stopBitsArg;
+				m_flow = flow;
 
-			if (CONSOLE) {
-				// Output the connection status to the status bar
-				System.out.println("Vendor ID = "+m_vid+", Product ID = "+m_pid);
-				System.out.println("Part Number = "+m_partNumber+", Version = "+m_version);
-				System.out.println("Path = "+ m_path);
-				System.out.println("Manufacturer = "+ m_mfg);
-				System.out.println("Product = "+m_product);
-				System.out.println("Connected to "+ deviceid);
+				m_metrics.register();
+
+				if (CONSOLE) {
+					// Output the connection status to the status bar
+					System.out.println("Vendor ID = "+m_vid+", Product ID = "+m_pid);
+					System.out.println("Part Number = "+m_partNumber+", Version = "+m_version);
+					System.out.println("Path = "+ m_path);
+					System.out.println("Manufacturer = "+ m_mfg);
+					System.out.println("Product = "+m_product);
+					System.out.println("Connected to "+ deviceid);
 				
-				System.out.println("Connected to "+deviceid);
-			}
+					System.out.println("Connected to "+deviceid);
+				}
 	
-		} catch (Throwable t) {
-			// Disconnect
-			if (m_hidUart != 0) {
-				hid.HidUart_Close(m_hidUart);
-				m_hidUart = 0;
-			}
-			// Notify the user that an error occurred
-			if (CONSOLE) {
-				System.out.println("Failed to connect to "+deviceid);
+			} catch (Throwable t) {
+				// Disconnect
+				if (m_hidUart != 0) {
+					m_lib.HidUart_Close(m_hidUart);
+					m_hidUart = 0;
+				}
+				throw t;
 			}
 		} finally {
-
+			m_configLock.writeLock().unlock();
 		}
 	}
 
@@ -567,8 +949,15 @@ HidUart_WriteLatch
 	 * @throws DriverException
 	 */
 	void disconnect() throws DriverException {
-		int status = hid.HidUart_Close(m_hidUart);
-		checkValidity(status);
+		m_configLock.writeLock().lock();
+		try {
+			int status = m_lib.HidUart_Close(m_hidUart);
+			m_hidUart = 0;
+			m_metrics.unregister();
+			checkValidity(status, m_deviceid);
+		} finally {
+			m_configLock.writeLock().unlock();
+		}
 	}
 
 	/**
@@ -577,100 +966,944 @@ HidUart_WriteLatch
 	 * @return an array of data read.
 	 * @throws DriverException
 	 */
-	public synchronized byte[] read() throws DriverException
+	public byte[] read() throws DriverException
 	{
-		byte[] buffer = new byte[READ_SIZE];
-		int[] numBytesRead = {0};
-		// Receive UART data from the device (up to 1000 bytes)
-		int status = hid.HidUart_Read(m_hidUart, buffer, READ_SIZE, numBytesRead);
-
-		// HidUart_Read returns HID_UART_SUCCESS if numBytesRead == numBytesToRead
-		// and returns HID_UART_READ_TIMED_OUT if numBytesRead < numBytesToRead
-		if (status == HID_UART_SUCCESS || status == HID_UART_READ_TIMED_OUT)
-		{
-			if (numBytesRead[0] == 0)
+		beginRead();
+		try {
+			if (m_unread != null) {
+				byte[] buffer = new byte[m_unread.length - m_unreadPos];
+				takeUnread(buffer, 0, buffer.length);
+				return buffer;
+			}
+			// Receive UART data from the device (up to the read size of the profile)
+			int n = readNative(m_readSize);
+			if (n == 0)
 				return null;
-			// Output received data to the receive window
-			return Arrays.copyOf(buffer, numBytesRead[0]);
+			return m_readBuffer.getByteArray(0, n);
+		} finally {
+			endRead();
 		}
-		checkValidity(status);
-		throw new DriverException(getStatus(status));
 	}
-	
+
 	/**
-	 * Sets read write timeout for the device. Default read timeout is {@link #READ_TIMEOUT}
-	 * and default write timeout is {@link #WRITE_TIMEOUT}. 
+	 * Reads the data within the timeout period directly into the caller's array.
+	 * No memory is allocated per call, the bytes are copied from a native buffer
+	 * that is kept for the lifetime of this driver instance.
 	 * 
-	 * @param readTimeout timeout in milliseconds.
-	 * @param writeTimeout timeout in milliseconds.
+	 * @param dst destination array.
+	 * @param off offset in the destination array.
+	 * @param len maximum number of bytes to read. Capped to the read size of the 
+	 * current {@link ReadProfile}.
+	 * @return number of bytes read, zero if nothing arrived within the timeout.
 	 * @throws DriverException
 	 */
-	public void setReadWriteTimeout(int readTimeout, int writeTimeout) throws DriverException {
-		int status = hid.HidUart_SetTimeouts(m_hidUart, readTimeout, writeTimeout);
-		checkValidity(status);
+	public int read(byte[] dst, int off, int len) throws DriverException
+	{
+		if (off < 0 || len < 0 || len > dst.length - off)
+			throw new IndexOutOfBoundsException();
+		if (len == 0)
+			return 0;
+		beginRead();
+		try {
+			if (m_unread != null)
+				return takeUnread(dst, off, len);
+			int n = readNative(Math.min(len, m_readSize));
+			if (n > 0)
+				m_readBuffer.read(0, dst, off, n);
+			return n;
+		} finally {
+			endRead();
+		}
 	}
 
 	/**
-	 * Attach a listener to each device. This method should be called in a thread.
-	 * The listener may be used to update GUI, etc.
+	 * Reads the data within the timeout period into the remaining space of the
+	 * buffer, up to the read size of the current {@link ReadProfile}. The buffer 
+	 * position is advanced by the number of bytes read.
 	 * 
-	 * @param deviceString the identifier string returned by the device.
-	 * @param listener your custom listener. If listener is not provided (i.e, null, will print out the data
-	 * on the console.
+	 * @param dst destination buffer, heap or direct.
+	 * @return number of bytes read, zero if nothing arrived within the timeout.
 	 * @throws DriverException
 	 */
-	public void listen(String deviceString, DriverListener listener) throws DriverException {
-		while(true) {
-			byte[] buffer = read();
-			
-			if (buffer != null && buffer.length > 0) {
-				if (listener != null) {
-					listener.setData(deviceString, DriverListener.CardType.LF, buffer);
-				} else {
-					System.out.println(">>>[DATA FROM "+deviceString+", "+buffer.length+" BYTE]");
-					System.out.print("  0x");
-					BigInteger big = new BigInteger(buffer);
-					System.out.println(big.toString(16));
-					big = big.shiftRight(16);
-					System.out.println(big.toString(16));
-					BigInteger b = new BigInteger("FFFFFFFF",16);
-					System.out.println(b.toString(16));
-					big = big.and(b);
-					System.out.println(big.toString(16));
-					long val = big.longValue();
-					System.out.println("  HEX (32-bit): "+ Long.toString(val, 16));
-					System.out.println("  Decimal (10 Digits): " + val);
-					System.out.println("<<<\n");
-				}
+	public int read(ByteBuffer dst) throws DriverException
+	{
+		int len = dst.remaining();
+		if (len == 0)
+			return 0;
+		beginRead();
+		try {
+			if (m_unread != null) {
+				int n = Math.min(len, m_unread.length - m_unreadPos);
+				dst.put(m_unread, m_unreadPos, n);
+				skipUnread(n);
+				return n;
 			}
+			int n = readNative(Math.min(len, m_readSize));
+			if (n > 0) {
+				m_readView.clear();
+				m_readView.limit(n);
+				dst.put(m_readView);
+			}
+			return n;
+		} finally {
+			endRead();
 		}
 	}
 
 	/**
-	 * Gets the product parameters as properties. The property names are available
-	 * with prefix PROPERTY_ as constant.
+	 * Internal method that copies bytes kept by {@link #keepUnread(byte[])}.
+	 * Called with the read lock held.
 	 * 
-	 * @return property object.
-	 * @throws DriverException
+	 * @param dst destination array.
+	 * @param off offset in the destination array.
+	 * @param len maximum number of bytes to copy.
+	 * @return number of bytes copied.
 	 */
-	public Properties getProperties() throws DriverException {
-		Properties p = new Properties();
-		p.setProperty(PROPERTY_VERSION, getVersion());
-		p.setProperty(PROPERTY_VENDOR, m_vid);
-		p.setProperty(PROPERTY_PRODUCT, m_pid);
-		p.setProperty(PROPERTY_PART, m_partNumber+"."+m_version);
-		p.setProperty(PROPERTY_PATH, m_path);
-		p.setProperty(PROPERTY_MANUFACTURER, m_mfg);
-		p.setProperty(PROPERTY_PRODUCT_NAME, m_product);
-		return p;
+	private int takeUnread(byte[] dst, int off, int len) {
+		int n = Math.min(len, m_unread.length - m_unreadPos);
+		System.arraycopy(m_unread, m_unreadPos, dst, off, n);
+		skipUnread(n);
+		return n;
 	}
-	
+
+	private void skipUnread(int n) {
+		m_unreadPos += n;
+		if (m_unreadPos == m_unread.length) {
+			m_unread = null;
+			m_unreadPos = 0;
+		}
+	}
+
 	/**
-	 * Construct the object by loading the library into memory.
+	 * Internal method that keeps the bytes of a read whose caller is gone,
+	 * so that the next read returns them before reading the device.
+	 * 
+	 * @param data bytes read, may be null.
 	 */
-	public CP2110HidDriver() {
-		if (hid == null) {
-			hid = (IHIDUart)Native.load("SLABHIDtoUART.dll", IHIDUart.class);
+	private void keepUnread(byte[] data) {
+		if (data == null)
+			return;
+		beginRead();
+		try {
+			if (m_unread != null) {
+				byte[] joined = Arrays.copyOfRange(m_unread, m_unreadPos, m_unread.length + data.length - m_unreadPos);
+				System.arraycopy(data, 0, joined, m_unread.length - m_unreadPos, data.length);
+				data = joined;
+			}
+			m_unread = data;
+			m_unreadPos = 0;
+		} finally {
+			endRead();
+		}
+	}
+
+	/**
+	 * Internal method that takes the locks of a read, see the class comment.
+	 */
+	private void beginRead() {
+		m_configLock.readLock().lock();
+		m_readLock.lock();
+	}
+
+	private void endRead() {
+		m_readLock.unlock();
+		m_configLock.readLock().unlock();
+	}
+
+	/**
+	 * Internal method that takes the locks of a write, see the class comment.
+	 */
+	private void beginWrite() {
+		m_configLock.readLock().lock();
+		m_writeLock.lock();
+	}
+
+	private void endWrite() {
+		m_writeLock.unlock();
+		m_configLock.readLock().unlock();
+	}
+
+	/**
+	 * Internal method that reads into the per handle native buffer. Called with
+	 * the read lock held.
+	 * 
+	 * @param len number of bytes to request.
+	 * @return number of bytes available in {@link #m_readBuffer}.
+	 * @throws DriverException
+	 */
+	private int readNative(int len) throws DriverException
+	{
+		checkValidity(0);
+		if (m_readProfile == ReadProfile.FIFO_POLLING) {
+			len = pollFifo(len);
+			if (len == 0)
+				return 0;
+		}
+		if (m_readBuffer == null || m_readBuffer.size() < len) {
+			m_readBuffer = new Memory(Math.max(len, READ_SIZE));
+			m_readView = m_readBuffer.getByteBuffer(0, m_readBuffer.size());
+		}
+		m_numBytesRead.setValue(0);
+		int status = m_lib.HidUart_Read(m_hidUart, m_readBuffer, len, m_numBytesRead);
+
+		// HidUart_Read returns HID_UART_SUCCESS if numBytesRead == numBytesToRead
+		// and returns HID_UART_READ_TIMED_OUT if numBytesRead < numBytesToRead
+		if (status == HID_UART_SUCCESS || status == HID_UART_READ_TIMED_OUT)
+		{
+			int n = m_numBytesRead.getValue();
+			if (m_tuner != null)
+				tune(len, n, status == HID_UART_READ_TIMED_OUT);
+			CaptureWriter capture = m_capture;
+			if (capture != null && n > 0)
+				capture(capture, n);
+			return n;
+		}
+		m_readStatus = status;
+		throw DriverException.forStatus(status);
+	}
+	
+	/**
+	 * Internal method that polls the UART status until the receive FIFO holds
+	 * data or the read timeout has passed, pausing longer after each empty poll.
+	 * Called with the read lock held.
+	 * 
+	 * @param len largest number of bytes to read.
+	 * @return number of bytes to request, zero if nothing was received.
+	 * @throws DriverException
+	 */
+	private int pollFifo(int len) throws DriverException
+	{
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(m_readTimeout);
+		for (;;) {
+			int status = m_lib.HidUart_GetUartStatus(m_hidUart, m_txFifo, m_rxFifo, m_uartErrors, m_lineBreak);
+			if (status != HID_UART_SUCCESS) {
+				m_readStatus = status;
+				throw DriverException.forStatus(status);
+			}
+			if (m_uartErrors[0] != 0)
+				m_metrics.uartErrors(m_uartErrors[0]);
+			int rx = m_rxFifo[0] & 0xFFFF;
+			if (rx > 0) {
+				m_pollNanos = MIN_POLL_NANOS;
+				return Math.min(len, rx);
+			}
+			long remaining = deadline - System.nanoTime();
+			if (remaining <= 0 || Thread.currentThread().isInterrupted())
+				return 0;
+			LockSupport.parkNanos(Math.min(m_pollNanos, remaining));
+			m_pollNanos = Math.min(m_pollNanos * 2, MAX_POLL_NANOS);
+		}
+	}
+
+	/**
+	 * Internal method that feeds a read outcome to the adaptive tuner and applies
+	 * its settings. The new timeouts are set under the write lock as well, as
+	 * the read lock is held already.
+	 * 
+	 * @param requested number of bytes requested.
+	 * @param read number of bytes read.
+	 * @param timedOut <true>, if the read timed out.
+	 * @throws DriverException
+	 */
+	private void tune(int requested, int read, boolean timedOut) throws DriverException
+	{
+		if (m_tuner.observe(requested, read, timedOut)) {
+			m_writeLock.lock();
+			try {
+				applyTimeouts(m_tuner.getReadTimeout(), m_writeTimeout);
+			} finally {
+				m_writeLock.unlock();
+			}
+		}
+		m_readSize = m_tuner.getReadSize();
+	}
+
+	/**
+	 * Internal method that appends the bytes just read to the capture. If the
+	 * capture fails, for example because it was closed, it is removed.
+	 * 
+	 * @param capture the capture.
+	 * @param n number of bytes in {@link #m_readBuffer}.
+	 */
+	private void capture(CaptureWriter capture, int n)
+	{
+		m_readView.clear();
+		m_readView.limit(n);
+		try {
+			capture.append(m_deviceid, System.nanoTime(), m_readView);
+		} catch (IOException e) {
+			if (m_capture == capture)
+				m_capture = null;
+			if (CONSOLE)
+				System.out.println("Capture stopped: "+e.getMessage());
+		}
+	}
+
+	/**
+	 * Writes the data to the device. Data longer than {@link #HID_UART_MAX_WRITE_SIZE}
+	 * is split into several writes. If a write times out, the remaining data is not 
+	 * sent and the number of bytes written so far is returned.
+	 * 
+	 * @param src data to write.
+	 * @param off offset in the source array.
+	 * @param len number of bytes to write.
+	 * @return number of bytes written. Less than len if the write timed out.
+	 * @throws DriverException
+	 */
+	public int write(byte[] src, int off, int len) throws DriverException
+	{
+		if (off < 0 || len < 0 || len > src.length - off)
+			throw new IndexOutOfBoundsException();
+		beginWrite();
+		try {
+			int total = 0;
+			while (total < len) {
+				int chunk = Math.min(len - total, HID_UART_MAX_WRITE_SIZE);
+				writeBuffer().write(0, src, off + total, chunk);
+				int n = writeNative(m_writeBuffer, chunk);
+				total += n;
+				if (n < chunk)
+					break;
+			}
+			return total;
+		} finally {
+			endWrite();
+		}
+	}
+
+	/**
+	 * Writes the remaining data of the buffer to the device. Direct buffers are passed
+	 * to the native library without copying. Data longer than {@link #HID_UART_MAX_WRITE_SIZE}
+	 * is split into several writes. The buffer position is advanced by the number of
+	 * bytes written.
+	 * 
+	 * @param src data to write.
+	 * @return number of bytes written. Less than the remaining data if the write timed out.
+	 * @throws DriverException
+	 */
+	public int write(ByteBuffer src) throws DriverException
+	{
+		if (src.hasArray()) {
+			int n = write(src.array(), src.arrayOffset() + src.position(), src.remaining());
+			src.position(src.position() + n);
+			return n;
+		}
+		Pointer direct = src.isDirect() ? Native.getDirectBufferPointer(src) : null;
+		beginWrite();
+		try {
+			int total = 0;
+			while (src.hasRemaining()) {
+				int chunk = Math.min(src.remaining(), HID_UART_MAX_WRITE_SIZE);
+				int n;
+				if (direct != null) {
+					n = writeNative(direct.share(src.position()), chunk);
+				} else {
+					// read-only heap buffer, no access to the backing array.
+					writeBuffer().getByteBuffer(0, chunk).put((ByteBuffer)src.duplicate().limit(src.position() + chunk));
+					n = writeNative(m_writeBuffer, chunk);
+				}
+				src.position(src.position() + n);
+				total += n;
+				if (n < chunk)
+					break;
+			}
+			return total;
+		} finally {
+			endWrite();
+		}
+	}
+
+	/**
+	 * Internal method that returns the per handle native write buffer.
+	 * 
+	 * @return native buffer of {@link #HID_UART_MAX_WRITE_SIZE} bytes.
+	 */
+	private Memory writeBuffer() {
+		if (m_writeBuffer == null)
+			m_writeBuffer = new Memory(HID_UART_MAX_WRITE_SIZE);
+		return m_writeBuffer;
+	}
+
+	/**
+	 * Internal method that writes one chunk of native memory. Called with the
+	 * write lock held.
+	 * 
+	 * @param buffer native memory holding the data.
+	 * @param len number of bytes to write, at most {@link #HID_UART_MAX_WRITE_SIZE}.
+	 * @return number of bytes written.
+	 * @throws DriverException
+	 */
+	private int writeNative(Pointer buffer, int len) throws DriverException
+	{
+		checkValidity(0);
+		m_numBytesWritten.setValue(0);
+		int status = m_lib.HidUart_Write(m_hidUart, buffer, len, m_numBytesWritten);
+
+		// HidUart_Write returns HID_UART_WRITE_TIMED_OUT if numBytesWritten < numBytesToWrite
+		if (status == HID_UART_SUCCESS || status == HID_UART_WRITE_TIMED_OUT)
+			return m_numBytesWritten.getValue();
+		throw DriverException.forStatus(status, m_deviceid);
+	}
+
+	/**
+	 * Gets the state of the UART: the bytes waiting in the transmit and receive FIFOs,
+	 * and the parity and overrun errors since the last status. Overruns mean data 
+	 * was lost because the host did not read fast enough; they are also counted 
+	 * in the {@link DriverMetrics}. Runs alongside a read or write in progress.
+	 * 
+	 * @return the UART status.
+	 * @throws DriverException
+	 */
+	public UartStatus getUartStatus() throws DriverException
+	{
+		short[] txFifo = {0}, rxFifo = {0};
+		byte[] errors = {0}, lineBreak = {0};
+		m_configLock.readLock().lock();
+		try {
+			int status = m_lib.HidUart_GetUartStatus(m_hidUart, txFifo, rxFifo, errors, lineBreak);
+			checkValidity(status, m_deviceid);
+			if (errors[0] != 0)
+				m_metrics.uartErrors(errors[0]);
+		} finally {
+			m_configLock.readLock().unlock();
+		}
+		return new UartStatus(txFifo[0] & 0xFFFF, rxFifo[0] & 0xFFFF, errors[0], lineBreak[0] == HID_UART_LINE_BREAK_ACTIVE);
+	}
+
+	/**
+	 * Sets read write timeout for the device. Default read timeout is {@link #READ_TIMEOUT}
+	 * and default write timeout is {@link #WRITE_TIMEOUT}. 
+	 * 
+	 * @param readTimeout timeout in milliseconds.
+	 * @param writeTimeout timeout in milliseconds.
+	 * @throws DriverException
+	 */
+	public void setReadWriteTimeout(int readTimeout, int writeTimeout) throws DriverException {
+		m_configLock.writeLock().lock();
+		try {
+			applyTimeouts(readTimeout, writeTimeout);
+		} finally {
+			m_configLock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Internal method that sets the timeouts of the handle. Called with the
+	 * configuration lock held exclusive, or with the read and write locks held.
+	 * 
+	 * @param readTimeout timeout in milliseconds.
+	 * @param writeTimeout timeout in milliseconds.
+	 * @throws DriverException
+	 */
+	private void applyTimeouts(int readTimeout, int writeTimeout) throws DriverException {
+		int status = m_lib.HidUart_SetTimeouts(m_hidUart, readTimeout, writeTimeout);
+		checkValidity(status, m_deviceid);
+		m_readTimeout = readTimeout;
+		m_writeTimeout = writeTimeout;
+	}
+
+	/**
+	 * Selects the read request size and read timeout. The default is 
+	 * {@link ReadProfile#BALANCED}. May be called before or after connecting.
+	 * 
+	 * @param profile the read profile.
+	 * @throws DriverException
+	 */
+	public void setReadProfile(ReadProfile profile) throws DriverException {
+		m_configLock.writeLock().lock();
+		try {
+			m_tuner = (profile == ReadProfile.ADAPTIVE) 
+					? new AdaptiveReadTuner(profile.getReadSize(), profile.getReadTimeout()) : null;
+			m_readProfile = profile;
+			m_readSize = profile.getReadSize();
+			if (m_hidUart != 0) {
+				applyTimeouts(profile.getReadTimeout(), m_writeTimeout);
+			} else {
+				m_readTimeout = profile.getReadTimeout();
+			}
+		} finally {
+			m_configLock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Gets the current read profile.
+	 * 
+	 * @return the read profile.
+	 */
+	public ReadProfile getReadProfile() {
+		return m_readProfile;
+	}
+
+	/**
+	 * Gets the number of bytes currently requested per read. Changes over time
+	 * with {@link ReadProfile#ADAPTIVE}.
+	 * 
+	 * @return read size in bytes.
+	 */
+	public int getReadSize() {
+		return m_readSize;
+	}
+
+	/**
+	 * Gets the current read timeout. Changes over time with {@link ReadProfile#ADAPTIVE}.
+	 * 
+	 * @return timeout in milliseconds.
+	 */
+	public int getReadTimeout() {
+		return m_readTimeout;
+	}
+
+	/**
+	 * Installs a framing stage between the reads and the listener. Without a framer,
+	 * every read is handed to the listener as it is, which may be part of a frame or 
+	 * several frames. With a framer, the listener is called once for each complete frame.
+	 * The framer keeps the partial frame between reads and is used by the listen loop
+	 * only, so it should not be shared between devices.
+	 * 
+	 * @param framer the framer, or null to hand over the reads as they are.
+	 */
+	public void setFramer(Framer framer) {
+		m_framer = framer;
+	}
+
+	/**
+	 * Gets the framing stage.
+	 * 
+	 * @return the framer, or null if none is installed.
+	 */
+	public Framer getFramer() {
+		return m_framer;
+	}
+
+	/**
+	 * Installs a stage that drops repeated reads of the same card before they reach
+	 * the listener. Runs after the framer, if any, so each frame is checked.
+	 * 
+	 * @param dedup the deduplicator, or null to deliver every read.
+	 */
+	public void setDeduplicator(CardDeduplicator dedup) {
+		m_dedup = dedup;
+	}
+
+	/**
+	 * Gets the deduplication stage.
+	 * 
+	 * @return the deduplicator, or null if none is installed.
+	 */
+	public CardDeduplicator getDeduplicator() {
+		return m_dedup;
+	}
+
+	/**
+	 * Records every read of this device into the capture, for a later replay with
+	 * {@link ReplayBackend}. The same capture can be shared by several drivers.
+	 * 
+	 * @param capture the capture, or null to stop recording.
+	 */
+	public void setCapture(CaptureWriter capture) {
+		m_capture = capture;
+	}
+
+	/**
+	 * Gets the capture.
+	 * 
+	 * @return the capture, or null if none is installed.
+	 */
+	public CaptureWriter getCapture() {
+		return m_capture;
+	}
+
+	/**
+	 * Attach a listener to each device. This method should be called in a thread.
+	 * The listener may be used to update GUI, etc.
+	 * 
+	 * @param deviceString the identifier string returned by the device.
+	 * @param listener your custom listener. If listener is not provided (i.e, null, will print out the data
+	 * on the console.
+	 * @throws DriverException
+	 */
+	public void listen(String deviceString, DriverListener listener) throws DriverException {
+		DriverMetrics metrics = m_metrics;
+		metrics.listenStarted();
+		try {
+			while(true) {
+				byte[] buffer = read();
+				
+				if (buffer != null && buffer.length > 0) {
+					dispatch(deviceString, listener, buffer);
+				}
+			}
+		} finally {
+			metrics.listenStopped();
+		}
+	}
+
+	/**
+	 * Attach a listener to the device and return immediately. The listen loop runs on the
+	 * given executor until the returned subscription is closed, which stops the loop within
+	 * one read timeout.
+	 * 
+	 * When no executor is given, the loop runs on its own daemon thread. A virtual thread
+	 * executor may be passed instead, but a virtual thread stays pinned to its carrier
+	 * thread while it waits inside the native read, so the carrier pool 
+	 * (<code>jdk.virtualThreadScheduler.parallelism</code>) must then be at least the
+	 * number of devices, or the loops beyond it never run.
+	 * 
+	 * @param deviceString the identifier string returned by the device.
+	 * @param listener your custom listener. If listener is not provided (i.e, null, will print out the data
+	 * on the console.
+	 * @param executor executor running the loop, or null for the default.
+	 * @return the subscription. Close it to stop listening.
+	 * @throws java.util.concurrent.RejectedExecutionException if the executor does not take the loop.
+	 */
+	public Subscription listen(String deviceString, DriverListener listener, Executor executor) {
+		Subscription subscription = new Subscription(this, deviceString, listener);
+		subscription.start(executor);
+		return subscription;
+	}
+
+	/**
+	 * Attach a listener to the device and keep it attached when the device is lost.
+	 * The loop runs as with {@link #listen(String, DriverListener, Executor)}, but when
+	 * a read fails because the device was unplugged or reset, it calls {@link #reconnect()}
+	 * with a growing delay between the attempts until the device is back, then carries
+	 * on delivering to the same listener. See {@link SupervisedConnection}.
+	 * 
+	 * @param deviceString the identifier string returned by the device.
+	 * @param listener your custom listener. If listener is not provided (i.e, null, will print out the data
+	 * on the console.
+	 * @param policy delays between the attempts, or null for {@link ReconnectPolicy#DEFAULT}.
+	 * @param executor executor running the loop, or null for the default, as in
+	 * {@link #listen(String, DriverListener, Executor)}.
+	 * @return the running connection. Close it to stop listening.
+	 * @throws DriverException if the driver was never connected.
+	 */
+	public SupervisedConnection supervise(String deviceString, DriverListener listener, ReconnectPolicy policy, Executor executor) 
+		throws DriverException {
+		if (m_deviceid == null)
+			throw new DriverException("Not connected before.");
+		SupervisedConnection connection = new SupervisedConnection(this, deviceString, listener, policy);
+		connection.start(executor);
+		return connection;
+	}
+
+	/**
+	 * Publish the data of the device as a {@link java.util.concurrent.Flow.Publisher}
+	 * of frames. The device is read only while every subscriber has requested more,
+	 * see {@link DevicePublisher}.
+	 * 
+	 * @param deviceString the identifier string returned by the device.
+	 * @param executor executor running the read loop, or null for the default, as in
+	 * {@link #listen(String, DriverListener, Executor)}.
+	 * @return the publisher. Close it to complete the stream.
+	 */
+	public DevicePublisher publish(String deviceString, Executor executor) {
+		return new DevicePublisher(this, deviceString, executor);
+	}
+
+	/**
+	 * Internal method that hands a chunk of data to the listener. If a {@link Framer}
+	 * is installed, the chunk is split into frames first and the listener is called 
+	 * once per complete frame.
+	 * 
+	 * @param deviceString the identifier string returned by the device.
+	 * @param listener listener, may be null.
+	 * @param buffer data read.
+	 */
+	void dispatch(String deviceString, DriverListener listener, byte[] buffer) {
+		Framer framer = m_framer;
+		if (framer == null) {
+			deliver(deviceString, listener, buffer);
+			return;
+		}
+		framer.append(buffer, 0, buffer.length);
+		byte[] frame;
+		while ((frame = framer.next()) != null) {
+			if (frame.length > 0)
+				deliver(deviceString, listener, frame);
+		}
+	}
+
+	/**
+	 * Internal method that hands a chunk of data or a frame to the listener, or 
+	 * prints it out on the console if there is no listener.
+	 * 
+	 * @param deviceString the identifier string returned by the device.
+	 * @param listener listener, may be null.
+	 * @param buffer data read.
+	 */
+	private void deliver(String deviceString, DriverListener listener, byte[] buffer) {
+		CardDeduplicator dedup = m_dedup;
+		if (dedup != null && !dedup.accept(buffer))
+			return;
+		if (listener != null) {
+			listener.setData(deviceString, DriverListener.CardType.LF, buffer);
+		} else {
+			System.out.println(">>>[DATA FROM "+deviceString+", "+buffer.length+" BYTE]");
+			System.out.print("  0x");
+			BigInteger big = new BigInteger(buffer);
+			System.out.println(big.toString(16));
+			big = big.shiftRight(16);
+			System.out.println(big.toString(16));
+			BigInteger b = new BigInteger("FFFFFFFF",16);
+			System.out.println(b.toString(16));
+			big = big.and(b);
+			System.out.println(big.toString(16));
+			long val = big.longValue();
+			System.out.println("  HEX (32-bit): "+ Long.toString(val, 16));
+			System.out.println("  Decimal (10 Digits): " + val);
+			System.out.println("<<<\n");
+		}
+	}
+
+	/**
+	 * Attach a listener to the device using a dedicated reader thread. The reader
+	 * thread only drains the device into a lock-free ring buffer, while a separate
+	 * dispatcher thread calls the listener. Unlike {@link #listen(String, DriverListener)}
+	 * this method returns immediately.
+	 * 
+	 * @param deviceString the identifier string returned by the device.
+	 * @param listener your custom listener.
+	 * @param capacity number of chunks buffered between the reader and the listener.
+	 * @param wait how the threads wait when the buffer is empty or full.
+	 * @param overflow what to do when the listener falls behind and the buffer is full.
+	 * @return the running dispatcher. Call {@link ListenerDispatcher#stop()} to stop it.
+	 */
+	public ListenerDispatcher listen(String deviceString, DriverListener listener, int capacity, 
+			WaitStrategy wait, OverflowPolicy overflow) {
+		ListenerDispatcher dispatcher = new ListenerDispatcher(this, deviceString, listener, capacity, wait, overflow);
+		dispatcher.start();
+		return dispatcher;
+	}
+
+	/**
+	 * Gets the product parameters as properties. The property names are available
+	 * with prefix PROPERTY_ as constant. The properties are read on the first call 
+	 * after connecting and the same read only object is returned afterwards.
+	 * 
+	 * @return property object, which cannot be modified.
+	 * @throws DriverException
+	 */
+	public Properties getProperties() throws DriverException {
+		Properties cached = m_properties;
+		if (cached != null)
+			return cached;
+		Properties p = new Properties();
+		p.setProperty(PROPERTY_VERSION, getVersion());
+		m_configLock.readLock().lock();
+		try {
+			p.setProperty(PROPERTY_VENDOR, m_vid);
+			p.setProperty(PROPERTY_PRODUCT, m_pid);
+			p.setProperty(PROPERTY_PART, m_partNumber+"."+m_version);
+			p.setProperty(PROPERTY_PATH, m_path);
+			p.setProperty(PROPERTY_MANUFACTURER, m_mfg);
+			p.setProperty(PROPERTY_PRODUCT_NAME, m_product);
+		} finally {
+			m_configLock.readLock().unlock();
+		}
+		cached = new ImmutableProperties(p);
+		m_properties = cached;
+		return cached;
+	}
+	
+	/**
+	 * Connects to the device without blocking the caller. The asynchronous 
+	 * operations of a driver run one at a time, in the order they are called, on
+	 * a thread of the driver. At most {@link #ASYNC_QUEUE_SIZE} operations wait
+	 * for their turn; beyond that, the future fails with a {@link DriverException}.
+	 * <p>
+	 * Cancelling the future, or reaching its deadline, skips the operation if it
+	 * has not started yet. An operation already running cannot be stopped, so it
+	 * ends normally and its result is discarded. Stages added to the future 
+	 * without the <code>Async</code> suffix run on the thread of the driver and
+	 * delay its next operation.
+	 * 
+	 * @param deviceid see {@link #connect(String, int, int, int, int, boolean)}.
+	 * @param baudRate see {@link #connect(String, int, int, int, int, boolean)}.
+	 * @param dataBits see {@link #connect(String, int, int, int, int, boolean)}.
+	 * @param parity see {@link #connect(String, int, int, int, int, boolean)}.
+	 * @param stopBits see {@link #connect(String, int, int, int, int, boolean)}.
+	 * @param flow see {@link #connect(String, int, int, int, int, boolean)}.
+	 * @return future completed when connected, or failed with the {@link DriverException}.
+	 */
+	public CompletableFuture<Void> connectAsync(final String deviceid, final int baudRate, final int dataBits, final int parity, final int stopBits, final boolean flow)
+	{
+		return m_io.submit(new Callable<Void>() {
+			@Override
+			public Void call() throws DriverException {
+				connectDevice(deviceid, baudRate, dataBits, parity, stopBits, flow);
+				return null;
+			}
+		}, 0, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Reads without blocking the caller, see {@link #read()} and {@link #connectAsync(String, int, int, int, int, boolean)}.
+	 * 
+	 * @return future of the data read, null if nothing arrived within the read timeout.
+	 */
+	public CompletableFuture<byte[]> readAsync()
+	{
+		return readAsync(0, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Reads without blocking the caller, see {@link #read()} and {@link #connectAsync(String, int, int, int, int, boolean)}.
+	 * 
+	 * @param timeout deadline from now, 0 for none. At the deadline the future fails 
+	 * with a {@link java.util.concurrent.TimeoutException}. A read already in progress
+	 * is not stopped; the bytes it returns are not lost, but kept for the next read or
+	 * readAsync.
+	 * @param unit unit of the timeout.
+	 * @return future of the data read, null if nothing arrived within the read timeout.
+	 */
+	public CompletableFuture<byte[]> readAsync(long timeout, TimeUnit unit)
+	{
+		return m_io.submit(new Callable<byte[]>() {
+			@Override
+			public byte[] call() throws DriverException {
+				return read();
+			}
+		}, timeout, unit, new Consumer<byte[]>() {
+			@Override
+			public void accept(byte[] data) {
+				keepUnread(data);
+			}
+		});
+	}
+
+	/**
+	 * Writes without blocking the caller, see {@link #write(byte[], int, int)} and
+	 * {@link #connectAsync(String, int, int, int, int, boolean)}. The data is copied,
+	 * so the array can be reused at once.
+	 * 
+	 * @param src data to write.
+	 * @return future of the number of bytes written.
+	 */
+	public CompletableFuture<Integer> writeAsync(byte[] src)
+	{
+		return writeAsync(src, 0, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Writes without blocking the caller, see {@link #write(byte[], int, int)} and
+	 * {@link #connectAsync(String, int, int, int, int, boolean)}. The data is copied,
+	 * so the array can be reused at once.
+	 * 
+	 * @param src data to write.
+	 * @param timeout deadline from now, 0 for none. At the deadline the future fails 
+	 * with a {@link java.util.concurrent.TimeoutException}.
+	 * @param unit unit of the timeout.
+	 * @return future of the number of bytes written.
+	 */
+	public CompletableFuture<Integer> writeAsync(byte[] src, long timeout, TimeUnit unit)
+	{
+		final byte[] data = src.clone();
+		return m_io.submit(new Callable<Integer>() {
+			@Override
+			public Integer call() throws DriverException {
+				return write(data, 0, data.length);
+			}
+		}, timeout, unit);
+	}
+
+	/**
+	 * Closes the connection without blocking the caller, after the operations
+	 * submitted before, see {@link #connectAsync(String, int, int, int, int, boolean)}.
+	 * 
+	 * @return future completed when closed.
+	 */
+	public CompletableFuture<Void> closeAsync()
+	{
+		return m_io.submit(new Callable<Void>() {
+			@Override
+			public Void call() throws DriverException {
+				disconnect();
+				return null;
+			}
+		}, 0, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Gets the metrics of the library calls made for this device. The metrics are
+	 * also registered as MXBean while the device is connected, see {@link DriverMetrics}.
+	 * 
+	 * @return the device metrics.
+	 */
+	public DriverMetrics getMetrics() {
+		return m_metrics;
+	}
+
+	/**
+	 * Gets the metrics of the library calls not tied to a device, such as the
+	 * device enumeration.
+	 * 
+	 * @return the library metrics.
+	 */
+	public static DriverMetrics getLibraryMetrics() {
+		return s_lib.getMetrics();
+	}
+
+	/**
+	 * Gets the backend serving the library calls.
+	 * 
+	 * @return the backend, null if the library is not loaded yet and no other
+	 * backend was installed.
+	 */
+	public static HidUartBackend getBackend() {
+		return hid;
+	}
+
+	/**
+	 * Replaces the native library by another implementation of the same calls,
+	 * for example a {@link SimulatedCP2110} that lets the driver, the {@link HotPlugMonitor}
+	 * and the {@link DeviceRegistry} run without the chip. Drivers already connected
+	 * keep their handles, so install the backend before connecting.
+	 * 
+	 * @param backend library implementation.
+	 */
+	public static synchronized void setBackend(HidUartBackend backend) {
+		hid = backend;
+		s_version = null;
+		invalidateDevices();
+		s_lib.getMetrics().register();
+	}
+
+	/**
+	 * Internal method that installs the native library as the backend, unless
+	 * a backend is installed already. See {@link NativeLoader}.
+	 * 
+	 * @return the backend.
+	 * @throws DriverException if the library cannot be loaded.
+	 */
+	private static HidUartBackend library() throws DriverException {
+		HidUartBackend backend = hid;
+		if (backend != null)
+			return backend;
+		backend = NativeLoader.library();
+		synchronized (CP2110HidDriver.class) {
+			if (hid == null) {
+				hid = backend;
+				s_lib.getMetrics().register();
+			}
+			return hid;
+		}
+	}
+
+	/**
+	 * Construct the object by loading the library into memory. The library is
+	 * loaded once per JVM, see {@link NativeLoader}.
+	 * 
+	 * @throws UnsatisfiedLinkError if the library cannot be loaded.
+	 */
+	public CP2110HidDriver() {
+		try {
+			library();
+		} catch (DriverException e) {
+			UnsatisfiedLinkError error = new UnsatisfiedLinkError(e.getMessage());
+			error.initCause(e);
+			throw error;
 		}
 	}
 
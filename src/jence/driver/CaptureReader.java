@@ -0,0 +1,214 @@
+/**
+ * The MIT LICENSE (MIT):
+ * 
+ * Copyright  2021 Ejaz Jamil, Jence.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of 
+ * this software and associated documentation files (the Software), to deal in 
+ * the Software without restriction, including without limitation the rights to 
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+ * of the Software, and to permit persons to whom the Software is furnished to do 
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. 
+ * 
+ */
+package jence.driver;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reads the records of a capture written by {@link CaptureWriter}, in the
+ * order they were appended. The segments are mapped into memory one after the
+ * other.
+ * <pre>
+ * CaptureReader reader = new CaptureReader(dir);
+ * while (reader.next()) {
+ *     process(reader.getSerial(), reader.getNanos(), reader.getData());
+ * }
+ * reader.close();
+ * </pre>
+ * 
+ * @author Ejaz Jamil, Jence.
+ *
+ */
+public class CaptureReader implements Closeable {
+	private final File[] files_;
+	private int index_ = -1;
+	private ByteBuffer segment_;
+	private long created_;
+	private final byte[] scratch_ = new byte[255];
+	private byte[] serialBytes_;
+	private String serial_;
+	private long nanos_;
+	private int offset_;
+	private int length_;
+
+	/**
+	 * Opens a capture.
+	 * 
+	 * @param dir directory of the capture.
+	 * @throws IOException if it holds no segment.
+	 */
+	public CaptureReader(File dir) throws IOException {
+		files_ = CaptureWriter.segments(dir);
+		if (files_.length == 0)
+			throw new IOException("No capture in "+dir);
+	}
+
+	/**
+	 * Maps a segment and checks its header.
+	 * 
+	 * @param file segment file.
+	 * @return the segment, positioned after the header.
+	 * @throws IOException
+	 */
+	static ByteBuffer map(File file) throws IOException {
+		RandomAccessFile f = new RandomAccessFile(file, "r");
+		ByteBuffer segment;
+		try {
+			segment = f.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, f.length());
+		} finally {
+			f.close();
+		}
+		if (segment.remaining() < CaptureWriter.HEADER_SIZE || 
+			segment.getInt() != CaptureWriter.MAGIC || 
+			segment.getInt() != CaptureWriter.VERSION)
+			throw new IOException("Not a capture segment: "+file);
+		return segment;
+	}
+
+	/**
+	 * Moves to the next record.
+	 * 
+	 * @return false at the end of the capture.
+	 * @throws IOException if a segment is damaged.
+	 */
+	public boolean next() throws IOException {
+		while (true) {
+			if (segment_ != null && segment_.remaining() >= 4) {
+				int n = segment_.getInt();
+				if (n > 0) {
+					nanos_ = segment_.getLong();
+					int len = segment_.get() & 0xFF;
+					segment_.get(scratch_, 0, len);
+					if (!sameSerial(len)) {
+						serialBytes_ = Arrays.copyOf(scratch_, len);
+						serial_ = new String(serialBytes_, StandardCharsets.UTF_8);
+					}
+					offset_ = segment_.position();
+					length_ = n;
+					if (n > segment_.remaining())
+						throw new IOException("Damaged record in "+files_[index_]);
+					segment_.position(offset_ + n);
+					return true;
+				}
+			}
+			if (++index_ >= files_.length) {
+				segment_ = null;
+				return false;
+			}
+			segment_ = map(files_[index_]);
+			created_ = segment_.getLong();
+		}
+	}
+
+	private boolean sameSerial(int len) {
+		if (serialBytes_ == null || serialBytes_.length != len)
+			return false;
+		for (int i = 0; i < len; i++)
+			if (serialBytes_[i] != scratch_[i])
+				return false;
+		return true;
+	}
+
+	/**
+	 * Gets the serial of the device read.
+	 * 
+	 * @return serial.
+	 */
+	public String getSerial() {
+		return serial_;
+	}
+
+	/**
+	 * Gets the time of the read, from {@link System#nanoTime()} of the 
+	 * capturing process.
+	 * 
+	 * @return nanoseconds.
+	 */
+	public long getNanos() {
+		return nanos_;
+	}
+
+	/**
+	 * Gets the creation time of the current segment.
+	 * 
+	 * @return milliseconds since the epoch.
+	 */
+	public long getSegmentCreated() {
+		return created_;
+	}
+
+	/**
+	 * Gets the number of bytes read.
+	 * 
+	 * @return length of the data.
+	 */
+	public int getLength() {
+		return length_;
+	}
+
+	/**
+	 * Gets the bytes read, without copying them.
+	 * 
+	 * @return read only view of the data.
+	 */
+	public ByteBuffer getData() {
+		ByteBuffer data = segment_.duplicate();
+		data.limit(offset_ + length_).position(offset_);
+		return data.slice().asReadOnlyBuffer();
+	}
+
+	/**
+	 * Internal method that gets the index of the current segment.
+	 */
+	int segment() {
+		return index_;
+	}
+
+	/**
+	 * Internal method that gets the offset of the data in the current segment.
+	 */
+	int offset() {
+		return offset_;
+	}
+
+	/**
+	 * Internal method that gets the current segment.
+	 */
+	ByteBuffer buffer() {
+		return segment_;
+	}
+
+	@Override
+	public void close() {
+		segment_ = null;
+		index_ = files_.length;
+	}
+}
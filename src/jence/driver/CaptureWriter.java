@@ -0,0 +1,262 @@
+/**
+ * The MIT LICENSE (MIT):
+ * 
+ * Copyright  2021 Ejaz Jamil, Jence.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of 
+ * this software and associated documentation files (the Software), to deal in 
+ * the Software without restriction, including without limitation the rights to 
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+ * of the Software, and to permit persons to whom the Software is furnished to do 
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. 
+ * 
+ */
+package jence.driver;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records what the reads of one or more drivers returned, for a later replay
+ * with {@link ReplayBackend}. Install it with {@link CP2110HidDriver#setCapture(CaptureWriter)}.
+ * <p>
+ * The capture is a directory of segment files of a fixed size, named
+ * <code>capture-00000.cap</code>, <code>capture-00001.cap</code> and so on, 
+ * each mapped into memory while it is written. A segment starts with a header
+ * of the magic number, the version and the creation time in milliseconds. 
+ * Records follow, each holding:
+ * <pre>
+ * int   length of the data, 0 ends the segment
+ * long  System.nanoTime() of the read
+ * byte  length of the device serial, followed by the serial in UTF-8
+ * byte[] data
+ * </pre>
+ * Appending a record is a copy into the mapped segment. The operating system
+ * writes the pages to the file, so the records survive a crash of the 
+ * application; {@link #flush()} forces them to the disk.
+ * 
+ * @author Ejaz Jamil, Jence.
+ *
+ */
+public class CaptureWriter implements Closeable {
+	/**
+	 * First int of every segment.
+	 */
+	public static final int MAGIC = 0x43503243;
+	/**
+	 * Version of the format.
+	 */
+	public static final int VERSION = 1;
+	/**
+	 * Bytes of the segment header.
+	 */
+	public static final int HEADER_SIZE = 16;
+	/**
+	 * Default size of a segment, 64 MB.
+	 */
+	public static final int SEGMENT_SIZE = 64 << 20;
+
+	private final File dir_;
+	private final int segmentSize_;
+	private final Map<String, byte[]> serials_ = new HashMap<String, byte[]>();
+	private int index_;
+	private MappedByteBuffer segment_;
+	private long records_;
+	private long bytes_;
+	private boolean closed_;
+
+	/**
+	 * Creates a capture with the default segment size.
+	 * 
+	 * @param dir directory of the segments, created if missing.
+	 * @throws IOException
+	 */
+	public CaptureWriter(File dir) throws IOException {
+		this(dir, SEGMENT_SIZE);
+	}
+
+	/**
+	 * Creates a capture. Segments already in the directory are kept and the
+	 * new ones are numbered after them.
+	 * 
+	 * @param dir directory of the segments, created if missing.
+	 * @param segmentSize size of a segment, at least 64 KB.
+	 * @throws IOException
+	 */
+	public CaptureWriter(File dir, int segmentSize) throws IOException {
+		if (segmentSize < 65536)
+			throw new IllegalArgumentException("Segment size below 64 KB.");
+		if (!dir.isDirectory() && !dir.mkdirs())
+			throw new IOException("Cannot create "+dir);
+		dir_ = dir;
+		segmentSize_ = segmentSize;
+		File[] segments = segments(dir);
+		if (segments.length > 0)
+			index_ = index(segments[segments.length - 1]) + 1;
+		roll();
+	}
+
+	/**
+	 * Lists the segments of a capture in order.
+	 * 
+	 * @param dir directory of the capture.
+	 * @return segment files.
+	 */
+	static File[] segments(File dir) {
+		File[] files = dir.listFiles();
+		if (files == null)
+			return new File[0];
+		List<File> segments = new ArrayList<File>();
+		for (File f : files)
+			if (index(f) >= 0)
+				segments.add(f);
+		File[] result = segments.toArray(new File[segments.size()]);
+		Arrays.sort(result);
+		return result;
+	}
+
+	private static int index(File f) {
+		String name = f.getName();
+		if (!name.startsWith("capture-") || !name.endsWith(".cap") || name.length() != 17)
+			return -1;
+		try {
+			return Integer.parseInt(name.substring(8, 13));
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	/**
+	 * Starts a new segment.
+	 */
+	private void roll() throws IOException {
+		if (segment_ != null)
+			segment_.putInt(0);
+		File f = new File(dir_, String.format("capture-%05d.cap", index_++));
+		RandomAccessFile file = new RandomAccessFile(f, "rw");
+		try {
+			file.setLength(segmentSize_);
+			segment_ = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, segmentSize_);
+		} finally {
+			// the mapping stays valid after the file is closed
+			file.close();
+		}
+		segment_.putInt(MAGIC);
+		segment_.putInt(VERSION);
+		segment_.putLong(System.currentTimeMillis());
+	}
+
+	/**
+	 * Appends a record.
+	 * 
+	 * @param serial serial of the device read.
+	 * @param nanos time of the read, from {@link System#nanoTime()}.
+	 * @param data bytes read, from the position to the limit. The position
+	 * is not changed.
+	 * @throws IOException
+	 */
+	public synchronized void append(String serial, long nanos, ByteBuffer data) throws IOException {
+		int n = data.remaining();
+		if (n == 0)
+			return;
+		if (closed_)
+			throw new IOException("Capture closed.");
+		byte[] s = serials_.get(serial);
+		if (s == null) {
+			s = serial.getBytes(StandardCharsets.UTF_8);
+			if (s.length > 255)
+				s = Arrays.copyOf(s, 255);
+			serials_.put(serial, s);
+		}
+		int size = 4 + 8 + 1 + s.length + n;
+		// keep room for the int that ends the segment
+		if (segment_.remaining() < size + 4) {
+			if (HEADER_SIZE + size + 4 > segmentSize_)
+				throw new IOException("Record larger than a segment.");
+			roll();
+		}
+		segment_.putInt(n);
+		segment_.putLong(nanos);
+		segment_.put((byte)s.length);
+		segment_.put(s);
+		int pos = data.position();
+		segment_.put(data);
+		data.position(pos);
+		records_++;
+		bytes_ += n;
+	}
+
+	/**
+	 * Appends a record.
+	 * 
+	 * @param serial serial of the device read.
+	 * @param nanos time of the read, from {@link System#nanoTime()}.
+	 * @param data bytes read.
+	 * @param off offset of the first byte.
+	 * @param len number of bytes.
+	 * @throws IOException
+	 */
+	public void append(String serial, long nanos, byte[] data, int off, int len) throws IOException {
+		append(serial, nanos, ByteBuffer.wrap(data, off, len));
+	}
+
+	/**
+	 * Gets the number of records appended.
+	 * 
+	 * @return records.
+	 */
+	public synchronized long getRecords() {
+		return records_;
+	}
+
+	/**
+	 * Gets the number of data bytes appended.
+	 * 
+	 * @return bytes.
+	 */
+	public synchronized long getBytes() {
+		return bytes_;
+	}
+
+	/**
+	 * Forces the records appended so far to the disk.
+	 */
+	public synchronized void flush() {
+		if (!closed_)
+			segment_.force();
+	}
+
+	/**
+	 * Ends the capture. The last segment keeps its full size; the rest of it
+	 * is zero, which ends the segment.
+	 */
+	@Override
+	public synchronized void close() {
+		if (closed_)
+			return;
+		segment_.force();
+		closed_ = true;
+		segment_ = null;
+	}
+}
@@ -0,0 +1,140 @@
+/**
+ * The MIT LICENSE (MIT):
+ * 
+ * Copyright  2021 Ejaz Jamil, Jence.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of 
+ * this software and associated documentation files (the Software), to deal in 
+ * the Software without restriction, including without limitation the rights to 
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+ * of the Software, and to permit persons to whom the Software is furnished to do 
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. 
+ * 
+ */
+package jence.driver;
+
+/**
+ * Suppresses repeated card reads. A reader repeats the same frame several
+ * times per second while the card stays on it. The deduplicator extracts the
+ * card ID with the same mask as {@link DriverListener#mask(int, int)} and drops
+ * a frame if the same ID was seen within the window. The window restarts with
+ * every repeat, so a card is only reported again after it was away from the 
+ * reader for the length of the window.
+ * 
+ * The IDs are kept in a bounded least recently used cache of primitive keys, 
+ * so memory use is fixed and checking a frame does not allocate memory.
+ * Install it on the driver with {@link CP2110HidDriver#setDeduplicator(CardDeduplicator)}.
+ * Not thread safe, it is used by the listen loop of one device.
+ * 
+ * @author Ejaz Jamil, Jence.
+ *
+ */
+public class CardDeduplicator {
+	private static final long NEVER = Long.MIN_VALUE;
+
+	private final IdExtractor extractor_ = new IdExtractor();
+	private final LongLruCache cache_;
+	private final long windowNanos_;
+	private volatile long passed_ = 0;
+	private volatile long suppressed_ = 0;
+
+	/**
+	 * Extracts the masked ID through the primitive path of {@link DriverListener}.
+	 */
+	private static class IdExtractor extends DriverListener {
+		@Override
+		protected void onData() {
+		}
+	}
+
+	/**
+	 * Creates the deduplicator.
+	 * 
+	 * @param maskStartBitPosition start of the card ID, see {@link DriverListener#mask(int, int)}.
+	 * @param maskBitLength length of the card ID in bits, 1 to 63.
+	 * @param windowMillis a repeated ID within this time is suppressed.
+	 * @param maxCards maximum number of card IDs remembered.
+	 */
+	public CardDeduplicator(int maskStartBitPosition, int maskBitLength, long windowMillis, int maxCards) {
+		if (maskStartBitPosition < 0 || maskBitLength < 1 || maskBitLength > 63)
+			throw new IllegalArgumentException("Card ID must be 1 to 63 bits.");
+		if (windowMillis <= 0)
+			throw new IllegalArgumentException("Invalid window "+windowMillis);
+		extractor_.mask(maskStartBitPosition, maskBitLength);
+		windowNanos_ = windowMillis * 1000000L;
+		cache_ = new LongLruCache(maxCards);
+	}
+
+	/**
+	 * Checks a frame.
+	 * 
+	 * @param frame the frame.
+	 * @return <true>, if the frame should be delivered, <false> if it is a repeat.
+	 */
+	public boolean accept(byte[] frame) {
+		extractor_.setData(null, DriverListener.CardType.LF, frame);
+		return accept(extractor_.dataAsLong(), System.nanoTime());
+	}
+
+	/**
+	 * Checks a card ID.
+	 * 
+	 * @param id card ID.
+	 * @param now current time from {@link System#nanoTime()}.
+	 * @return <true>, if the card should be delivered, <false> if it is a repeat.
+	 */
+	public boolean accept(long id, long now) {
+		long last = cache_.get(id, NEVER);
+		cache_.put(id, now);
+		if (last != NEVER && now - last < windowNanos_) {
+			suppressed_++;
+			return false;
+		}
+		passed_++;
+		return true;
+	}
+
+	/**
+	 * Forgets all the card IDs.
+	 */
+	public void clear() {
+		cache_.clear();
+	}
+
+	/**
+	 * Gets the number of frames delivered.
+	 * 
+	 * @return frames passed.
+	 */
+	public long getPassed() {
+		return passed_;
+	}
+
+	/**
+	 * Gets the number of repeated frames dropped.
+	 * 
+	 * @return frames suppressed.
+	 */
+	public long getSuppressed() {
+		return suppressed_;
+	}
+
+	/**
+	 * Gets the number of card IDs remembered.
+	 * 
+	 * @return number of cards in the cache.
+	 */
+	public int getCachedCards() {
+		return cache_.size();
+	}
+}
@@ -0,0 +1,222 @@
+/**
+ * The MIT LICENSE (MIT):
+ * 
+ * Copyright  2021 Ejaz Jamil, Jence.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of 
+ * this software and associated documentation files (the Software), to deal in 
+ * the Software without restriction, including without limitation the rights to 
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+ * of the Software, and to permit persons to whom the Software is furnished to do 
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. 
+ * 
+ */
+package jence.driver;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Lock-free single producer, single consumer ring buffer of data chunks
+ * read from the device. Exactly one thread may call {@link #offer(byte[])}
+ * and exactly one other thread may call {@link #poll()}.
+ * 
+ * The capacity is rounded up to the next power of two. When the buffer
+ * is full, the {@link OverflowPolicy} decides if the producer waits, 
+ * discards the oldest chunk or discards the new chunk. A slot is emptied
+ * before the chunk in it counts as taken, so the buffer does not keep taken 
+ * chunks from being garbage collected.
+ * 
+ * @author Ejaz Jamil, Jence.
+ *
+ */
+public class ChunkRingBuffer {
+	private final AtomicReferenceArray<byte[]> slots_;
+	private final int mask_;
+	private final OverflowPolicy overflow_;
+	private final WaitStrategy wait_;
+	// head is advanced by the consumer, and by the producer when dropping the oldest chunk,
+	// in both cases after emptying the slot.
+	private final AtomicLong head_ = new AtomicLong();
+	// tail is only advanced by the producer.
+	private final AtomicLong tail_ = new AtomicLong();
+	private final AtomicLong dropped_ = new AtomicLong();
+	private volatile boolean closed_ = false;
+	// consumer parked in await(), woken by offer() and close()
+	private volatile Thread consumer_ = null;
+
+	/**
+	 * Creates the buffer.
+	 * 
+	 * @param capacity minimum number of chunks the buffer can hold.
+	 * @param wait wait strategy used by a producer blocked on a full buffer.
+	 * @param overflow what to do when the buffer is full.
+	 */
+	public ChunkRingBuffer(int capacity, WaitStrategy wait, OverflowPolicy overflow) {
+		if (capacity < 1 || capacity > (1 << 30))
+			throw new IllegalArgumentException("Invalid capacity "+capacity);
+		int size = Integer.highestOneBit(capacity);
+		if (size < capacity)
+			size <<= 1;
+		slots_ = new AtomicReferenceArray<byte[]>(size);
+		mask_ = size - 1;
+		wait_ = wait;
+		overflow_ = overflow;
+	}
+
+	/**
+	 * Adds a chunk. Producer side only.
+	 * 
+	 * @param chunk data chunk, not null.
+	 * @return <false>, if the chunk was discarded or the buffer was closed while waiting.
+	 */
+	public boolean offer(byte[] chunk) {
+		if (chunk == null)
+			throw new IllegalArgumentException("Chunk must not be null.");
+		long t = tail_.get();
+		for (;;) {
+			long h = head_.get();
+			if (t - h < slots_.length())
+				break;
+			if (overflow_ == OverflowPolicy.DROP_NEWEST) {
+				dropped_.incrementAndGet();
+				return false;
+			}
+			if (overflow_ == OverflowPolicy.DROP_OLDEST) {
+				// competes with the consumer for the oldest slot.
+				if (claim(h) != null)
+					dropped_.incrementAndGet();
+				continue;
+			}
+			if (closed_)
+				return false;
+			wait_.idle();
+		}
+		slots_.lazySet((int)t & mask_, chunk);
+		if (wait_ == WaitStrategy.PARK) {
+			// a full write, so that either await() sees the chunk or this sees the consumer
+			tail_.set(t + 1);
+			Thread consumer = consumer_;
+			if (consumer != null)
+				LockSupport.unpark(consumer);
+		} else {
+			tail_.lazySet(t + 1);
+		}
+		return true;
+	}
+
+	/**
+	 * Removes the oldest chunk. Consumer side only.
+	 * 
+	 * @return the chunk, or null if the buffer is empty.
+	 */
+	public byte[] poll() {
+		for (;;) {
+			long h = head_.get();
+			if (h >= tail_.get())
+				return null;
+			if (overflow_ != OverflowPolicy.DROP_OLDEST) {
+				// nobody else takes chunks
+				int i = (int)h & mask_;
+				byte[] chunk = slots_.get(i);
+				slots_.lazySet(i, null);
+				head_.lazySet(h + 1);
+				return chunk;
+			}
+			byte[] chunk = claim(h);
+			// null only if the producer dropped this chunk in the meantime.
+			if (chunk != null)
+				return chunk;
+		}
+	}
+
+	/**
+	 * Internal method that takes the oldest chunk when the consumer and the 
+	 * producer compete for it, see {@link OverflowPolicy#DROP_OLDEST}. The side
+	 * that empties the slot owns the chunk and then advances the head.
+	 * 
+	 * @param h head read by the caller.
+	 * @return the chunk, or null if the other side is taking it or took it.
+	 */
+	private byte[] claim(long h) {
+		int i = (int)h & mask_;
+		byte[] chunk = slots_.get(i);
+		if (chunk == null || !slots_.compareAndSet(i, chunk, null))
+			return null;
+		if (head_.get() != h) {
+			// the chunk taken out is a newer one that the producer put in the
+			// same slot after the other side took chunk h, so put it back.
+			slots_.set(i, chunk);
+			return null;
+		}
+		head_.set(h + 1);
+		return chunk;
+	}
+
+	/**
+	 * Waits for a chunk after {@link #poll()} returned null, as the wait strategy
+	 * says. Consumer side only. With {@link WaitStrategy#PARK} the consumer sleeps 
+	 * until a chunk is offered or the buffer is closed; it may also return early,
+	 * so call it in a loop.
+	 */
+	public void await() {
+		if (wait_ != WaitStrategy.PARK) {
+			wait_.idle();
+			return;
+		}
+		consumer_ = Thread.currentThread();
+		if (!closed_ && head_.get() >= tail_.get())
+			LockSupport.park(this);
+		consumer_ = null;
+	}
+
+	/**
+	 * Releases a producer waiting on a full buffer, and a consumer waiting
+	 * in {@link #await()}.
+	 */
+	public void close() {
+		closed_ = true;
+		Thread consumer = consumer_;
+		if (consumer != null)
+			LockSupport.unpark(consumer);
+	}
+
+	/**
+	 * Gets the number of chunks waiting to be consumed.
+	 * 
+	 * @return chunks in the buffer.
+	 */
+	public int size() {
+		long n = tail_.get() - head_.get();
+		return (int)Math.max(0, n);
+	}
+
+	/**
+	 * Gets the capacity after rounding.
+	 * 
+	 * @return capacity in chunks.
+	 */
+	public int capacity() {
+		return slots_.length();
+	}
+
+	/**
+	 * Gets the number of chunks discarded by the overflow policy.
+	 * 
+	 * @return dropped chunks.
+	 */
+	public long getDroppedChunks() {
+		return dropped_.get();
+	}
+}
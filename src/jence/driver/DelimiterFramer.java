@@ -0,0 +1,75 @@
+/**
+ * The MIT LICENSE (MIT):
+ * 
+ * Copyright  2021 Ejaz Jamil, Jence.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of 
+ * this software and associated documentation files (the Software), to deal in 
+ * the Software without restriction, including without limitation the rights to 
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+ * of the Software, and to permit persons to whom the Software is furnished to do 
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. 
+ * 
+ */
+package jence.driver;
+
+/**
+ * Frames that end with a delimiter, for example CR LF. The delimiter is 
+ * not part of the frame.
+ * 
+ * @author Ejaz Jamil, Jence.
+ *
+ */
+public class DelimiterFramer extends Framer {
+	private final byte[] delimiter_;
+
+	/**
+	 * Creates the framer with {@link Framer#DEFAULT_MAX_FRAME_LENGTH}.
+	 * 
+	 * @param delimiter bytes ending a frame.
+	 */
+	public DelimiterFramer(byte... delimiter) {
+		this(DEFAULT_MAX_FRAME_LENGTH, delimiter);
+	}
+
+	/**
+	 * Creates the framer.
+	 * 
+	 * @param maxFrameLength maximum frame length.
+	 * @param delimiter bytes ending a frame.
+	 */
+	public DelimiterFramer(int maxFrameLength, byte... delimiter) {
+		super(maxFrameLength);
+		if (delimiter == null || delimiter.length == 0)
+			throw new IllegalArgumentException("Empty delimiter.");
+		delimiter_ = delimiter.clone();
+	}
+
+	@Override
+	protected int decode(byte[] buf, int start, int end) {
+		int d = delimiter_.length;
+		// the tail of the previous search may hold the beginning of the delimiter.
+		for (int i = start + Math.max(0, scanned - d + 1); i + d <= end; i++) {
+			int k = 0;
+			while (k < d && buf[i + k] == delimiter_[k])
+				k++;
+			if (k == d) {
+				frameOffset = start;
+				frameLength = i - start;
+				return i + d;
+			}
+		}
+		scanned = end - start;
+		return -1;
+	}
+}
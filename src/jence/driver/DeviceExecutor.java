@@ -0,0 +1,168 @@
+/**
+ * The MIT LICENSE (MIT):
+ * 
+ * Copyright  2021 Ejaz Jamil, Jence.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of 
+ * this software and associated documentation files (the Software), to deal in 
+ * the Software without restriction, including without limitation the rights to 
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+ * of the Software, and to permit persons to whom the Software is furnished to do 
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. 
+ * 
+ */
+package jence.driver;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Runs the asynchronous operations of one driver, one at a time and in the 
+ * order they were submitted, on a single thread with a bounded queue. The 
+ * thread ends after a second without work and is started again on demand,
+ * so idle devices hold no thread.
+ * 
+ * @author Ejaz Jamil, Jence.
+ *
+ */
+final class DeviceExecutor {
+	private static ScheduledExecutorService timer_;
+
+	private final ThreadPoolExecutor executor_;
+
+	/**
+	 * Creates the executor.
+	 * 
+	 * @param capacity operations that can wait behind the running one.
+	 */
+	DeviceExecutor(int capacity) {
+		executor_ = new ThreadPoolExecutor(1, 1, 1, TimeUnit.SECONDS, 
+			new ArrayBlockingQueue<Runnable>(capacity), new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread t = new Thread(r, "CP2110-io");
+					t.setDaemon(true);
+					return t;
+				}
+			});
+		executor_.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * Queues an operation. It is skipped if the future is already done when
+	 * its turn comes, because it was cancelled or its deadline passed. An 
+	 * operation already running is not stopped; its result is discarded.
+	 * 
+	 * @param call the operation.
+	 * @param timeout deadline from now, 0 for none.
+	 * @param unit unit of the timeout.
+	 * @return future of the result, completed with a {@link TimeoutException} 
+	 * at the deadline, or with a {@link DriverException} if the queue is full.
+	 */
+	<T> CompletableFuture<T> submit(final Callable<T> call, long timeout, TimeUnit unit) {
+		return submit(call, timeout, unit, null);
+	}
+
+	/**
+	 * Queues an operation, as {@link #submit(Callable, long, TimeUnit)}. The result
+	 * of an operation that was running when its future was completed, because it
+	 * was cancelled or its deadline passed, is handed to <code>late</code> instead
+	 * of being discarded.
+	 * 
+	 * @param call the operation.
+	 * @param timeout deadline from now, 0 for none.
+	 * @param unit unit of the timeout.
+	 * @param late receives the result that came too late, or null to discard it.
+	 * @return future of the result.
+	 */
+	<T> CompletableFuture<T> submit(final Callable<T> call, long timeout, TimeUnit unit, final Consumer<? super T> late) {
+		final CompletableFuture<T> future = new CompletableFuture<T>();
+		final Runnable task = new Runnable() {
+			@Override
+			public void run() {
+				if (future.isDone())
+					return;
+				T result;
+				try {
+					result = call.call();
+				} catch (Throwable t) {
+					future.completeExceptionally(t);
+					return;
+				}
+				if (!future.complete(result) && late != null)
+					late.accept(result);
+			}
+		};
+		final ScheduledFuture<?> deadline = (timeout > 0) ? timer().schedule(new Runnable() {
+			@Override
+			public void run() {
+				future.completeExceptionally(new TimeoutException());
+			}
+		}, timeout, unit) : null;
+		try {
+			executor_.execute(task);
+		} catch (RejectedExecutionException e) {
+			future.completeExceptionally(new DriverException("Too many pending operations.", e));
+		}
+		future.whenComplete(new BiConsumer<T, Throwable>() {
+			@Override
+			public void accept(T result, Throwable error) {
+				if (deadline != null)
+					deadline.cancel(false);
+				// frees the place in the queue of an operation cancelled before its turn
+				executor_.remove(task);
+			}
+		});
+		return future;
+	}
+
+	/**
+	 * Gets the number of operations waiting.
+	 * 
+	 * @return queued operations.
+	 */
+	int getQueued() {
+		return executor_.getQueue().size();
+	}
+
+	/**
+	 * Internal method that returns the timer shared by all executors, which
+	 * completes the futures that reached their deadline.
+	 * 
+	 * @return the timer.
+	 */
+	private static synchronized ScheduledExecutorService timer() {
+		if (timer_ == null) {
+			timer_ = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread t = new Thread(r, "CP2110-async-timer");
+					t.setDaemon(true);
+					return t;
+				}
+			});
+		}
+		return timer_;
+	}
+}
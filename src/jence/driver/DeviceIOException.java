@@ -0,0 +1,56 @@
+/**
+ * The MIT LICENSE (MIT):
+ * 
+ * Copyright  2021 Ejaz Jamil, Jence.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of 
+ * this software and associated documentation files (the Software), to deal in 
+ * the Software without restriction, including without limitation the rights to 
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+ * of the Software, and to permit persons to whom the Software is furnished to do 
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. 
+ * 
+ */
+package jence.driver;
+
+/**
+ * Thrown when a read or a write failed in the library, most often because the
+ * device was unplugged or reset. A {@link SupervisedConnection} recovers from it
+ * by connecting again.
+ * 
+ * @author Ejaz Jamil, Jence.
+ *
+ */
+public class DeviceIOException extends DriverException {
+
+	/**
+	 * Creates the exception, with the status {@link HidUartStatus#DEVICE_IO_FAILED}.
+	 * 
+	 * @param message description.
+	 */
+	public DeviceIOException(String message) {
+		super(message, HidUartStatus.DEVICE_IO_FAILED);
+	}
+
+	/**
+	 * Creates the exception for the status of the library.
+	 * 
+	 * @param status {@link HidUartStatus#READ_ERROR}, {@link HidUartStatus#WRITE_ERROR}
+	 * or {@link HidUartStatus#DEVICE_IO_FAILED}.
+	 * @param message description.
+	 * @param stackTrace <false> for a shared instance, see {@link DriverException}.
+	 */
+	DeviceIOException(HidUartStatus status, String message, boolean stackTrace) {
+		super(status, message, stackTrace);
+	}
+}
@@ -0,0 +1,143 @@
+/**
+ * The MIT LICENSE (MIT):
+ * 
+ * Copyright  2021 Ejaz Jamil, Jence.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of 
+ * this software and associated documentation files (the Software), to deal in 
+ * the Software without restriction, including without limitation the rights to 
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+ * of the Software, and to permit persons to whom the Software is furnished to do 
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. 
+ * 
+ */
+package jence.driver;
+
+/**
+ * Immutable description of an attached device, as found when the devices 
+ * were enumerated. Instances are returned by {@link CP2110HidDriver#getDevices(int, int)}.
+ * 
+ * @author Ejaz Jamil, Jence.
+ *
+ */
+public final class DeviceInfo {
+	private final int index_;
+	private final String serial_;
+	private final int vid_;
+	private final int pid_;
+	private final String path_;
+	private final String manufacturer_;
+	private final String product_;
+
+	/**
+	 * Creates the device description.
+	 * 
+	 * @param index device index at the time of enumeration.
+	 * @param serial serial string, used as device ID.
+	 * @param vid vendor id.
+	 * @param pid product id.
+	 * @param path system path of the device.
+	 * @param manufacturer manufacturer string.
+	 * @param product product string.
+	 */
+	public DeviceInfo(int index, String serial, int vid, int pid, String path, String manufacturer, String product) {
+		index_ = index;
+		serial_ = serial;
+		vid_ = vid;
+		pid_ = pid;
+		path_ = path;
+		manufacturer_ = manufacturer;
+		product_ = product;
+	}
+
+	/**
+	 * Gets the device index. The index is only valid until devices are attached 
+	 * or removed.
+	 * 
+	 * @return device index.
+	 */
+	public int getIndex() {
+		return index_;
+	}
+
+	/**
+	 * Gets the serial string. This is the device ID used by 
+	 * {@link CP2110HidDriver#connect(String, int, int, int, int, boolean)}.
+	 * 
+	 * @return serial string.
+	 */
+	public String getSerial() {
+		return serial_;
+	}
+
+	/**
+	 * Gets the vendor id.
+	 * 
+	 * @return vendor id.
+	 */
+	public int getVid() {
+		return vid_;
+	}
+
+	/**
+	 * Gets the product id.
+	 * 
+	 * @return product id.
+	 */
+	public int getPid() {
+		return pid_;
+	}
+
+	/**
+	 * Gets the system path of the device.
+	 * 
+	 * @return path.
+	 */
+	public String getPath() {
+		return path_;
+	}
+
+	/**
+	 * Gets the manufacturer string.
+	 * 
+	 * @return manufacturer.
+	 */
+	public String getManufacturer() {
+		return manufacturer_;
+	}
+
+	/**
+	 * Gets the product string.
+	 * 
+	 * @return product.
+	 */
+	public String getProduct() {
+		return product_;
+	}
+
+	/**
+	 * Checks if the device matches a vendor and product filter.
+	 * 
+	 * @param vid vendor id, or zero for all vendors.
+	 * @param pid product id, or zero for all products.
+	 * @return <true>, if the device matches.
+	 */
+	public boolean matches(int vid, int pid) {
+		return (vid == 0 || vid == vid_) && (pid == 0 || pid == pid_);
+	}
+
+	@Override
+	public String toString() {
+		return serial_ + " [" + index_ + ", " + Integer.toHexString(vid_) + ":" + Integer.toHexString(pid_) + ", " + product_ + "]";
+	}
+}
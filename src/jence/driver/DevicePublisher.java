@@ -0,0 +1,315 @@
+/**
+ * The MIT LICENSE (MIT):
+ * 
+ * Copyright  2021 Ejaz Jamil, Jence.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of 
+ * this software and associated documentation files (the Software), to deal in 
+ * the Software without restriction, including without limitation the rights to 
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+ * of the Software, and to permit persons to whom the Software is furnished to do 
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. 
+ * 
+ */
+package jence.driver;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes the data of a device as a stream of {@link Frame}s, created by 
+ * {@link CP2110HidDriver#publish(String, Executor)}. A frame is what a listener
+ * would receive: a chunk as read, or a frame of the {@link Framer} if one is 
+ * installed, after the {@link CardDeduplicator} if one is installed.
+ * <p>
+ * Every subscriber receives every frame published while it is subscribed. 
+ * Frames are published only as fast as the slowest subscriber requests them:
+ * while a subscriber has no outstanding demand, the device is not read, and
+ * the data waits in the chip, held back by the flow control or the FIFO. The
+ * frames of one read are kept until they are delivered, so nothing else is 
+ * buffered.
+ * <p>
+ * The device is read by a loop on the executor while there are subscribers.
+ * The subscribers are called on that loop, one after the other. A read error,
+ * or any other failure of the loop, ends the stream with <code>onError</code> for 
+ * all subscribers; {@link #close()} ends it with <code>onComplete</code>. A 
+ * subscriber whose <code>onNext</code> throws is cancelled and receives the 
+ * exception in <code>onError</code>. Do not listen to the same driver at the 
+ * same time, since the framer is shared.
+ * 
+ * @author Ejaz Jamil, Jence.
+ *
+ */
+public class DevicePublisher implements Flow.Publisher<Frame>, Closeable {
+	private final CP2110HidDriver driver_;
+	private final String deviceid_;
+	private final Executor executor_;
+	private final CopyOnWriteArrayList<Sub> subscribers_ = new CopyOnWriteArrayList<Sub>();
+	// frames of the last read not delivered yet, used by the loop only
+	private final ArrayDeque<Frame> pending_ = new ArrayDeque<Frame>();
+	private final DriverListener collector_ = new DriverListener() {
+		@Override
+		public void setData(String device, CardType ct, byte[] d) {
+			pending_.add(new Frame(device, ct, System.currentTimeMillis(), d));
+		}
+
+		@Override
+		protected void onData() {
+		}
+	};
+	private final Object lock_ = new Object();
+	private boolean running_;
+	private boolean closed_;
+	private Throwable error_;
+
+	/**
+	 * A subscriber and its demand.
+	 */
+	private final class Sub implements Flow.Subscription {
+		final Flow.Subscriber<? super Frame> subscriber_;
+		final AtomicLong demand_ = new AtomicLong();
+		volatile boolean cancelled_;
+		volatile IllegalArgumentException invalid_;
+
+		Sub(Flow.Subscriber<? super Frame> subscriber) {
+			subscriber_ = subscriber;
+		}
+
+		@Override
+		public void request(long n) {
+			if (n <= 0) {
+				invalid_ = new IllegalArgumentException("Non-positive request: "+n);
+			} else {
+				long d;
+				do {
+					d = demand_.get();
+				} while (d != Long.MAX_VALUE && !demand_.compareAndSet(d, (d + n < 0) ? Long.MAX_VALUE : d + n));
+			}
+			wake();
+		}
+
+		@Override
+		public void cancel() {
+			cancelled_ = true;
+			subscribers_.remove(this);
+			wake();
+		}
+	}
+
+	DevicePublisher(CP2110HidDriver driver, String deviceid, Executor executor) {
+		driver_ = driver;
+		deviceid_ = deviceid;
+		executor_ = (executor != null) ? executor : Subscription.defaultExecutor();
+	}
+
+	@Override
+	public void subscribe(Flow.Subscriber<? super Frame> subscriber) {
+		Objects.requireNonNull(subscriber);
+		Sub sub = new Sub(subscriber);
+		synchronized (lock_) {
+			if (closed_) {
+				subscriber.onSubscribe(sub);
+				if (error_ != null)
+					subscriber.onError(error_);
+				else
+					subscriber.onComplete();
+				return;
+			}
+		}
+		// added after onSubscribe, so that onNext cannot overlap it
+		subscriber.onSubscribe(sub);
+		if (sub.cancelled_)
+			return;
+		synchronized (lock_) {
+			if (closed_) {
+				if (error_ != null)
+					subscriber.onError(error_);
+				else
+					subscriber.onComplete();
+				return;
+			}
+			subscribers_.add(sub);
+			if (!running_) {
+				running_ = true;
+				executor_.execute(new Runnable() {
+					@Override
+					public void run() {
+						loop();
+					}
+				});
+			}
+			lock_.notifyAll();
+		}
+	}
+
+	private void wake() {
+		synchronized (lock_) {
+			lock_.notifyAll();
+		}
+	}
+
+	/**
+	 * Checks the subscribers. Those that requested a non-positive number 
+	 * are dropped with an error.
+	 * 
+	 * @return true if all remaining subscribers have demand.
+	 */
+	private boolean ready() {
+		boolean ready = true;
+		for (Sub sub : subscribers_) {
+			if (sub.invalid_ != null) {
+				subscribers_.remove(sub);
+				sub.cancelled_ = true;
+				signal(sub, sub.invalid_);
+			} else if (sub.demand_.get() == 0) {
+				ready = false;
+			}
+		}
+		return ready;
+	}
+
+	/**
+	 * Reads and delivers while there are subscribers.
+	 */
+	private void loop() {
+		DriverMetrics metrics = driver_.getMetrics();
+		metrics.listenStarted();
+		boolean idle = false;
+		try {
+			while (true) {
+				synchronized (lock_) {
+					while (!closed_ && !(ready() && !subscribers_.isEmpty())) {
+						if (subscribers_.isEmpty()) {
+							running_ = false;
+							idle = true;
+							return;
+						}
+						lock_.wait();
+					}
+					if (closed_)
+						break;
+				}
+				if (pending_.isEmpty()) {
+					byte[] buffer = driver_.read();
+					if (buffer != null)
+						driver_.dispatch(deviceid_, collector_, buffer);
+					continue;
+				}
+				Frame frame = pending_.poll();
+				for (Sub sub : subscribers_) {
+					// a subscriber that came after the frame was due waits for the next
+					if (sub.cancelled_ || sub.demand_.get() == 0)
+						continue;
+					sub.demand_.decrementAndGet();
+					try {
+						sub.subscriber_.onNext(frame);
+					} catch (Throwable t) {
+						// the subscription is cancelled, see rule 2.13 of Reactive Streams
+						sub.cancel();
+						signal(sub, t);
+					}
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			fail(e);
+		} catch (Throwable t) {
+			fail(t);
+		} finally {
+			metrics.listenStopped();
+			if (!idle)
+				end();
+		}
+	}
+
+	/**
+	 * Internal method that closes the stream with an error.
+	 * 
+	 * @param error the error.
+	 */
+	private void fail(Throwable error) {
+		synchronized (lock_) {
+			closed_ = true;
+			if (error_ == null)
+				error_ = error;
+		}
+	}
+
+	/**
+	 * Ends the stream for every subscriber.
+	 */
+	private void end() {
+		Throwable error;
+		synchronized (lock_) {
+			running_ = false;
+			error = error_;
+		}
+		pending_.clear();
+		for (Sub sub : subscribers_) {
+			subscribers_.remove(sub);
+			if (!sub.cancelled_)
+				signal(sub, error);
+		}
+	}
+
+	/**
+	 * Internal method that ends the stream for one subscriber. A subscriber 
+	 * that throws does not keep the others from being signalled.
+	 * 
+	 * @param sub the subscriber.
+	 * @param error the error, or null to complete.
+	 */
+	private void signal(Sub sub, Throwable error) {
+		try {
+			if (error != null)
+				sub.subscriber_.onError(error);
+			else
+				sub.subscriber_.onComplete();
+		} catch (Throwable t) {
+			// ignored, the subscriber is gone
+		}
+	}
+
+	/**
+	 * Gets the number of subscribers.
+	 * 
+	 * @return subscribers.
+	 */
+	public int getSubscribers() {
+		return subscribers_.size();
+	}
+
+	/**
+	 * Ends the stream with <code>onComplete</code>. The loop notices it after the
+	 * read in progress returns, which is within one read timeout.
+	 */
+	@Override
+	public void close() {
+		boolean running;
+		synchronized (lock_) {
+			if (closed_)
+				return;
+			closed_ = true;
+			running = running_;
+			lock_.notifyAll();
+		}
+		// without a loop, nobody else signals the subscribers
+		if (!running)
+			end();
+	}
+}
@@ -0,0 +1,257 @@
+/**
+ * The MIT LICENSE (MIT):
+ * 
+ * Copyright  2021 Ejaz Jamil, Jence.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of 
+ * this software and associated documentation files (the Software), to deal in 
+ * the Software without restriction, including without limitation the rights to 
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+ * of the Software, and to permit persons to whom the Software is furnished to do 
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. 
+ * 
+ */
+package jence.driver;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Holds one {@link CP2110HidDriver} per connected device, keyed by the 
+ * device serial number. The attached devices are enumerated once and all
+ * the requested devices are opened in parallel, so the time to connect many
+ * devices is close to the time of the slowest one.
+ * 
+ * <pre>
+ * DeviceRegistry registry = new DeviceRegistry(9600, 8, 'N', 1, false);
+ * Map&lt;String, DriverException&gt; failed = registry.connectAll();
+ * CP2110HidDriver hid = registry.get("0001A2B3");
+ * ...
+ * registry.close();
+ * </pre>
+ * 
+ * @author Ejaz Jamil, Jence.
+ *
+ */
+public class DeviceRegistry implements Closeable {
+	private final int baudRate_;
+	private final int dataBits_;
+	private final int parity_;
+	private final int stopBits_;
+	private final boolean flow_;
+	private final Map<String, CP2110HidDriver> drivers_ = new ConcurrentHashMap<String, CP2110HidDriver>();
+
+	/**
+	 * Creates an empty registry. All devices are connected with the same 
+	 * UART settings, see {@link CP2110HidDriver#connect(String, int, int, int, int, boolean)}.
+	 * 
+	 * @param baudRate baud rate.
+	 * @param dataBits data bits.
+	 * @param parity parity as 'N', 'O', 'E', 'M' or 'S'.
+	 * @param stopBits stop bits.
+	 * @param flow flow control.
+	 */
+	public DeviceRegistry(int baudRate, int dataBits, int parity, int stopBits, boolean flow) {
+		baudRate_ = baudRate;
+		dataBits_ = dataBits;
+		parity_ = parity;
+		stopBits_ = stopBits;
+		flow_ = flow;
+		// makes sure the library is loaded.
+		new CP2110HidDriver();
+	}
+
+	/**
+	 * Connects all the attached devices not yet in the registry.
+	 * 
+	 * @return devices that failed to connect, with the reason. Empty if all succeeded.
+	 * @throws DriverException if the devices could not be enumerated.
+	 * @throws InterruptedException
+	 */
+	public Map<String, DriverException> connectAll() throws DriverException, InterruptedException {
+		return connectAll((String[])null);
+	}
+
+	/**
+	 * Connects the devices with the given serial numbers. The attached devices are 
+	 * enumerated once and every device is then opened on its own thread. A device 
+	 * that opens with another serial, because the devices changed since the 
+	 * enumeration, is closed again and reported as failed.
+	 * 
+	 * @param serials serial numbers to connect. Pass null to connect all attached devices.
+	 * @return devices that failed to connect, with the reason. Empty if all succeeded.
+	 * @throws DriverException if the devices could not be enumerated.
+	 * @throws InterruptedException if interrupted while waiting. The devices opened
+	 * by this call are closed again and the registry is left as it was.
+	 */
+	public Map<String, DriverException> connectAll(String... serials) throws DriverException, InterruptedException {
+		// serial -> index, one enumeration pass
+		Map<String, Integer> attached = new LinkedHashMap<String, Integer>();
+		for (DeviceInfo info : CP2110HidDriver.getDevices(0, 0)) {
+			if (info.getSerial().length() > 0)
+				attached.put(info.getSerial(), info.getIndex());
+		}
+		
+		Map<String, DriverException> failed = new LinkedHashMap<String, DriverException>();
+		List<String> wanted = new ArrayList<String>();
+		if (serials == null) {
+			wanted.addAll(attached.keySet());
+		} else {
+			for (String serial : serials) {
+				if (attached.containsKey(serial))
+					wanted.add(serial);
+				else
+					failed.put(serial, new DeviceNotFoundException("Device not found for "+serial));
+			}
+		}
+		wanted.removeAll(drivers_.keySet());
+		if (wanted.isEmpty())
+			return failed;
+
+		// drivers opened by this call, taken back if the caller is interrupted
+		final Map<String, CP2110HidDriver> opened = new LinkedHashMap<String, CP2110HidDriver>();
+		final AtomicBoolean abandoned = new AtomicBoolean();
+		ExecutorService executor = Executors.newFixedThreadPool(wanted.size());
+		Map<String, Future<CP2110HidDriver>> pending = new LinkedHashMap<String, Future<CP2110HidDriver>>();
+		try {
+			for (final String serial : wanted) {
+				final int index = attached.get(serial);
+				pending.put(serial, executor.submit(new Callable<CP2110HidDriver>() {
+					@Override
+					public CP2110HidDriver call() throws Exception {
+						CP2110HidDriver driver = new CP2110HidDriver();
+						driver.connect(index, serial, baudRate_, dataBits_, parity_, stopBits_, flow_);
+						try {
+							String found = driver.getOpenedSerial();
+							if (!serial.equals(found))
+								throw new DeviceNotFoundException("Device not found for "+serial+", found "+found);
+							synchronized (opened) {
+								if (!abandoned.get()) {
+									opened.put(serial, driver);
+									return driver;
+								}
+							}
+							throw new InterruptedException();
+						} catch (Exception e) {
+							discard(driver);
+							throw e;
+						}
+					}
+				}));
+			}
+			for (Map.Entry<String, Future<CP2110HidDriver>> e : pending.entrySet()) {
+				try {
+					drivers_.put(e.getKey(), e.getValue().get());
+				} catch (ExecutionException ex) {
+					Throwable cause = ex.getCause();
+					failed.put(e.getKey(), (cause instanceof DriverException) 
+							? (DriverException)cause : new DriverException(cause));
+				}
+			}
+		} catch (InterruptedException e) {
+			synchronized (opened) {
+				abandoned.set(true);
+			}
+			for (Future<CP2110HidDriver> future : pending.values())
+				future.cancel(true);
+			for (Map.Entry<String, CP2110HidDriver> o : opened.entrySet()) {
+				drivers_.remove(o.getKey(), o.getValue());
+				discard(o.getValue());
+			}
+			throw e;
+		} finally {
+			executor.shutdown();
+		}
+		return failed;
+	}
+
+	/**
+	 * Internal method that closes a driver that is not kept.
+	 * 
+	 * @param driver the driver.
+	 */
+	private static void discard(CP2110HidDriver driver) {
+		try {
+			driver.disconnect();
+		} catch (DriverException e) {
+			// the handle is gone either way.
+		}
+	}
+
+	/**
+	 * Gets the connected driver of a device.
+	 * 
+	 * @param serial device serial number.
+	 * @return the driver, or null if the device is not in the registry.
+	 */
+	public CP2110HidDriver get(String serial) {
+		return drivers_.get(serial);
+	}
+
+	/**
+	 * Gets the serial numbers of all the connected devices.
+	 * 
+	 * @return read only set of serial numbers.
+	 */
+	public Set<String> getSerials() {
+		return Collections.unmodifiableSet(drivers_.keySet());
+	}
+
+	/**
+	 * Gets the number of connected devices.
+	 * 
+	 * @return number of devices.
+	 */
+	public int size() {
+		return drivers_.size();
+	}
+
+	/**
+	 * Disconnects one device and removes it from the registry.
+	 * 
+	 * @param serial device serial number.
+	 * @throws DriverException
+	 */
+	public void close(String serial) throws DriverException {
+		CP2110HidDriver driver = drivers_.remove(serial);
+		if (driver != null)
+			driver.disconnect();
+	}
+
+	/**
+	 * Disconnects all the devices and empties the registry. Every device
+	 * is closed even if closing one of them fails.
+	 */
+	@Override
+	public void close() {
+		for (String serial : new ArrayList<String>(drivers_.keySet())) {
+			try {
+				close(serial);
+			} catch (DriverException e) {
+				// the handle is gone either way.
+			}
+		}
+	}
+}
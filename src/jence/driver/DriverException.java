@@ -24,29 +24,141 @@
 package jence.driver;
 
 /**
+ * Error reported by the driver. When the error comes from the SiLabs library,
+ * {@link #getStatus()} tells which status the library returned, and the subclasses
+ * {@link DriverTimeoutException}, {@link DeviceNotFoundException} and 
+ * {@link DeviceIOException} single out the statuses a caller usually handles.
+ * 
+ * Those statuses are expected while a device is being read, for example in the 
+ * time it is unplugged, so the reads of the driver throw a shared instance for 
+ * them that has no stack trace and is not allocated again. Such an instance does
+ * not record suppressed exceptions and should not be modified. The other calls
+ * of the driver throw a new exception with a stack trace, whose message names
+ * the device.
+ * 
  * @author Ejaz Jamil, Jence.
  *
  */
 public class DriverException extends Exception {
+	private HidUartStatus status_ = null;
+
+	/**
+	 * Holds the shared instances, created on first use.
+	 */
+	private static final class Shared {
+		static final DriverException[] INSTANCES = new DriverException[HidUartStatus.values().length];
+		static {
+			for (HidUartStatus status : HidUartStatus.values()) {
+				DriverException e = create(status, status.getDescription(), false);
+				// only the statuses with a subclass are shared
+				if (e.getClass() != DriverException.class)
+					INSTANCES[status.ordinal()] = e;
+			}
+		}
+	}
 
 	public DriverException() {
 		super();
-		// TODO Auto-generated constructor stub
 	}
 
 	public DriverException(String message, Throwable cause) {
 		super(message, cause);
-		// TODO Auto-generated constructor stub
 	}
 
 	public DriverException(String message) {
 		super(message);
-		// TODO Auto-generated constructor stub
 	}
 
 	public DriverException(Throwable cause) {
 		super(cause);
-		// TODO Auto-generated constructor stub
+	}
+
+	/**
+	 * Creates the exception for a status returned by the library.
+	 * 
+	 * @param message description.
+	 * @param status status returned by the library.
+	 */
+	public DriverException(String message, HidUartStatus status) {
+		super(message);
+		status_ = status;
+	}
+
+	/**
+	 * Creates the exception for a status returned by the library, with or 
+	 * without a stack trace.
+	 * 
+	 * @param status status returned by the library.
+	 * @param message description.
+	 * @param stackTrace <false> for a shared instance, without stack trace 
+	 * and suppressed exceptions.
+	 */
+	protected DriverException(HidUartStatus status, String message, boolean stackTrace) {
+		super(message, null, stackTrace, stackTrace);
+		status_ = status;
+	}
+
+	/**
+	 * Creates the exception for a status, of the subclass that singles it out.
+	 */
+	private static DriverException create(HidUartStatus status, String message, boolean stackTrace) {
+		switch (status) {
+		case READ_TIMED_OUT:
+		case WRITE_TIMED_OUT:
+			return new DriverTimeoutException(status, message, stackTrace);
+		case DEVICE_NOT_FOUND:
+			return new DeviceNotFoundException(status, message, stackTrace);
+		case READ_ERROR:
+		case WRITE_ERROR:
+		case DEVICE_IO_FAILED:
+			return new DeviceIOException(status, message, stackTrace);
+		default:
+			return new DriverException(status, message, stackTrace);
+		}
+	}
+
+	/**
+	 * Gets the exception for a status code returned by the library. The 
+	 * expected statuses get their shared instance, see the class comment.
+	 * 
+	 * @param code status code.
+	 * @return the exception.
+	 */
+	static DriverException forStatus(int code) {
+		HidUartStatus status = HidUartStatus.fromCode(code);
+		if (status == null)
+			return new DriverException(CP2110HidDriver.getStatus(code), HidUartStatus.UNKNOWN_ERROR);
+		DriverException shared = Shared.INSTANCES[status.ordinal()];
+		if (shared != null)
+			return shared;
+		return new DriverException(status.getDescription(), status);
+	}
+
+	/**
+	 * Creates a new exception, with a stack trace, for a status code returned
+	 * by the library outside the reads.
+	 * 
+	 * @param code status code.
+	 * @param device id of the device, or null if the call is not about one.
+	 * @return the exception.
+	 */
+	static DriverException forStatus(int code, String device) {
+		HidUartStatus status = HidUartStatus.fromCode(code);
+		String message = (status != null) ? status.getDescription() : CP2110HidDriver.getStatus(code);
+		if (device != null)
+			message += " on " + device;
+		if (status == null)
+			return new DriverException(message, HidUartStatus.UNKNOWN_ERROR);
+		return create(status, message, true);
+	}
+
+	/**
+	 * Gets the status returned by the library.
+	 * 
+	 * @return the status, or null if the error did not come from the library.
+	 */
+	public HidUartStatus getStatus() {
+		return status_;
 	}
 
 }
@@ -47,6 +47,16 @@ public abstract class DriverListener {
 	private int maskBitStart_ = -1, maskBitLen_ = -1;
 	BigInteger bigdata = null;
 	BigInteger mask = null;
+	
+	// Primitive fast path. Masks of up to 63 bits are compiled into a shift and
+	// a long mask, and the value is extracted directly from the data bytes. 
+	// BigInteger is only used for wider masks or unmasked data over 8 bytes.
+	private static final int MAX_FAST_BITS = 63;
+	private static final char[] DIGITS = "0123456789abcdef".toCharArray();
+	private boolean masked_ = false;
+	private int maskShift_;
+	private long maskBits_;
+	private final char[] digits_ = new char[20];
 
 	/**
 	 * Default constructor.
@@ -67,7 +77,7 @@ public abstract class DriverListener {
 	public void setData(String device, CardType ct, byte[] d) {
 		cardType_ = ct;
 		data = d;
-		bigdata = new BigInteger(data);
+		bigdata = null;
 		deviceid_ = device;
 		onData();
 	}
@@ -113,15 +123,111 @@ public abstract class DriverListener {
 	 */
 	public void mask(int maskStartBitPosition, int maskBitLength) {
 		if (maskStartBitPosition < 0 || maskBitLength < 0) {
+			masked_ = false;
 			mask = null;
 			return;
 		}
+		if (masked_ && maskStartBitPosition == maskBitStart_ && maskBitLength == maskBitLen_)
+			return;
 		maskBitStart_ = maskStartBitPosition;
 		maskBitLen_ = maskBitLength;
-		char[] exmarks = new char[maskBitLength];
-		Arrays.fill(exmarks, '1');
-		mask = new BigInteger(new String(exmarks), 2);
-		//System.out.println(mask.toString(16));
+		maskShift_ = maskStartBitPosition - maskBitLength;
+		if (maskBitLength > 0 && maskBitLength <= MAX_FAST_BITS) {
+			maskBits_ = (1L << maskBitLength) - 1;
+			mask = null;
+		} else {
+			char[] exmarks = new char[maskBitLength];
+			Arrays.fill(exmarks, '1');
+			mask = new BigInteger(new String(exmarks), 2);
+			//System.out.println(mask.toString(16));
+		}
+		masked_ = true;
+	}
+
+	/**
+	 * Internal method that tells if the value fits the primitive fast path.
+	 * 
+	 * @return <true>, if {@link #value()} may be used.
+	 */
+	private boolean isFast() {
+		return (masked_) ? mask == null : data.length <= 8;
+	}
+
+	/**
+	 * Internal method that computes the value as a long, with the same result
+	 * as the BigInteger path. Only valid if {@link #isFast()}.
+	 * 
+	 * @return the value, masked if a mask is set.
+	 */
+	private long value() {
+		if (!masked_) {
+			// sign extended, as BigInteger reads the data as two's complement.
+			long v = data[0];
+			for (int i = 1; i < data.length; i++)
+				v = (v << 8) | (data[i] & 0xFF);
+			return v;
+		}
+		int n = maskShift_;
+		int lo = Math.max(n, 0);
+		int hi = n + maskBitLen_ - 1;
+		if (hi < 0)
+			return 0;
+		// gather the bytes holding bits lo..hi, counting bytes from the least significant one.
+		long r = 0;
+		int shift = -(lo & 7);
+		for (int b = lo >> 3; b <= (hi >> 3); b++, shift += 8) {
+			long v = byteAt(b);
+			r |= (shift >= 0) ? (v << shift) : (v >>> -shift);
+		}
+		return (r << (lo - n)) & maskBits_;
+	}
+
+	/**
+	 * Internal method that gets a byte of the data, counting from the least
+	 * significant byte. Bytes beyond the data repeat the sign.
+	 * 
+	 * @param b byte number.
+	 * @return unsigned byte value.
+	 */
+	private int byteAt(int b) {
+		if (b < data.length)
+			return data[data.length - 1 - b] & 0xFF;
+		return (data[0] < 0) ? 0xFF : 0;
+	}
+
+	/**
+	 * Internal method that formats a long into the reusable digit buffer, 
+	 * the same way as {@link Long#toString(long, int)}.
+	 * 
+	 * @param v value.
+	 * @param radix 10 or 16.
+	 * @return index of the first character in the digit buffer.
+	 */
+	private int format(long v, int radix) {
+		char[] buf = digits_;
+		int p = buf.length;
+		boolean negative = v < 0;
+		if (!negative)
+			v = -v;
+		// works on the negative value, so Long.MIN_VALUE needs no special case.
+		do {
+			buf[--p] = DIGITS[(int)-(v % radix)];
+			v /= radix;
+		} while (v != 0);
+		if (negative)
+			buf[--p] = '-';
+		return p;
+	}
+
+	/**
+	 * Internal method that returns the data as BigInteger, created when first needed.
+	 * 
+	 * @return BigInteger object.
+	 */
+	private BigInteger big() {
+		if (bigdata == null)
+			bigdata = new BigInteger(data);
+		return bigdata;
 	}
 
 	/**
@@ -132,7 +238,7 @@ public abstract class DriverListener {
 	private BigInteger applyMask() {
 		int n = maskBitStart_ - maskBitLen_;
 		//System.out.println(bigdata.toString(16));
-		BigInteger big = bigdata.shiftRight(n);
+		BigInteger big = big().shiftRight(n);
 		//System.out.println(big.toString(16));
 		big = big.and(mask);
 		//System.out.println(big.toString(16));
@@ -153,11 +259,26 @@ public abstract class DriverListener {
 	 * @return array of byte.
 	 */
 	public byte[] dataAsBytes() {
+		if (isFast())
+			return BigInteger.valueOf(value()).toByteArray();
 		if (mask != null) {
 			BigInteger big = applyMask();
 			return big.toByteArray();
 		}
-		return bigdata.toByteArray();
+		return big().toByteArray();
+	}
+
+	/**
+	 * Gets data as long after applying mask. Only valid if the mask is at most 
+	 * 63 bits long, or if there is no mask and the data is at most 8 bytes long.
+	 * 
+	 * @return data as long.
+	 * @throws IllegalStateException if the value does not fit the conditions above.
+	 */
+	public long dataAsLong() {
+		if (!isFast())
+			throw new IllegalStateException("Data does not fit a long.");
+		return value();
 	}
 
 	/**
@@ -166,11 +287,29 @@ public abstract class DriverListener {
 	 * @return data as hex. Does not contain 0x prefix.
 	 */
 	public String dataAsHex() {
+		if (isFast()) {
+			int p = format(value(), 16);
+			return new String(digits_, p, digits_.length - p);
+		}
 		if (mask != null) {
 			BigInteger big = applyMask();
 			return big.toString(16);
 		}
-		return bigdata.toString(16);
+		return big().toString(16);
+	}
+
+	/**
+	 * Same as {@link #dataAsHex()}, but writes the characters into the caller's
+	 * buffer, which does not allocate memory if the mask is at most 63 bits long.
+	 * 
+	 * @param dst destination buffer. 20 characters are enough for masks of up to 63 bits.
+	 * @param off offset in the destination buffer.
+	 * @return number of characters written.
+	 */
+	public int dataAsHex(char[] dst, int off) {
+		if (isFast())
+			return copyDigits(format(value(), 16), dst, off);
+		return copyString(dataAsHex(), dst, off);
 	}
 
 	/**
@@ -179,11 +318,40 @@ public abstract class DriverListener {
 	 * @return decimal data.
 	 */
 	public String dataAsDecimal() {
+		if (isFast()) {
+			int p = format(value(), 10);
+			return new String(digits_, p, digits_.length - p);
+		}
 		if (mask != null) {
 			BigInteger big = applyMask();
 			return big.toString(10);
 		}
-		return bigdata.toString(10);
+		return big().toString(10);
+	}
+
+	/**
+	 * Same as {@link #dataAsDecimal()}, but writes the characters into the caller's
+	 * buffer, which does not allocate memory if the mask is at most 63 bits long.
+	 * 
+	 * @param dst destination buffer. 20 characters are enough for masks of up to 63 bits.
+	 * @param off offset in the destination buffer.
+	 * @return number of characters written.
+	 */
+	public int dataAsDecimal(char[] dst, int off) {
+		if (isFast())
+			return copyDigits(format(value(), 10), dst, off);
+		return copyString(dataAsDecimal(), dst, off);
+	}
+
+	private int copyDigits(int p, char[] dst, int off) {
+		int len = digits_.length - p;
+		System.arraycopy(digits_, p, dst, off, len);
+		return len;
+	}
+
+	private static int copyString(String s, char[] dst, int off) {
+		s.getChars(0, s.length(), dst, off);
+		return s.length();
 	}
 }
 
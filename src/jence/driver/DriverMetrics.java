@@ -0,0 +1,272 @@
+/**
+ * The MIT LICENSE (MIT):
+ * 
+ * Copyright  2021 Ejaz Jamil, Jence.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of 
+ * this software and associated documentation files (the Software), to deal in 
+ * the Software without restriction, including without limitation the rights to 
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+ * of the Software, and to permit persons to whom the Software is furnished to do 
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. 
+ * 
+ */
+package jence.driver;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Counts the library calls made for one device: calls and latency per function,
+ * bytes read and written, timeouts, and errors by status. Recording is lock-free
+ * and does not allocate memory, so it can stay enabled in the read loop. 
+ * 
+ * A connected driver registers its metrics as an MXBean named 
+ * <code>jence.driver:type=CP2110,device=&lt;device id&gt;</code>. The calls not
+ * tied to a device, such as the enumeration, are registered as device "library".
+ * 
+ * @author Ejaz Jamil, Jence.
+ *
+ */
+public class DriverMetrics implements DriverMetricsMXBean {
+	private static final int HID_UART_SUCCESS = 0x00;
+	private static final int HID_UART_READ_TIMED_OUT = 0x12;
+	private static final int HID_UART_WRITE_TIMED_OUT = 0x13;
+
+	private final String device_;
+	private final LatencyHistogram[] latency_;
+	private final AtomicLongArray status_ = new AtomicLongArray(256);
+	private final StripedCounter bytesRead_ = new StripedCounter();
+	private final StripedCounter bytesWritten_ = new StripedCounter();
+	private final StripedCounter timeouts_ = new StripedCounter();
+	private final StripedCounter errors_ = new StripedCounter();
+	private final AtomicInteger listeners_ = new AtomicInteger();
+	private final AtomicLong reconnects_ = new AtomicLong();
+	private final AtomicLong downtimeNanos_ = new AtomicLong();
+	private final AtomicLong overruns_ = new AtomicLong();
+	private final AtomicLong parityErrors_ = new AtomicLong();
+	private ObjectName name_ = null;
+
+	/**
+	 * Creates the metrics.
+	 * 
+	 * @param device device ID the metrics belong to.
+	 */
+	public DriverMetrics(String device) {
+		device_ = device;
+		NativeCall[] calls = NativeCall.values();
+		latency_ = new LatencyHistogram[calls.length];
+		for (int i = 0; i < calls.length; i++)
+			latency_[i] = new LatencyHistogram();
+	}
+
+	/**
+	 * Records one library call.
+	 * 
+	 * @param call the function called.
+	 * @param status status returned.
+	 * @param startNanos {@link System#nanoTime()} before the call.
+	 */
+	void record(NativeCall call, int status, long startNanos) {
+		latency_[call.ordinal()].record(System.nanoTime() - startNanos);
+		if (status == HID_UART_SUCCESS)
+			return;
+		if (status == HID_UART_READ_TIMED_OUT || status == HID_UART_WRITE_TIMED_OUT) {
+			timeouts_.increment();
+		} else {
+			errors_.increment();
+			status_.getAndIncrement(status & 0xFF);
+		}
+	}
+
+	void addBytesRead(int n) {
+		bytesRead_.add(n);
+	}
+
+	void addBytesWritten(int n) {
+		bytesWritten_.add(n);
+	}
+
+	void listenStarted() {
+		listeners_.incrementAndGet();
+	}
+
+	void listenStopped() {
+		listeners_.decrementAndGet();
+	}
+
+	void reconnected(long downtimeNanos) {
+		reconnects_.incrementAndGet();
+		downtimeNanos_.addAndGet(downtimeNanos);
+	}
+
+	/**
+	 * Records the error flags of a <code>HidUart_GetUartStatus</code> call.
+	 * 
+	 * @param errorStatus parity and overrun flags.
+	 */
+	void uartErrors(int errorStatus) {
+		if ((errorStatus & HidUartBackend.HID_UART_OVERRUN_ERROR) != 0)
+			overruns_.incrementAndGet();
+		if ((errorStatus & HidUartBackend.HID_UART_PARITY_ERROR) != 0)
+			parityErrors_.incrementAndGet();
+	}
+
+	/**
+	 * Registers the metrics with the platform MBean server. Failures are ignored, 
+	 * the metrics keep counting either way.
+	 */
+	synchronized void register() {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName("jence.driver:type=CP2110,device=" + ObjectName.quote(device_));
+			if (server.isRegistered(name))
+				server.unregisterMBean(name);
+			server.registerMBean(this, name);
+			name_ = name;
+		} catch (Exception e) {
+			// JMX is optional
+		}
+	}
+
+	/**
+	 * Removes the metrics from the platform MBean server.
+	 */
+	synchronized void unregister() {
+		if (name_ == null)
+			return;
+		try {
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(name_);
+		} catch (Exception e) {
+			// already gone
+		}
+		name_ = null;
+	}
+
+	/**
+	 * Gets the number of calls of a library function.
+	 * 
+	 * @param call the function.
+	 * @return number of calls.
+	 */
+	public long getCallCount(NativeCall call) {
+		return latency_[call.ordinal()].count();
+	}
+
+	@Override
+	public String getDevice() {
+		return device_;
+	}
+
+	@Override
+	public Map<String, Long> getCallCounts() {
+		Map<String, Long> m = new LinkedHashMap<String, Long>();
+		for (NativeCall c : NativeCall.values())
+			m.put(c.name(), latency_[c.ordinal()].count());
+		return m;
+	}
+
+	@Override
+	public Map<String, Long> getLatencyP50Nanos() {
+		return percentiles(50);
+	}
+
+	@Override
+	public Map<String, Long> getLatencyP99Nanos() {
+		return percentiles(99);
+	}
+
+	@Override
+	public Map<String, Long> getLatencyMaxNanos() {
+		Map<String, Long> m = new LinkedHashMap<String, Long>();
+		for (NativeCall c : NativeCall.values())
+			m.put(c.name(), latency_[c.ordinal()].max());
+		return m;
+	}
+
+	private Map<String, Long> percentiles(double p) {
+		Map<String, Long> m = new LinkedHashMap<String, Long>();
+		for (NativeCall c : NativeCall.values())
+			m.put(c.name(), latency_[c.ordinal()].percentile(p));
+		return m;
+	}
+
+	@Override
+	public Map<String, Long> getErrorCounts() {
+		Map<String, Long> m = new LinkedHashMap<String, Long>();
+		for (int i = 0; i < status_.length(); i++) {
+			long n = status_.get(i);
+			if (n > 0)
+				m.put(CP2110HidDriver.getStatus(i) + " (0x" + Integer.toHexString(i) + ")", n);
+		}
+		return m;
+	}
+
+	@Override
+	public long getBytesRead() {
+		return bytesRead_.sum();
+	}
+
+	@Override
+	public long getBytesWritten() {
+		return bytesWritten_.sum();
+	}
+
+	@Override
+	public long getTimeouts() {
+		return timeouts_.sum();
+	}
+
+	@Override
+	public long getErrors() {
+		return errors_.sum();
+	}
+
+	@Override
+	public int getActiveListeners() {
+		return listeners_.get();
+	}
+
+	@Override
+	public String getListenState() {
+		return (listeners_.get() > 0) ? "LISTENING" : "IDLE";
+	}
+
+	@Override
+	public long getReconnects() {
+		return reconnects_.get();
+	}
+
+	@Override
+	public long getDowntimeMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(downtimeNanos_.get());
+	}
+
+	@Override
+	public long getOverruns() {
+		return overruns_.get();
+	}
+
+	@Override
+	public long getParityErrors() {
+		return parityErrors_.get();
+	}
+}
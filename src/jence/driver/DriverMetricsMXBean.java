@@ -0,0 +1,116 @@
+/**
+ * The MIT LICENSE (MIT):
+ * 
+ * Copyright  2021 Ejaz Jamil, Jence.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of 
+ * this software and associated documentation files (the Software), to deal in 
+ * the Software without restriction, including without limitation the rights to 
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+ * of the Software, and to permit persons to whom the Software is furnished to do 
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. 
+ * 
+ */
+package jence.driver;
+
+import java.util.Map;
+
+/**
+ * Management interface of {@link DriverMetrics}. Maps are keyed by
+ * {@link NativeCall} name or by status description.
+ * 
+ * @author Ejaz Jamil, Jence.
+ *
+ */
+public interface DriverMetricsMXBean {
+	/**
+	 * @return device ID, or "library" for the calls not tied to a device.
+	 */
+	String getDevice();
+
+	/**
+	 * @return number of calls per library function.
+	 */
+	Map<String, Long> getCallCounts();
+
+	/**
+	 * @return median latency per library function, in nanoseconds.
+	 */
+	Map<String, Long> getLatencyP50Nanos();
+
+	/**
+	 * @return 99th percentile latency per library function, in nanoseconds.
+	 */
+	Map<String, Long> getLatencyP99Nanos();
+
+	/**
+	 * @return largest latency per library function, in nanoseconds.
+	 */
+	Map<String, Long> getLatencyMaxNanos();
+
+	/**
+	 * @return number of failed calls per status.
+	 */
+	Map<String, Long> getErrorCounts();
+
+	/**
+	 * @return total bytes read.
+	 */
+	long getBytesRead();
+
+	/**
+	 * @return total bytes written.
+	 */
+	long getBytesWritten();
+
+	/**
+	 * @return number of reads and writes that ended with a timeout.
+	 */
+	long getTimeouts();
+
+	/**
+	 * @return number of calls that failed, timeouts excluded.
+	 */
+	long getErrors();
+
+	/**
+	 * @return number of listen loops running on the device.
+	 */
+	int getActiveListeners();
+
+	/**
+	 * @return LISTENING if a listen loop is running, IDLE otherwise.
+	 */
+	String getListenState();
+
+	/**
+	 * @return number of times a supervised connection got the device back after losing it.
+	 */
+	long getReconnects();
+
+	/**
+	 * @return total time from losing the device to getting it back, in milliseconds.
+	 */
+	long getDowntimeMillis();
+
+	/**
+	 * @return number of UART status reports that showed received data lost because
+	 * the receive FIFO was full, a sign that the host reads too slowly.
+	 */
+	long getOverruns();
+
+	/**
+	 * @return number of UART status reports that showed a parity error.
+	 */
+	long getParityErrors();
+}
@@ -0,0 +1,56 @@
+/**
+ * The MIT LICENSE (MIT):
+ * 
+ * Copyright  2021 Ejaz Jamil, Jence.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of 
+ * this software and associated documentation files (the Software), to deal in 
+ * the Software without restriction, including without limitation the rights to 
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+ * of the Software, and to permit persons to whom the Software is furnished to do 
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. 
+ * 
+ */
+package jence.driver;
+
+/**
+ * Thrown when a read or a write did not complete within its timeout. The reads
+ * of the driver return zero bytes instead, and the writes return the number of
+ * bytes written, so this exception mostly comes from the asynchronous calls and 
+ * from the library calls made by a {@link HidUartBackend} user.
+ * 
+ * @author Ejaz Jamil, Jence.
+ *
+ */
+public class DriverTimeoutException extends DriverException {
+
+	/**
+	 * Creates the exception, with the status {@link HidUartStatus#READ_TIMED_OUT}.
+	 * 
+	 * @param message description.
+	 */
+	public DriverTimeoutException(String message) {
+		super(message, HidUartStatus.READ_TIMED_OUT);
+	}
+
+	/**
+	 * Creates the exception for a timeout status of the library.
+	 * 
+	 * @param status {@link HidUartStatus#READ_TIMED_OUT} or {@link HidUartStatus#WRITE_TIMED_OUT}.
+	 * @param message description.
+	 * @param stackTrace <false> for a shared instance, see {@link DriverException}.
+	 */
+	DriverTimeoutException(HidUartStatus status, String message, boolean stackTrace) {
+		super(status, message, stackTrace);
+	}
+}
@@ -0,0 +1,111 @@
+/**
+ * The MIT LICENSE (MIT):
+ * 
+ * Copyright  2021 Ejaz Jamil, Jence.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of 
+ * this software and associated documentation files (the Software), to deal in 
+ * the Software without restriction, including without limitation the rights to 
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+ * of the Software, and to permit persons to whom the Software is furnished to do 
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. 
+ * 
+ */
+package jence.driver;
+
+/**
+ * Immutable record of one frame delivered by a device, as collected by a
+ * {@link FrameBatcher}.
+ * 
+ * @author Ejaz Jamil, Jence.
+ *
+ */
+public final class Frame {
+	private final String deviceid_;
+	private final DriverListener.CardType cardType_;
+	private final long timestamp_;
+	private final byte[] data_;
+
+	/**
+	 * Creates the frame. The data array is kept, not copied, and must not
+	 * be modified afterwards.
+	 * 
+	 * @param deviceid device id.
+	 * @param cardType card type.
+	 * @param timestamp arrival time in milliseconds since the epoch.
+	 * @param data frame data.
+	 */
+	public Frame(String deviceid, DriverListener.CardType cardType, long timestamp, byte[] data) {
+		deviceid_ = deviceid;
+		cardType_ = cardType;
+		timestamp_ = timestamp;
+		data_ = data;
+	}
+
+	/**
+	 * Gets the device ID that generated the data.
+	 * 
+	 * @return device id as String.
+	 */
+	public String getDeviceId() {
+		return deviceid_;
+	}
+
+	/**
+	 * Gets card type.
+	 * 
+	 * @return card type.
+	 */
+	public DriverListener.CardType getCardType() {
+		return cardType_;
+	}
+
+	/**
+	 * Gets the arrival time.
+	 * 
+	 * @return time in milliseconds since the epoch.
+	 */
+	public long getTimestamp() {
+		return timestamp_;
+	}
+
+	/**
+	 * Gets data size.
+	 * 
+	 * @return size in bytes.
+	 */
+	public int getSize() {
+		return data_.length;
+	}
+
+	/**
+	 * Gets a copy of the data.
+	 * 
+	 * @return data as byte array.
+	 */
+	public byte[] getData() {
+		return data_.clone();
+	}
+
+	/**
+	 * Copies the data into the caller's array.
+	 * 
+	 * @param dst destination array.
+	 * @param off offset in the destination array.
+	 * @return number of bytes copied.
+	 */
+	public int getData(byte[] dst, int off) {
+		System.arraycopy(data_, 0, dst, off, data_.length);
+		return data_.length;
+	}
+}
@@ -0,0 +1,222 @@
+/**
+ * The MIT LICENSE (MIT):
+ * 
+ * Copyright  2021 Ejaz Jamil, Jence.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of 
+ * this software and associated documentation files (the Software), to deal in 
+ * the Software without restriction, including without limitation the rights to 
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+ * of the Software, and to permit persons to whom the Software is furnished to do 
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. 
+ * 
+ */
+package jence.driver;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link DriverListener} that collects frames and hands them to a 
+ * {@link BatchListener} in batches, according to a {@link BatchPolicy}.
+ * One batcher may be passed to the listen methods of several drivers, each
+ * frame records the device it came from. Batches are delivered one at a time
+ * and in arrival order, outside the lock of the batcher: other devices keep 
+ * adding frames while a batch is being delivered, only a device whose frame 
+ * completes the next batch waits for it.
+ * 
+ * <pre>
+ * FrameBatcher batcher = new FrameBatcher(new BatchPolicy(100, 0, 50), sink);
+ * hid.listen(deviceid, batcher, null);
+ * </pre>
+ * 
+ * @author Ejaz Jamil, Jence.
+ *
+ */
+public class FrameBatcher extends DriverListener implements Closeable {
+	private final BatchPolicy policy_;
+	private final BatchListener listener_;
+	private final ScheduledExecutorService executor_;
+	// runs the linger flushes when no executor is given, started on demand
+	private ScheduledThreadPoolExecutor timer_ = null;
+	private ArrayList<Frame> frames_;
+	private int bytes_ = 0;
+	private ScheduledFuture<?> linger_ = null;
+	// batches taken out and not yet delivered, oldest first
+	private final ArrayDeque<List<Frame>> ready_ = new ArrayDeque<List<Frame>>();
+	// held while delivering, so that batches are delivered one at a time and in order
+	private final Object delivery_ = new Object();
+	private final Runnable flushTask_ = new Runnable() {
+		@Override
+		public void run() {
+			flush();
+		}
+	};
+
+	/**
+	 * Creates the batcher. Batches that reach their linger time are delivered
+	 * on a thread of the batcher, which ends after a second without work.
+	 * 
+	 * @param policy batching limits.
+	 * @param listener receives the batches.
+	 */
+	public FrameBatcher(BatchPolicy policy, BatchListener listener) {
+		this(policy, listener, null);
+	}
+
+	/**
+	 * Creates the batcher.
+	 * 
+	 * @param policy batching limits.
+	 * @param listener receives the batches.
+	 * @param executor runs the linger flushes, and so delivers the batches that
+	 * reach their linger time. Null for a thread of the batcher.
+	 */
+	public FrameBatcher(BatchPolicy policy, BatchListener listener, ScheduledExecutorService executor) {
+		if (listener == null)
+			throw new IllegalArgumentException("Listener must not be null.");
+		policy_ = policy;
+		listener_ = listener;
+		executor_ = executor;
+		frames_ = new ArrayList<Frame>(policy.getMaxFrames());
+	}
+
+	/**
+	 * Adds the frame to the current batch. Does not call {@link #onData()}.
+	 */
+	@Override
+	public void setData(String device, CardType ct, byte[] d) {
+		add(new Frame(device, ct, System.currentTimeMillis(), d));
+	}
+
+	/**
+	 * Not used, frames are collected by {@link #setData(String, CardType, byte[])}.
+	 */
+	@Override
+	protected void onData() {
+	}
+
+	/**
+	 * Adds a frame to the current batch, and delivers the batch if a limit is reached.
+	 * 
+	 * @param frame the frame.
+	 */
+	public void add(Frame frame) {
+		synchronized (this) {
+			frames_.add(frame);
+			bytes_ += frame.getSize();
+			if (frames_.size() < policy_.getMaxFrames() 
+					&& (policy_.getMaxBytes() <= 0 || bytes_ < policy_.getMaxBytes())) {
+				if (linger_ == null)
+					linger_ = timer().schedule(flushTask_, policy_.getMaxLingerMillis(), TimeUnit.MILLISECONDS);
+				return;
+			}
+			ready_.add(take());
+		}
+		deliver();
+	}
+
+	/**
+	 * Delivers the pending frames now, if there are any.
+	 */
+	public void flush() {
+		synchronized (this) {
+			if (!frames_.isEmpty())
+				ready_.add(take());
+		}
+		deliver();
+	}
+
+	/**
+	 * Delivers the pending frames and stops the thread of the batcher, if it
+	 * has one. A frame added later starts it again.
+	 */
+	@Override
+	public void close() {
+		flush();
+		ScheduledThreadPoolExecutor timer;
+		synchronized (this) {
+			timer = timer_;
+			timer_ = null;
+		}
+		if (timer != null)
+			timer.shutdown();
+	}
+
+	/**
+	 * Internal method that takes out the current batch. Called with the lock held.
+	 * 
+	 * @return the batch as read only list.
+	 */
+	private List<Frame> take() {
+		if (linger_ != null) {
+			linger_.cancel(false);
+			linger_ = null;
+		}
+		List<Frame> batch = Collections.unmodifiableList(frames_);
+		frames_ = new ArrayList<Frame>(policy_.getMaxFrames());
+		bytes_ = 0;
+		return batch;
+	}
+
+	/**
+	 * Internal method that delivers the batches taken out so far, oldest first.
+	 * Called without the lock held.
+	 */
+	private void deliver() {
+		synchronized (delivery_) {
+			for (;;) {
+				List<Frame> batch;
+				synchronized (this) {
+					batch = ready_.poll();
+				}
+				if (batch == null)
+					return;
+				listener_.onBatch(batch);
+			}
+		}
+	}
+
+	/**
+	 * Internal method that returns the executor of the linger flushes. Called
+	 * with the lock held.
+	 * 
+	 * @return the executor.
+	 */
+	private ScheduledExecutorService timer() {
+		if (executor_ != null)
+			return executor_;
+		if (timer_ == null) {
+			timer_ = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread t = new Thread(r, "CP2110-batch-timer");
+					t.setDaemon(true);
+					return t;
+				}
+			});
+			timer_.setKeepAliveTime(1, TimeUnit.SECONDS);
+			timer_.allowCoreThreadTimeOut(true);
+			timer_.setRemoveOnCancelPolicy(true);
+		}
+		return timer_;
+	}
+}
@@ -0,0 +1,191 @@
+/**
+ * The MIT LICENSE (MIT):
+ * 
+ * Copyright  2021 Ejaz Jamil, Jence.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of 
+ * this software and associated documentation files (the Software), to deal in 
+ * the Software without restriction, including without limitation the rights to 
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+ * of the Software, and to permit persons to whom the Software is furnished to do 
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. 
+ * 
+ */
+package jence.driver;
+
+import java.util.Arrays;
+
+/**
+ * Splits the raw data read from the device into frames. A frame may be split 
+ * across several reads, and a read may contain several frames. The data is 
+ * appended with {@link #append(byte[], int, int)} and the complete frames are
+ * taken out with {@link #next()}:
+ * 
+ * <pre>
+ * framer.append(buffer, 0, n);
+ * byte[] frame;
+ * while ((frame = framer.next()) != null) {
+ *     ...
+ * }
+ * </pre>
+ * 
+ * The bytes are copied once into an internal buffer and the search for the 
+ * end of a frame resumes where the previous search stopped. A framer keeps
+ * state between reads and must only be used by one thread. Install it on the
+ * driver with {@link CP2110HidDriver#setFramer(Framer)}.
+ * 
+ * @author Ejaz Jamil, Jence.
+ *
+ */
+public abstract class Framer {
+	/**
+	 * Default limit for the length of a frame.
+	 */
+	public static final int DEFAULT_MAX_FRAME_LENGTH = 4096;
+
+	private final int maxFrameLength_;
+	private byte[] buf_;
+	private int start_ = 0;
+	private int end_ = 0;
+	private long discarded_ = 0;
+
+	/**
+	 * Number of bytes after the start of the pending frame that were already 
+	 * searched without finding its end. Maintained by {@link #decode(byte[], int, int)}
+	 * and reset when a frame is taken out.
+	 */
+	protected int scanned = 0;
+	/**
+	 * Offset of the payload of the frame found by {@link #decode(byte[], int, int)}.
+	 */
+	protected int frameOffset;
+	/**
+	 * Length of the payload of the frame found by {@link #decode(byte[], int, int)}.
+	 */
+	protected int frameLength;
+
+	/**
+	 * Creates the framer.
+	 * 
+	 * @param maxFrameLength pending data longer than this without a complete frame is discarded.
+	 */
+	protected Framer(int maxFrameLength) {
+		if (maxFrameLength < 1)
+			throw new IllegalArgumentException("Invalid frame length "+maxFrameLength);
+		maxFrameLength_ = maxFrameLength;
+		buf_ = new byte[Math.min(maxFrameLength, 256)];
+	}
+
+	/**
+	 * Looks for the next complete frame in the pending data. When found, sets
+	 * {@link #frameOffset} and {@link #frameLength} to the payload of the frame.
+	 * 
+	 * @param buf internal buffer.
+	 * @param start offset of the first pending byte.
+	 * @param end offset after the last pending byte.
+	 * @return offset after the frame, or -1 if the frame is not complete yet.
+	 */
+	protected abstract int decode(byte[] buf, int start, int end);
+
+	/**
+	 * Appends data read from the device.
+	 * 
+	 * @param data data read.
+	 * @param off offset in the data.
+	 * @param len number of bytes.
+	 */
+	public void append(byte[] data, int off, int len) {
+		if (end_ + len > buf_.length) {
+			int pending = end_ - start_;
+			byte[] dst = buf_;
+			if (pending + len > buf_.length)
+				dst = new byte[Math.max(buf_.length * 2, pending + len)];
+			System.arraycopy(buf_, start_, dst, 0, pending);
+			buf_ = dst;
+			start_ = 0;
+			end_ = pending;
+		}
+		System.arraycopy(data, off, buf_, end_, len);
+		end_ += len;
+	}
+
+	/**
+	 * Takes out the next complete frame.
+	 * 
+	 * @return the payload of the frame, or null if there is no complete frame.
+	 */
+	public byte[] next() {
+		int r = decode(buf_, start_, end_);
+		if (r < 0) {
+			if (end_ - start_ > maxFrameLength_) {
+				// no frame boundary within the limit, resynchronize on new data.
+				discarded_++;
+				reset();
+			}
+			return null;
+		}
+		byte[] frame = Arrays.copyOfRange(buf_, frameOffset, frameOffset + frameLength);
+		start_ = r;
+		scanned = 0;
+		if (start_ == end_)
+			start_ = end_ = 0;
+		return frame;
+	}
+
+	/**
+	 * Drops pending bytes that cannot be part of a frame, for example the bytes
+	 * before a start marker.
+	 * 
+	 * @param count number of bytes to drop from the start of the pending data.
+	 */
+	protected void skip(int count) {
+		start_ += count;
+		scanned = Math.max(0, scanned - count);
+	}
+
+	/**
+	 * Discards all pending data.
+	 */
+	public void reset() {
+		start_ = end_ = 0;
+		scanned = 0;
+	}
+
+	/**
+	 * Gets the number of bytes waiting for the rest of their frame.
+	 * 
+	 * @return pending bytes.
+	 */
+	public int getPending() {
+		return end_ - start_;
+	}
+
+	/**
+	 * Gets the number of times pending data was discarded because no frame
+	 * was found within the maximum frame length.
+	 * 
+	 * @return discard count.
+	 */
+	public long getDiscarded() {
+		return discarded_;
+	}
+
+	/**
+	 * Gets the maximum frame length.
+	 * 
+	 * @return length in bytes.
+	 */
+	public int getMaxFrameLength() {
+		return maxFrameLength_;
+	}
+}
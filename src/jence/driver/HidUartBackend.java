@@ -0,0 +1,129 @@
+/**
+ * The MIT LICENSE (MIT):
+ * 
+ * Copyright  2021 Ejaz Jamil, Jence.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of 
+ * this software and associated documentation files (the Software), to deal in 
+ * the Software without restriction, including without limitation the rights to 
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+ * of the Software, and to permit persons to whom the Software is furnished to do 
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. 
+ * 
+ */
+package jence.driver;
+
+import com.sun.jna.Pointer;
+import com.sun.jna.ptr.IntByReference;
+
+/**
+ * The calls the driver makes into the SiLabs HID to UART library. By default
+ * they are served by <code>SLABHIDtoUART</code> through JNA. Another implementation
+ * can be installed with {@link CP2110HidDriver#setBackend(HidUartBackend)},
+ * for example {@link SimulatedCP2110} to run without the chip.
+ * <p>
+ * The methods follow the C API. Each returns one of the <code>HID_UART_*</code>
+ * status codes below and hands back its results through the array or 
+ * reference arguments. An implementation must be safe to call from several
+ * threads, each working on its own device handle.
+ * 
+ * @author Ejaz Jamil, Jence.
+ *
+ */
+public interface HidUartBackend {
+	byte HID_UART_SUCCESS				= 0x00;
+	byte HID_UART_DEVICE_NOT_FOUND		= 0x01;
+	byte HID_UART_INVALID_HANDLE		= 0x02;
+	byte HID_UART_INVALID_DEVICE_OBJECT	= 0x03;
+	byte HID_UART_INVALID_PARAMETER		= 0x04;
+	byte HID_UART_INVALID_REQUEST_LENGTH	= 0x05;
+
+	byte HID_UART_READ_ERROR			= 0x10;
+	byte HID_UART_WRITE_ERROR			= 0x11;
+	byte HID_UART_READ_TIMED_OUT		= 0x12;
+	byte HID_UART_WRITE_TIMED_OUT		= 0x13;
+	byte HID_UART_DEVICE_IO_FAILED		= 0x14;
+	byte HID_UART_DEVICE_ACCESS_ERROR	= 0x15;
+	byte HID_UART_DEVICE_NOT_SUPPORTED	= 0x16;
+
+	byte HID_UART_UNKNOWN_ERROR			= (byte)0xFF;
+
+	// Error Status bits of HidUart_GetUartStatus
+	byte HID_UART_PARITY_ERROR			= 0x01;
+	byte HID_UART_OVERRUN_ERROR			= 0x02;
+
+	/**
+	 * Gets the version of the library.
+	 */
+	byte HidUart_GetLibraryVersion(byte[] major, byte[] minor, boolean[] release);
+	/**
+	 * Gets the version of the HID library underneath.
+	 */
+	byte HidUart_GetHidLibraryVersion(byte[] major, byte[] minor, boolean[] release);
+	/**
+	 * Counts the attached devices matching the vid and pid, 0 matches any.
+	 */
+	byte HidUart_GetNumDevices(int[] numDevices, short vid, short pid);
+	/**
+	 * Gets a NULL terminated string of an attached device by its index.
+	 */
+	byte HidUart_GetString(int deviceNum, short vid, short pid, byte[] deviceString, int options);
+	/**
+	 * Sets opened to 1 if the handle is open, 0 if not, for example when the
+	 * device was unplugged.
+	 */
+	byte HidUart_IsOpened(long device, IntByReference opened);
+	/**
+	 * Opens the device at the index and returns its handle in device[0].
+	 */
+	byte HidUart_Open(long[] device, int deviceNum, short vid, short pid);
+	/**
+	 * Gets the part number and the firmware version.
+	 */
+	byte HidUart_GetPartNumber(long device, byte[] partNumber, byte[] version);
+	/**
+	 * Sets the baud rate, data bits, parity, stop bits and flow control.
+	 */
+	byte HidUart_SetUartConfig(long device, int baudRate, byte dataBits, byte parity, byte stopBits, byte flowControl);
+	/**
+	 * Gets the bytes held in the transmit and receive FIFOs, the error 
+	 * status bits, which are cleared by the call, and the line break status.
+	 */
+	byte HidUart_GetUartStatus(long device, short[] transmitFifoSize, short[] receiveFifoSize, byte[] errorStatus, byte[] lineBreakStatus);
+	/**
+	 * Gets the UART configuration.
+	 */
+	byte HidUart_GetUartConfig(long device, int[] baudRate, byte[] dataBits, byte[] parity, byte[] stopBits, byte[] flowControl);
+	/**
+	 * Sets the read and write timeouts in milliseconds.
+	 */
+	byte HidUart_SetTimeouts(long device, int readTimeout, int writeTimeout);
+	/**
+	 * Gets a NULL terminated string of an open device.
+	 */
+	byte HidUart_GetOpenedString(long device, byte[] deviceString, int options);
+	/**
+	 * Closes the handle.
+	 */
+	byte HidUart_Close(long device);
+	/**
+	 * Reads up to numBytesToRead bytes. Returns HID_UART_SUCCESS when all were
+	 * read and HID_UART_READ_TIMED_OUT when fewer arrived within the read timeout.
+	 */
+	byte HidUart_Read(long device, Pointer buffer, int numBytesToRead, IntByReference numBytesRead);
+	/**
+	 * Writes numBytesToWrite bytes. Returns HID_UART_WRITE_TIMED_OUT when not 
+	 * all could be sent within the write timeout.
+	 */
+	byte HidUart_Write(long device, Pointer buffer, int numBytesToWrite, IntByReference numBytesWritten);
+}
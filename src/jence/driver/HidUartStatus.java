@@ -0,0 +1,100 @@
+/**
+ * The MIT LICENSE (MIT):
+ * 
+ * Copyright  2021 Ejaz Jamil, Jence.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of 
+ * this software and associated documentation files (the Software), to deal in 
+ * the Software without restriction, including without limitation the rights to 
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+ * of the Software, and to permit persons to whom the Software is furnished to do 
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. 
+ * 
+ */
+package jence.driver;
+
+/**
+ * Status codes returned by the SiLabs library, as carried by {@link DriverException}.
+ * 
+ * @author Ejaz Jamil, Jence.
+ *
+ */
+public enum HidUartStatus {
+	SUCCESS					(0x00, "Success"),
+	DEVICE_NOT_FOUND		(0x01, "Device not found"),
+	INVALID_HANDLE			(0x02, "Invalid handle"),
+	INVALID_DEVICE_OBJECT	(0x03, "Invalid device object"),
+	INVALID_PARAMETER		(0x04, "Invalid parameter"),
+	INVALID_REQUEST_LENGTH	(0x05, "Invalid request length"),
+
+	READ_ERROR				(0x10, "Read error"),
+	WRITE_ERROR				(0x11, "Write error"),
+	READ_TIMED_OUT			(0x12, "Read timed out"),
+	WRITE_TIMED_OUT			(0x13, "Write timed out"),
+	DEVICE_IO_FAILED		(0x14, "Device I/O failed"),
+	DEVICE_ACCESS_ERROR		(0x15, "Device access error"),
+	DEVICE_NOT_SUPPORTED	(0x16, "Device not supported"),
+
+	UNKNOWN_ERROR			(0xFF, "Unknown error");
+
+	private static final HidUartStatus[] CODES = new HidUartStatus[256];
+	static {
+		for (HidUartStatus status : values())
+			CODES[status.code_] = status;
+	}
+
+	private final int code_;
+	private final String description_;
+
+	private HidUartStatus(int code, String description) {
+		code_ = code;
+		description_ = description;
+	}
+
+	/**
+	 * Gets the status for a code returned by the library.
+	 * 
+	 * @param code status code, as returned by the library. Only the low 8 bits are used.
+	 * @return the status, or null if the code is not a known status.
+	 */
+	public static HidUartStatus fromCode(int code) {
+		return CODES[code & 0xFF];
+	}
+
+	/**
+	 * Gets the code of the status, as returned by the library.
+	 * 
+	 * @return status code.
+	 */
+	public int getCode() {
+		return code_;
+	}
+
+	/**
+	 * Gets the description of the status.
+	 * 
+	 * @return description.
+	 */
+	public String getDescription() {
+		return description_;
+	}
+
+	/**
+	 * Checks if the status is a read or write timeout.
+	 * 
+	 * @return <true>, if timed out.
+	 */
+	public boolean isTimeout() {
+		return this == READ_TIMED_OUT || this == WRITE_TIMED_OUT;
+	}
+}
@@ -0,0 +1,629 @@
+/**
+ * The MIT LICENSE (MIT):
+ * 
+ * Copyright  2021 Ejaz Jamil, Jence.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of 
+ * this software and associated documentation files (the Software), to deal in 
+ * the Software without restriction, including without limitation the rights to 
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+ * of the Software, and to permit persons to whom the Software is furnished to do 
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. 
+ * 
+ */
+package jence.driver;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.sun.jna.Library;
+import com.sun.jna.Native;
+import com.sun.jna.NativeLong;
+import com.sun.jna.Pointer;
+import com.sun.jna.ptr.IntByReference;
+
+/**
+ * Linux backend that talks to the CP2110 through its <code>/dev/hidrawN</code> 
+ * node, without the SiLabs shared library.
+ * <p>
+ * The CP2110 carries the UART data in interrupt reports whose report ID is the
+ * number of data bytes, 1 to 63. They are read with a direct {@link ByteBuffer}
+ * through a {@link FileChannel} and written through a {@link FileOutputStream},
+ * which an interrupt of the writing thread does not close, unlike a channel.
+ * A daemon thread per open device reads the 
+ * input reports into a receive buffer, from which <code>HidUart_Read</code> 
+ * takes the bytes within the read timeout. The UART configuration, status and
+ * version are feature reports, sent with the hidraw ioctls through the C library.
+ * <p>
+ * The devices are found in <code>/sys/class/hidraw</code> by vendor and product
+ * id, or given as a list of nodes. A node that is not a hidraw device, such as a
+ * named pipe used to test, is read and written the same way while the feature
+ * reports are kept in memory. The write timeout is not applied, since hidraw
+ * writes block until the report is sent.
+ * <p>
+ * Usage:
+ * <pre>
+ * CP2110HidDriver.setBackend(new HidrawBackend());
+ * </pre>
+ * 
+ * @author Ejaz Jamil, Jence.
+ *
+ */
+public class HidrawBackend implements HidUartBackend {
+	private static final String SYSFS = "/sys/class/hidraw";
+	private static final int REPORT_SIZE = 64;
+	private static final int MAX_DATA = REPORT_SIZE - 1;
+	private static final int RX_SIZE = 65536;
+
+	// Feature reports
+	private static final int GET_SET_UART_ENABLE = 0x41;
+	private static final int GET_UART_STATUS = 0x42;
+	private static final int GET_VERSION_INFORMATION = 0x46;
+	private static final int GET_SET_UART_CONFIG = 0x50;
+
+	private static final int O_RDWR = 2;
+
+	private interface CLibrary extends Library {
+		int open(String path, int flags);
+		int close(int fd);
+		int ioctl(int fd, NativeLong request, byte[] report);
+	}
+
+	private static CLibrary libc;
+	private static boolean libcLoaded;
+
+	private final short vid_;
+	private final short pid_;
+	private final String[] nodes_;
+	private final ConcurrentHashMap<Long, Handle> handles_ = new ConcurrentHashMap<Long, Handle>();
+	private final AtomicLong nextHandle_ = new AtomicLong(1);
+
+	/**
+	 * A node and what is known of it.
+	 */
+	private static final class Node {
+		final String path;
+		final String[] strings = new String[7];
+
+		Node(String path) {
+			this.path = path;
+		}
+	}
+
+	/**
+	 * An open device.
+	 */
+	private static final class Handle implements Runnable {
+		private final Node node_;
+		private final FileChannel reader_;
+		private final FileOutputStream writer_;
+		private final int fd_;
+		private final ByteBuffer in_ = ByteBuffer.allocateDirect(REPORT_SIZE * 16);
+		private final byte[] out_ = new byte[REPORT_SIZE];
+		private final byte[] rx_ = new byte[RX_SIZE];
+		private int rxHead_, rxCount_;
+		private int need_;
+		private int errorStatus_;
+		private IOException error_;
+		private boolean closed_;
+		private int readTimeout_;
+		// feature reports of a node that is not a hidraw device
+		private final byte[] config_ = {GET_SET_UART_CONFIG, 0x00, 0x01, (byte)0xC2, 0x00, 0x00, 0x00, 0x03, 0x00};
+
+		Handle(Node node, FileChannel reader, FileOutputStream writer, int fd) {
+			node_ = node;
+			reader_ = reader;
+			writer_ = writer;
+			fd_ = fd;
+		}
+
+		/**
+		 * Reads the input reports into the receive buffer until closed.
+		 */
+		@Override
+		public void run() {
+			try {
+				while (true) {
+					in_.clear();
+					if (reader_.read(in_) < 0)
+						break;
+					in_.flip();
+					receive(in_);
+				}
+			} catch (IOException e) {
+				synchronized (this) {
+					if (!closed_)
+						error_ = e;
+					notifyAll();
+				}
+			}
+		}
+
+		/**
+		 * Takes the data out of the input reports. A report may be split
+		 * across reads of a pipe.
+		 */
+		private synchronized void receive(ByteBuffer in) {
+			while (in.hasRemaining()) {
+				if (need_ == 0) {
+					int id = in.get() & 0xFF;
+					if (id <= MAX_DATA)
+						need_ = id;
+					continue;
+				}
+				int n = Math.min(need_, in.remaining());
+				need_ -= n;
+				int space = RX_SIZE - rxCount_;
+				if (n > space) {
+					errorStatus_ |= HID_UART_OVERRUN_ERROR;
+					in.position(in.position() + n - space);
+					n = space;
+				}
+				while (n > 0) {
+					int tail = (rxHead_ + rxCount_) % RX_SIZE;
+					int k = Math.min(n, RX_SIZE - tail);
+					in.get(rx_, tail, k);
+					rxCount_ += k;
+					n -= k;
+				}
+			}
+			notifyAll();
+		}
+
+		synchronized byte read(Pointer buffer, int len, IntByReference numBytesRead) {
+			numBytesRead.setValue(0);
+			if (len < CP2110HidDriver.HID_UART_MIN_READ_SIZE || len > CP2110HidDriver.HID_UART_MAX_READ_SIZE)
+				return HID_UART_INVALID_REQUEST_LENGTH;
+			long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(readTimeout_);
+			long wait;
+			while (rxCount_ < len && error_ == null && !closed_ && (wait = deadline - System.nanoTime()) > 0) {
+				try {
+					TimeUnit.NANOSECONDS.timedWait(this, wait);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					break;
+				}
+			}
+			if (rxCount_ == 0 && error_ != null)
+				return HID_UART_DEVICE_IO_FAILED;
+			int n = Math.min(len, rxCount_);
+			int first = Math.min(n, RX_SIZE - rxHead_);
+			buffer.write(0, rx_, rxHead_, first);
+			if (n > first)
+				buffer.write(first, rx_, 0, n - first);
+			rxHead_ = (rxHead_ + n) % RX_SIZE;
+			rxCount_ -= n;
+			numBytesRead.setValue(n);
+			return (n == len) ? HID_UART_SUCCESS : HID_UART_READ_TIMED_OUT;
+		}
+
+		byte write(Pointer buffer, int len, IntByReference numBytesWritten) {
+			numBytesWritten.setValue(0);
+			if (len < CP2110HidDriver.HID_UART_MIN_WRITE_SIZE || len > CP2110HidDriver.HID_UART_MAX_WRITE_SIZE)
+				return HID_UART_INVALID_REQUEST_LENGTH;
+			synchronized (out_) {
+				int done = 0;
+				try {
+					while (done < len) {
+						int n = Math.min(MAX_DATA, len - done);
+						out_[0] = (byte)n;
+						buffer.read(done, out_, 1, n);
+						writer_.write(out_, 0, n + 1);
+						done += n;
+						numBytesWritten.setValue(done);
+					}
+				} catch (IOException e) {
+					return (done > 0) ? HID_UART_WRITE_ERROR : HID_UART_DEVICE_IO_FAILED;
+				}
+			}
+			return HID_UART_SUCCESS;
+		}
+
+		synchronized byte setTimeouts(int readTimeout) {
+			readTimeout_ = readTimeout;
+			return HID_UART_SUCCESS;
+		}
+
+		/**
+		 * Gets a feature report into report, whose first byte is the report ID.
+		 */
+		byte getFeature(byte[] report) {
+			if (fd_ < 0) {
+				Arrays.fill(report, 1, report.length, (byte)0);
+				if (report[0] == GET_SET_UART_CONFIG) {
+					synchronized (this) {
+						System.arraycopy(config_, 0, report, 0, report.length);
+					}
+				} else if (report[0] == GET_VERSION_INFORMATION) {
+					report[1] = 0x0A;
+					report[2] = 1;
+				}
+				return HID_UART_SUCCESS;
+			}
+			return ioctl(fd_, 0x07, report) < 0 ? HID_UART_DEVICE_IO_FAILED : HID_UART_SUCCESS;
+		}
+
+		/**
+		 * Sends a feature report, whose first byte is the report ID.
+		 */
+		byte setFeature(byte[] report) {
+			if (fd_ < 0) {
+				if (report[0] == GET_SET_UART_CONFIG) {
+					synchronized (this) {
+						System.arraycopy(report, 0, config_, 0, report.length);
+					}
+				}
+				return HID_UART_SUCCESS;
+			}
+			return ioctl(fd_, 0x06, report) < 0 ? HID_UART_DEVICE_IO_FAILED : HID_UART_SUCCESS;
+		}
+
+		synchronized int takeErrorStatus() {
+			int status = errorStatus_;
+			errorStatus_ = 0;
+			return status;
+		}
+
+		synchronized int received() {
+			return rxCount_;
+		}
+
+		synchronized boolean failed() {
+			return error_ != null;
+		}
+
+		void close() {
+			synchronized (this) {
+				closed_ = true;
+				notifyAll();
+			}
+			try {
+				reader_.close();
+				writer_.close();
+			} catch (IOException e) {
+			}
+			if (fd_ >= 0)
+				libc.close(fd_);
+		}
+	}
+
+	/**
+	 * Creates the backend for the CP2110 devices found in sysfs.
+	 */
+	public HidrawBackend() {
+		this(0x10C4, 0xEA80);
+	}
+
+	/**
+	 * Creates the backend for the devices with another vendor and product id
+	 * found in sysfs.
+	 * 
+	 * @param vid vendor id.
+	 * @param pid product id.
+	 */
+	public HidrawBackend(int vid, int pid) {
+		vid_ = (short)vid;
+		pid_ = (short)pid;
+		nodes_ = null;
+	}
+
+	/**
+	 * Creates the backend for a fixed list of nodes, which are not searched
+	 * for in sysfs.
+	 * 
+	 * @param nodes paths of the hidraw nodes or stand-ins.
+	 */
+	public HidrawBackend(String... nodes) {
+		this((short)0x10C4, (short)0xEA80, nodes.clone());
+	}
+
+	private HidrawBackend(short vid, short pid, String[] nodes) {
+		vid_ = vid;
+		pid_ = pid;
+		nodes_ = nodes;
+	}
+
+	/**
+	 * Loads the C library for the ioctls, once.
+	 * 
+	 * @return the library, null if not available.
+	 */
+	private static synchronized CLibrary libc() {
+		if (!libcLoaded) {
+			libcLoaded = true;
+			try {
+				libc = (CLibrary)Native.load("c", CLibrary.class);
+			} catch (Throwable t) {
+				libc = null;
+			}
+		}
+		return libc;
+	}
+
+	/**
+	 * Calls HIDIOCSFEATURE (nr 0x06) or HIDIOCGFEATURE (nr 0x07).
+	 */
+	private static int ioctl(int fd, int nr, byte[] report) {
+		// _IOC(_IOC_WRITE|_IOC_READ, 'H', nr, len)
+		long request = (3L << 30) | ((long)report.length << 16) | ('H' << 8) | nr;
+		return libc.ioctl(fd, new NativeLong(request), report);
+	}
+
+	private static String read(File file) {
+		try {
+			return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8).trim();
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Finds the nodes, with their strings.
+	 * 
+	 * @return the nodes in order of the device number.
+	 */
+	private List<Node> scan() {
+		List<Node> nodes = new ArrayList<Node>();
+		if (nodes_ != null) {
+			for (String path : nodes_) {
+				Node node = new Node(path);
+				node.strings[0x01] = String.format("%04X", vid_ & 0xFFFF);
+				node.strings[0x02] = String.format("%04X", pid_ & 0xFFFF);
+				node.strings[0x03] = path;
+				node.strings[0x04] = new File(path).getName();
+				node.strings[0x05] = "Silicon Labs";
+				node.strings[0x06] = "CP2110 HID USB-to-UART Bridge";
+				nodes.add(node);
+			}
+			return nodes;
+		}
+		String[] names = new File(SYSFS).list();
+		if (names == null)
+			return nodes;
+		Arrays.sort(names);
+		String id = String.format(":%08X:%08X", vid_ & 0xFFFF, pid_ & 0xFFFF);
+		for (String name : names) {
+			File dir = new File(SYSFS, name);
+			String uevent = read(new File(dir, "device/uevent"));
+			if (uevent == null || !uevent.toUpperCase().contains(id))
+				continue;
+			Node node = new Node("/dev/" + name);
+			node.strings[0x01] = String.format("%04X", vid_ & 0xFFFF);
+			node.strings[0x02] = String.format("%04X", pid_ & 0xFFFF);
+			node.strings[0x03] = node.path;
+			for (String line : uevent.split("\n")) {
+				if (line.startsWith("HID_UNIQ="))
+					node.strings[0x04] = line.substring(9);
+				else if (line.startsWith("HID_NAME="))
+					node.strings[0x06] = line.substring(9);
+			}
+			// the strings of the USB device, two levels above the HID device
+			String s = read(new File(dir, "device/../../manufacturer"));
+			node.strings[0x05] = (s != null) ? s : "";
+			s = read(new File(dir, "device/../../product"));
+			if (s != null)
+				node.strings[0x06] = s;
+			nodes.add(node);
+		}
+		return nodes;
+	}
+
+	private boolean matches(short vid, short pid) {
+		return (vid == 0 || vid == vid_) && (pid == 0 || pid == pid_);
+	}
+
+	private static byte string(Node node, byte[] deviceString, int options) {
+		if (options < 1 || options >= node.strings.length)
+			return HID_UART_INVALID_PARAMETER;
+		String s = node.strings[options];
+		byte[] b = ((s != null) ? s : "").getBytes(StandardCharsets.UTF_8);
+		int n = Math.min(b.length, deviceString.length - 1);
+		System.arraycopy(b, 0, deviceString, 0, n);
+		deviceString[n] = 0;
+		return HID_UART_SUCCESS;
+	}
+
+	@Override
+	public byte HidUart_GetLibraryVersion(byte[] major, byte[] minor, boolean[] release) {
+		major[0] = 1;
+		minor[0] = 0;
+		release[0] = true;
+		return HID_UART_SUCCESS;
+	}
+
+	@Override
+	public byte HidUart_GetHidLibraryVersion(byte[] major, byte[] minor, boolean[] release) {
+		return HidUart_GetLibraryVersion(major, minor, release);
+	}
+
+	@Override
+	public byte HidUart_GetNumDevices(int[] numDevices, short vid, short pid) {
+		numDevices[0] = matches(vid, pid) ? scan().size() : 0;
+		return HID_UART_SUCCESS;
+	}
+
+	@Override
+	public byte HidUart_GetString(int deviceNum, short vid, short pid, byte[] deviceString, int options) {
+		List<Node> nodes = scan();
+		if (!matches(vid, pid) || deviceNum < 0 || deviceNum >= nodes.size())
+			return HID_UART_DEVICE_NOT_FOUND;
+		return string(nodes.get(deviceNum), deviceString, options);
+	}
+
+	@Override
+	public byte HidUart_IsOpened(long device, IntByReference opened) {
+		Handle h = handles_.get(device);
+		if (h == null)
+			return HID_UART_INVALID_DEVICE_OBJECT;
+		opened.setValue((h.failed()) ? 0 : 1);
+		return HID_UART_SUCCESS;
+	}
+
+	@Override
+	public byte HidUart_Open(long[] device, int deviceNum, short vid, short pid) {
+		List<Node> nodes = scan();
+		if (!matches(vid, pid) || deviceNum < 0 || deviceNum >= nodes.size())
+			return HID_UART_DEVICE_NOT_FOUND;
+		Node node = nodes.get(deviceNum);
+		FileChannel reader;
+		FileOutputStream writer;
+		try {
+			// opened for writing too, so that a named pipe does not wait for a writer
+			reader = FileChannel.open(Paths.get(node.path), StandardOpenOption.READ, StandardOpenOption.WRITE);
+			try {
+				// appends, so that a regular file standing in for the node is not truncated
+				writer = new FileOutputStream(node.path, true);
+			} catch (IOException e) {
+				reader.close();
+				throw e;
+			}
+		} catch (IOException e) {
+			return HID_UART_DEVICE_ACCESS_ERROR;
+		}
+		int fd = -1;
+		if (nodes_ == null && libc() != null)
+			fd = libc.open(node.path, O_RDWR);
+		Handle h = new Handle(node, reader, writer, fd);
+		if (h.setFeature(new byte[] {GET_SET_UART_ENABLE, 1}) != HID_UART_SUCCESS) {
+			h.close();
+			return HID_UART_DEVICE_IO_FAILED;
+		}
+		Thread t = new Thread(h, "CP2110-hidraw-" + new File(node.path).getName());
+		t.setDaemon(true);
+		t.start();
+		long handle = nextHandle_.getAndIncrement();
+		handles_.put(handle, h);
+		device[0] = handle;
+		return HID_UART_SUCCESS;
+	}
+
+	@Override
+	public byte HidUart_GetPartNumber(long device, byte[] partNumber, byte[] version) {
+		Handle h = handles_.get(device);
+		if (h == null)
+			return HID_UART_INVALID_DEVICE_OBJECT;
+		byte[] report = {GET_VERSION_INFORMATION, 0, 0};
+		byte status = h.getFeature(report);
+		if (status != HID_UART_SUCCESS)
+			return status;
+		partNumber[0] = report[1];
+		version[0] = report[2];
+		return HID_UART_SUCCESS;
+	}
+
+	@Override
+	public byte HidUart_SetUartConfig(long device, int baudRate, byte dataBits, byte parity, byte stopBits, byte flowControl) {
+		Handle h = handles_.get(device);
+		if (h == null)
+			return HID_UART_INVALID_DEVICE_OBJECT;
+		if (baudRate < 300 || baudRate > 1000000 || dataBits < 0 || dataBits > 3 ||
+			parity < 0 || parity > 4 || stopBits < 0 || stopBits > 1 ||
+			flowControl < 0 || flowControl > 1)
+			return HID_UART_INVALID_PARAMETER;
+		byte[] report = {GET_SET_UART_CONFIG, 
+			(byte)(baudRate >>> 24), (byte)(baudRate >>> 16), (byte)(baudRate >>> 8), (byte)baudRate,
+			parity, flowControl, dataBits, stopBits};
+		return h.setFeature(report);
+	}
+
+	@Override
+	public byte HidUart_GetUartStatus(long device, short[] transmitFifoSize, short[] receiveFifoSize, byte[] errorStatus, byte[] lineBreakStatus) {
+		Handle h = handles_.get(device);
+		if (h == null)
+			return HID_UART_INVALID_DEVICE_OBJECT;
+		byte[] report = new byte[7];
+		report[0] = GET_UART_STATUS;
+		byte status = h.getFeature(report);
+		if (status != HID_UART_SUCCESS)
+			return status;
+		// the bytes already received on the host count as in the receive FIFO
+		int rx = ((report[3] & 0xFF) << 8 | (report[4] & 0xFF)) + h.received();
+		transmitFifoSize[0] = (short)((report[1] & 0xFF) << 8 | (report[2] & 0xFF));
+		receiveFifoSize[0] = (short)Math.min(rx, Short.MAX_VALUE);
+		errorStatus[0] = (byte)(report[5] | h.takeErrorStatus());
+		lineBreakStatus[0] = report[6];
+		return HID_UART_SUCCESS;
+	}
+
+	@Override
+	public byte HidUart_GetUartConfig(long device, int[] baudRate, byte[] dataBits, byte[] parity, byte[] stopBits, byte[] flowControl) {
+		Handle h = handles_.get(device);
+		if (h == null)
+			return HID_UART_INVALID_DEVICE_OBJECT;
+		byte[] report = new byte[9];
+		report[0] = GET_SET_UART_CONFIG;
+		byte status = h.getFeature(report);
+		if (status != HID_UART_SUCCESS)
+			return status;
+		baudRate[0] = (report[1] & 0xFF) << 24 | (report[2] & 0xFF) << 16 | (report[3] & 0xFF) << 8 | (report[4] & 0xFF);
+		parity[0] = report[5];
+		flowControl[0] = report[6];
+		dataBits[0] = report[7];
+		stopBits[0] = report[8];
+		return HID_UART_SUCCESS;
+	}
+
+	@Override
+	public byte HidUart_SetTimeouts(long device, int readTimeout, int writeTimeout) {
+		Handle h = handles_.get(device);
+		if (h == null)
+			return HID_UART_INVALID_DEVICE_OBJECT;
+		return h.setTimeouts(readTimeout);
+	}
+
+	@Override
+	public byte HidUart_GetOpenedString(long device, byte[] deviceString, int options) {
+		Handle h = handles_.get(device);
+		if (h == null)
+			return HID_UART_INVALID_DEVICE_OBJECT;
+		return string(h.node_, deviceString, options);
+	}
+
+	@Override
+	public byte HidUart_Close(long device) {
+		Handle h = handles_.remove(device);
+		if (h == null)
+			return HID_UART_INVALID_DEVICE_OBJECT;
+		h.close();
+		return HID_UART_SUCCESS;
+	}
+
+	@Override
+	public byte HidUart_Read(long device, Pointer buffer, int numBytesToRead, IntByReference numBytesRead) {
+		Handle h = handles_.get(device);
+		if (h == null)
+			return HID_UART_INVALID_DEVICE_OBJECT;
+		return h.read(buffer, numBytesToRead, numBytesRead);
+	}
+
+	@Override
+	public byte HidUart_Write(long device, Pointer buffer, int numBytesToWrite, IntByReference numBytesWritten) {
+		Handle h = handles_.get(device);
+		if (h == null)
+			return HID_UART_INVALID_DEVICE_OBJECT;
+		return h.write(buffer, numBytesToWrite, numBytesWritten);
+	}
+}
@@ -0,0 +1,185 @@
+/**
+ * The MIT LICENSE (MIT):
+ * 
+ * Copyright  2021 Ejaz Jamil, Jence.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of 
+ * this software and associated documentation files (the Software), to deal in 
+ * the Software without restriction, including without limitation the rights to 
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+ * of the Software, and to permit persons to whom the Software is furnished to do 
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. 
+ * 
+ */
+package jence.driver;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Watches the attached devices in the background and notifies the listeners
+ * when a device is attached or removed. The monitor polls the number of
+ * attached devices at a fixed interval, which is a single native call. The
+ * devices are only enumerated again, and compared by serial number, when
+ * the number changes.
+ * 
+ * A device replaced by another one within one interval keeps the count
+ * unchanged and is not reported.
+ * 
+ * @author Ejaz Jamil, Jence.
+ *
+ */
+public class HotPlugMonitor {
+	private final long interval_;
+	private final CopyOnWriteArrayList<HotPlugListener> listeners_ = new CopyOnWriteArrayList<HotPlugListener>();
+	private Map<String, DeviceInfo> devices_ = new HashMap<String, DeviceInfo>();
+	private int count_ = -1;
+	private volatile Thread thread_ = null;
+	private volatile DriverException error_ = null;
+
+	/**
+	 * Creates the monitor. Call {@link #start()} to begin polling.
+	 * 
+	 * @param intervalMillis polling interval in milliseconds.
+	 */
+	public HotPlugMonitor(long intervalMillis) {
+		if (intervalMillis <= 0)
+			throw new IllegalArgumentException("Invalid interval "+intervalMillis);
+		interval_ = intervalMillis;
+	}
+
+	/**
+	 * Adds a listener.
+	 * 
+	 * @param listener listener to add.
+	 */
+	public void addListener(HotPlugListener listener) {
+		listeners_.addIfAbsent(listener);
+	}
+
+	/**
+	 * Removes a listener.
+	 * 
+	 * @param listener listener to remove.
+	 */
+	public void removeListener(HotPlugListener listener) {
+		listeners_.remove(listener);
+	}
+
+	/**
+	 * Starts polling. The devices already attached are reported as attached
+	 * on the first poll.
+	 */
+	public synchronized void start() {
+		if (thread_ != null)
+			return;
+		Thread t = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				Thread self = Thread.currentThread();
+				while (thread_ == self) {
+					try {
+						poll();
+						error_ = null;
+					} catch (DriverException e) {
+						error_ = e;
+					}
+					try {
+						Thread.sleep(interval_);
+					} catch (InterruptedException e) {
+						return;
+					}
+				}
+			}
+		}, "CP2110-hotplug");
+		t.setDaemon(true);
+		thread_ = t;
+		t.start();
+	}
+
+	/**
+	 * Stops polling and waits for the monitor thread to end.
+	 * 
+	 * @throws InterruptedException
+	 */
+	public void stop() throws InterruptedException {
+		Thread t;
+		synchronized (this) {
+			t = thread_;
+			thread_ = null;
+		}
+		if (t != null) {
+			t.interrupt();
+			t.join();
+		}
+	}
+
+	/**
+	 * Checks the attached devices once and notifies the listeners of any change.
+	 * Called by the monitor thread, but may also be called directly without 
+	 * starting the monitor.
+	 * 
+	 * @throws DriverException
+	 */
+	public synchronized void poll() throws DriverException {
+		int n = CP2110HidDriver.getDeviceCount(0, 0);
+		if (n == count_)
+			return;
+		
+		Map<String, DeviceInfo> current = new HashMap<String, DeviceInfo>();
+		for (DeviceInfo info : CP2110HidDriver.getDevices(0, 0)) {
+			if (info.getSerial().length() > 0)
+				current.put(info.getSerial(), info);
+		}
+		for (DeviceInfo info : devices_.values()) {
+			if (!current.containsKey(info.getSerial()))
+				fireDetach(info);
+		}
+		for (DeviceInfo info : current.values()) {
+			if (!devices_.containsKey(info.getSerial()))
+				fireAttach(info);
+		}
+		devices_ = current;
+		count_ = n;
+	}
+
+	/**
+	 * Gets the error of the last poll, if it failed.
+	 * 
+	 * @return the error or null.
+	 */
+	public DriverException getError() {
+		return error_;
+	}
+
+	private void fireAttach(DeviceInfo info) {
+		for (HotPlugListener l : listeners_) {
+			try {
+				l.onAttach(info);
+			} catch (RuntimeException e) {
+				// one faulty listener must not stop the others.
+			}
+		}
+	}
+
+	private void fireDetach(DeviceInfo info) {
+		for (HotPlugListener l : listeners_) {
+			try {
+				l.onDetach(info);
+			} catch (RuntimeException e) {
+				// one faulty listener must not stop the others.
+			}
+		}
+	}
+}
@@ -0,0 +1,169 @@
+/**
+ * The MIT LICENSE (MIT):
+ * 
+ * Copyright  2021 Ejaz Jamil, Jence.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of 
+ * this software and associated documentation files (the Software), to deal in 
+ * the Software without restriction, including without limitation the rights to 
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+ * of the Software, and to permit persons to whom the Software is furnished to do 
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. 
+ * 
+ */
+package jence.driver;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Properties that cannot be changed once built, so one instance can be
+ * handed to every caller. Every method that would change them throws 
+ * {@link UnsupportedOperationException}.
+ * 
+ * @author Ejaz Jamil, Jence.
+ *
+ */
+final class ImmutableProperties extends Properties {
+	private static final long serialVersionUID = 1L;
+
+	private final boolean built_;
+
+	/**
+	 * Copies the properties.
+	 * 
+	 * @param p properties to copy.
+	 */
+	ImmutableProperties(Properties p) {
+		for (String key : p.stringPropertyNames())
+			super.put(key, p.getProperty(key));
+		built_ = true;
+	}
+
+	private void check() {
+		if (built_)
+			throw new UnsupportedOperationException("Properties are read only.");
+	}
+
+	@Override
+	public synchronized Object put(Object key, Object value) {
+		check();
+		return super.put(key, value);
+	}
+
+	@Override
+	public synchronized void putAll(Map<?, ?> t) {
+		check();
+	}
+
+	@Override
+	public synchronized Object remove(Object key) {
+		check();
+		return null;
+	}
+
+	@Override
+	public synchronized boolean remove(Object key, Object value) {
+		check();
+		return false;
+	}
+
+	@Override
+	public synchronized void clear() {
+		check();
+	}
+
+	@Override
+	public synchronized Object putIfAbsent(Object key, Object value) {
+		check();
+		return null;
+	}
+
+	@Override
+	public synchronized boolean replace(Object key, Object oldValue, Object newValue) {
+		check();
+		return false;
+	}
+
+	@Override
+	public synchronized Object replace(Object key, Object value) {
+		check();
+		return null;
+	}
+
+	@Override
+	public synchronized void replaceAll(BiFunction<? super Object, ? super Object, ?> function) {
+		check();
+	}
+
+	@Override
+	public synchronized Object compute(Object key, BiFunction<? super Object, ? super Object, ?> remappingFunction) {
+		check();
+		return null;
+	}
+
+	@Override
+	public synchronized Object computeIfAbsent(Object key, Function<? super Object, ?> mappingFunction) {
+		check();
+		return null;
+	}
+
+	@Override
+	public synchronized Object computeIfPresent(Object key, BiFunction<? super Object, ? super Object, ?> remappingFunction) {
+		check();
+		return null;
+	}
+
+	@Override
+	public synchronized Object merge(Object key, Object value, BiFunction<? super Object, ? super Object, ?> remappingFunction) {
+		check();
+		return null;
+	}
+
+	@Override
+	public synchronized void load(Reader reader) {
+		check();
+	}
+
+	@Override
+	public synchronized void load(InputStream inStream) {
+		check();
+	}
+
+	@Override
+	public synchronized void loadFromXML(InputStream in) {
+		check();
+	}
+
+	@Override
+	public Set<Object> keySet() {
+		return Collections.unmodifiableSet(super.keySet());
+	}
+
+	@Override
+	public Set<Map.Entry<Object, Object>> entrySet() {
+		return Collections.unmodifiableSet(super.entrySet());
+	}
+
+	@Override
+	public Collection<Object> values() {
+		return Collections.unmodifiableCollection(super.values());
+	}
+}
@@ -0,0 +1,117 @@
+/**
+ * The MIT LICENSE (MIT):
+ * 
+ * Copyright  2021 Ejaz Jamil, Jence.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of 
+ * this software and associated documentation files (the Software), to deal in 
+ * the Software without restriction, including without limitation the rights to 
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+ * of the Software, and to permit persons to whom the Software is furnished to do 
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. 
+ * 
+ */
+package jence.driver;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of latencies in nanoseconds. Every power of two is
+ * split into four buckets, so a reported percentile is at most 25% above 
+ * the true value. Recording does not allocate memory.
+ * 
+ * @author Ejaz Jamil, Jence.
+ *
+ */
+class LatencyHistogram {
+	private static final int BUCKETS = 252;
+
+	private final AtomicLongArray counts_ = new AtomicLongArray(BUCKETS);
+	private final AtomicLong max_ = new AtomicLong();
+
+	/**
+	 * Records one latency.
+	 * 
+	 * @param nanos latency in nanoseconds.
+	 */
+	void record(long nanos) {
+		if (nanos < 0)
+			nanos = 0;
+		counts_.getAndIncrement(bucket(nanos));
+		long m = max_.get();
+		while (nanos > m && !max_.compareAndSet(m, nanos))
+			m = max_.get();
+	}
+
+	/**
+	 * Gets the number of recorded latencies.
+	 * 
+	 * @return count.
+	 */
+	long count() {
+		long n = 0;
+		for (int i = 0; i < BUCKETS; i++)
+			n += counts_.get(i);
+		return n;
+	}
+
+	/**
+	 * Gets the largest recorded latency.
+	 * 
+	 * @return latency in nanoseconds.
+	 */
+	long max() {
+		return max_.get();
+	}
+
+	/**
+	 * Gets a percentile, as the upper bound of the bucket that holds it.
+	 * 
+	 * @param p percentile, between 0 and 100.
+	 * @return latency in nanoseconds, zero if nothing was recorded.
+	 */
+	long percentile(double p) {
+		long[] snapshot = new long[BUCKETS];
+		long total = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			snapshot[i] = counts_.get(i);
+			total += snapshot[i];
+		}
+		if (total == 0)
+			return 0;
+		long rank = (long)Math.ceil(total * p / 100.0);
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += snapshot[i];
+			if (seen >= Math.max(1, rank))
+				return Math.min(upperBound(i), max());
+		}
+		return max();
+	}
+
+	private static int bucket(long v) {
+		if (v < 4)
+			return (int)v;
+		int msb = 63 - Long.numberOfLeadingZeros(v);
+		return (msb - 1) * 4 + (int)((v >>> (msb - 2)) & 3);
+	}
+
+	private static long upperBound(int bucket) {
+		if (bucket < 4)
+			return bucket;
+		int msb = bucket / 4 + 1;
+		long lower = (4L + (bucket & 3)) << (msb - 2);
+		return lower + (1L << (msb - 2)) - 1;
+	}
+}
@@ -0,0 +1,85 @@
+/**
+ * The MIT LICENSE (MIT):
+ * 
+ * Copyright  2021 Ejaz Jamil, Jence.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of 
+ * this software and associated documentation files (the Software), to deal in 
+ * the Software without restriction, including without limitation the rights to 
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+ * of the Software, and to permit persons to whom the Software is furnished to do 
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. 
+ * 
+ */
+package jence.driver;
+
+/**
+ * Frames that start with a header holding the length of the payload. The
+ * header is not part of the frame. A header announcing a payload longer than 
+ * the maximum frame length is treated as noise and skipped byte by byte.
+ * 
+ * @author Ejaz Jamil, Jence.
+ *
+ */
+public class LengthPrefixFramer extends Framer {
+	private final int headerLength_;
+	private final boolean bigEndian_;
+
+	/**
+	 * Creates the framer with {@link Framer#DEFAULT_MAX_FRAME_LENGTH}.
+	 * 
+	 * @param headerLength length of the header, 1, 2 or 4 bytes.
+	 * @param bigEndian <true>, if the most significant byte comes first.
+	 */
+	public LengthPrefixFramer(int headerLength, boolean bigEndian) {
+		this(headerLength, bigEndian, DEFAULT_MAX_FRAME_LENGTH);
+	}
+
+	/**
+	 * Creates the framer.
+	 * 
+	 * @param headerLength length of the header, 1, 2 or 4 bytes.
+	 * @param bigEndian <true>, if the most significant byte comes first.
+	 * @param maxFrameLength maximum frame length, including the header.
+	 */
+	public LengthPrefixFramer(int headerLength, boolean bigEndian, int maxFrameLength) {
+		super(maxFrameLength);
+		if (headerLength != 1 && headerLength != 2 && headerLength != 4)
+			throw new IllegalArgumentException("Invalid header length "+headerLength);
+		headerLength_ = headerLength;
+		bigEndian_ = bigEndian;
+	}
+
+	@Override
+	protected int decode(byte[] buf, int start, int end) {
+		while (end - start >= headerLength_) {
+			long len = 0;
+			for (int i = 0; i < headerLength_; i++) {
+				int b = buf[start + (bigEndian_ ? i : headerLength_ - 1 - i)] & 0xFF;
+				len = (len << 8) | b;
+			}
+			if (len > getMaxFrameLength() - headerLength_) {
+				skip(1);
+				start++;
+				continue;
+			}
+			int frameEnd = start + headerLength_ + (int)len;
+			if (frameEnd > end)
+				return -1;
+			frameOffset = start + headerLength_;
+			frameLength = (int)len;
+			return frameEnd;
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,226 @@
+/**
+ * The MIT LICENSE (MIT):
+ * 
+ * Copyright  2021 Ejaz Jamil, Jence.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of 
+ * this software and associated documentation files (the Software), to deal in 
+ * the Software without restriction, including without limitation the rights to 
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+ * of the Software, and to permit persons to whom the Software is furnished to do 
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. 
+ * 
+ */
+package jence.driver;
+
+/**
+ * Decouples reading the device from notifying the listener. One thread
+ * only drains the device into a {@link ChunkRingBuffer} while a second
+ * thread takes the chunks out of the buffer and calls the listener. A slow
+ * listener therefore does not delay the next read.
+ * 
+ * Instances are created by 
+ * {@link CP2110HidDriver#listen(String, DriverListener, int, WaitStrategy, OverflowPolicy)}.
+ * 
+ * @author Ejaz Jamil, Jence.
+ *
+ */
+public class ListenerDispatcher {
+	private final CP2110HidDriver driver_;
+	private final String deviceid_;
+	private final DriverListener listener_;
+	private final ChunkRingBuffer ring_;
+	private final Thread reader_;
+	private final Thread dispatcher_;
+	private volatile boolean running_ = false;
+	private volatile DriverException error_ = null;
+	private volatile Throwable dispatchError_ = null;
+	private volatile long readChunks_ = 0;
+	private volatile long dispatchedChunks_ = 0;
+
+	/**
+	 * Creates the dispatcher. Call {@link #start()} to begin reading.
+	 * 
+	 * @param driver connected driver.
+	 * @param deviceid device id passed to the listener.
+	 * @param listener listener to notify.
+	 * @param capacity number of chunks buffered between reader and dispatcher.
+	 * @param wait wait strategy used when the buffer is empty or full.
+	 * @param overflow what to do when the buffer is full.
+	 */
+	public ListenerDispatcher(CP2110HidDriver driver, String deviceid, DriverListener listener, 
+			int capacity, WaitStrategy wait, OverflowPolicy overflow) {
+		if (listener == null)
+			throw new IllegalArgumentException("Listener must not be null.");
+		driver_ = driver;
+		deviceid_ = deviceid;
+		listener_ = listener;
+		ring_ = new ChunkRingBuffer(capacity, wait, overflow);
+		reader_ = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				readLoop();
+			}
+		}, "CP2110-reader-" + deviceid);
+		dispatcher_ = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				dispatchLoop();
+			}
+		}, "CP2110-dispatcher-" + deviceid);
+		reader_.setDaemon(true);
+		dispatcher_.setDaemon(true);
+	}
+
+	/**
+	 * Starts the reader and the dispatcher threads.
+	 */
+	public synchronized void start() {
+		if (running_)
+			return;
+		running_ = true;
+		dispatcher_.start();
+		reader_.start();
+	}
+
+	/**
+	 * Stops reading. The reader stops within one read timeout, the chunks
+	 * already buffered are still delivered to the listener, unless the
+	 * dispatcher has stopped with an error, see {@link #getDispatchError()}.
+	 * 
+	 * @throws InterruptedException
+	 */
+	public void stop() throws InterruptedException {
+		running_ = false;
+		ring_.close();
+		if (reader_.isAlive())
+			reader_.join();
+		if (dispatcher_.isAlive())
+			dispatcher_.join();
+	}
+
+	private void readLoop() {
+		DriverMetrics metrics = driver_.getMetrics();
+		metrics.listenStarted();
+		try {
+			while (running_) {
+				byte[] buffer = driver_.read();
+				if (buffer != null) {
+					readChunks_++;
+					ring_.offer(buffer);
+				}
+			}
+		} catch (DriverException e) {
+			error_ = e;
+		} finally {
+			metrics.listenStopped();
+			running_ = false;
+			// wakes the dispatcher, so it delivers what is left and ends
+			ring_.close();
+		}
+	}
+
+	private void dispatchLoop() {
+		for (;;) {
+			byte[] buffer = ring_.poll();
+			if (buffer != null) {
+				try {
+					driver_.dispatch(deviceid_, listener_, buffer);
+				} catch (Throwable t) {
+					// stops the reader too, instead of leaving it blocked on a full buffer
+					dispatchError_ = t;
+					running_ = false;
+					ring_.close();
+					return;
+				}
+				dispatchedChunks_++;
+			} else if (running_) {
+				ring_.await();
+			} else if (reader_.isAlive()) {
+				// the reader stops within one read timeout and may still add a chunk
+				try {
+					reader_.join();
+				} catch (InterruptedException e) {
+					return;
+				}
+			} else {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Checks if the reader is still running.
+	 * 
+	 * @return <true>, if running.
+	 */
+	public boolean isRunning() {
+		return running_;
+	}
+
+	/**
+	 * Gets the error that stopped the reader, if any.
+	 * 
+	 * @return the error or null.
+	 */
+	public DriverException getError() {
+		return error_;
+	}
+
+	/**
+	 * Gets the exception thrown by the listener, the framer or the deduplicator
+	 * that stopped the dispatcher, if any. The reader is stopped with it and the
+	 * chunks still buffered are not delivered.
+	 * 
+	 * @return the exception or null.
+	 */
+	public Throwable getDispatchError() {
+		return dispatchError_;
+	}
+
+	/**
+	 * Gets the number of chunks read from the device.
+	 * 
+	 * @return chunks read.
+	 */
+	public long getReadChunks() {
+		return readChunks_;
+	}
+
+	/**
+	 * Gets the number of chunks delivered to the listener.
+	 * 
+	 * @return chunks dispatched.
+	 */
+	public long getDispatchedChunks() {
+		return dispatchedChunks_;
+	}
+
+	/**
+	 * Gets the number of chunks discarded because the buffer was full.
+	 * 
+	 * @return chunks dropped.
+	 */
+	public long getDroppedChunks() {
+		return ring_.getDroppedChunks();
+	}
+
+	/**
+	 * Gets the number of chunks waiting for the dispatcher.
+	 * 
+	 * @return chunks buffered.
+	 */
+	public int getBufferedChunks() {
+		return ring_.size();
+	}
+}
@@ -0,0 +1,208 @@
+/**
+ * The MIT LICENSE (MIT):
+ * 
+ * Copyright  2021 Ejaz Jamil, Jence.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of 
+ * this software and associated documentation files (the Software), to deal in 
+ * the Software without restriction, including without limitation the rights to 
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+ * of the Software, and to permit persons to whom the Software is furnished to do 
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. 
+ * 
+ */
+package jence.driver;
+
+import java.util.Arrays;
+
+/**
+ * Bounded map from long keys to long timestamps, evicting the least recently 
+ * used entry when full. All storage is allocated up front in primitive arrays, 
+ * so lookups and updates do not allocate memory. The hash table uses linear 
+ * probing; the recency order is a doubly linked list over the entry arrays.
+ * 
+ * Not thread safe.
+ * 
+ * @author Ejaz Jamil, Jence.
+ *
+ */
+class LongLruCache {
+	private static final int NONE = -1;
+
+	private final long[] keys_;
+	private final long[] times_;
+	private final int[] prev_;
+	private final int[] next_;
+	// hash slot -> entry index + 1, 0 is an empty slot
+	private final int[] table_;
+	private final int tableMask_;
+	private int size_ = 0;
+	private int head_ = NONE; // most recently used
+	private int tail_ = NONE; // least recently used
+
+	/**
+	 * Creates the cache.
+	 * 
+	 * @param capacity maximum number of entries.
+	 */
+	LongLruCache(int capacity) {
+		if (capacity < 1 || capacity > (1 << 28))
+			throw new IllegalArgumentException("Invalid capacity "+capacity);
+		keys_ = new long[capacity];
+		times_ = new long[capacity];
+		prev_ = new int[capacity];
+		next_ = new int[capacity];
+		int size = Integer.highestOneBit(capacity * 2 - 1) << 1;
+		table_ = new int[size];
+		tableMask_ = size - 1;
+	}
+
+	/**
+	 * Looks up a key and marks it as most recently used.
+	 * 
+	 * @param key the key.
+	 * @param missing value returned if the key is not present.
+	 * @return the timestamp stored with the key, or missing.
+	 */
+	long get(long key, long missing) {
+		int e = find(key);
+		if (e == NONE)
+			return missing;
+		touch(e);
+		return times_[e];
+	}
+
+	/**
+	 * Stores a timestamp for a key and marks it as most recently used. Evicts
+	 * the least recently used entry if the cache is full.
+	 * 
+	 * @param key the key.
+	 * @param time the timestamp.
+	 */
+	void put(long key, long time) {
+		int e = find(key);
+		if (e == NONE) {
+			if (size_ == keys_.length) {
+				e = tail_;
+				remove(e);
+			} else {
+				e = size_;
+			}
+			size_++;
+			keys_[e] = key;
+			insert(e);
+			prev_[e] = NONE;
+			next_[e] = head_;
+			if (head_ != NONE)
+				prev_[head_] = e;
+			head_ = e;
+			if (tail_ == NONE)
+				tail_ = e;
+		} else {
+			touch(e);
+		}
+		times_[e] = time;
+	}
+
+	/**
+	 * Removes all entries.
+	 */
+	void clear() {
+		Arrays.fill(table_, 0);
+		size_ = 0;
+		head_ = tail_ = NONE;
+	}
+
+	/**
+	 * Gets the number of entries.
+	 * 
+	 * @return entries.
+	 */
+	int size() {
+		return size_;
+	}
+
+	private static int hash(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int)(h ^ (h >>> 32));
+	}
+
+	private int find(long key) {
+		for (int i = hash(key) & tableMask_; ; i = (i + 1) & tableMask_) {
+			int e = table_[i] - 1;
+			if (e == NONE)
+				return NONE;
+			if (keys_[e] == key)
+				return e;
+		}
+	}
+
+	private void insert(int e) {
+		int i = hash(keys_[e]) & tableMask_;
+		while (table_[i] != 0)
+			i = (i + 1) & tableMask_;
+		table_[i] = e + 1;
+	}
+
+	/**
+	 * Removes an entry from the hash table and the recency list. The entry 
+	 * index is then reused by the caller, so size is left to the caller.
+	 */
+	private void remove(int e) {
+		int i = hash(keys_[e]) & tableMask_;
+		while (table_[i] != e + 1)
+			i = (i + 1) & tableMask_;
+		// backward shift deletion keeps the probe sequences intact.
+		int j = i;
+		for (;;) {
+			j = (j + 1) & tableMask_;
+			int f = table_[j] - 1;
+			if (f == NONE)
+				break;
+			int home = hash(keys_[f]) & tableMask_;
+			// move f into the hole at i if its home is not in (i, j]
+			if (((j - home) & tableMask_) >= ((j - i) & tableMask_)) {
+				table_[i] = table_[j];
+				i = j;
+			}
+		}
+		table_[i] = 0;
+		unlink(e);
+		size_--;
+	}
+
+	private void touch(int e) {
+		if (e == head_)
+			return;
+		unlink(e);
+		prev_[e] = NONE;
+		next_[e] = head_;
+		if (head_ != NONE)
+			prev_[head_] = e;
+		head_ = e;
+		if (tail_ == NONE)
+			tail_ = e;
+	}
+
+	private void unlink(int e) {
+		int p = prev_[e], n = next_[e];
+		if (p != NONE)
+			next_[p] = n;
+		else
+			head_ = n;
+		if (n != NONE)
+			prev_[n] = p;
+		else
+			tail_ = p;
+	}
+}
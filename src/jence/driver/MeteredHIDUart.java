@@ -0,0 +1,184 @@
+/**
+ * The MIT LICENSE (MIT):
+ * 
+ * Copyright  2021 Ejaz Jamil, Jence.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of 
+ * this software and associated documentation files (the Software), to deal in 
+ * the Software without restriction, including without limitation the rights to 
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+ * of the Software, and to permit persons to whom the Software is furnished to do 
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. 
+ * 
+ */
+package jence.driver;
+
+import com.sun.jna.Pointer;
+import com.sun.jna.ptr.IntByReference;
+
+/**
+ * Backend that times every call and records it in a {@link DriverMetrics},
+ * then returns the status of the installed backend unchanged.
+ * 
+ * @author Ejaz Jamil, Jence.
+ *
+ */
+class MeteredHIDUart implements HidUartBackend {
+	private final DriverMetrics metrics_;
+
+	/**
+	 * Creates the wrapper.
+	 * 
+	 * @param metrics metrics to record into.
+	 */
+	MeteredHIDUart(DriverMetrics metrics) {
+		metrics_ = metrics;
+	}
+
+	/**
+	 * Gets the metrics.
+	 * 
+	 * @return metrics.
+	 */
+	DriverMetrics getMetrics() {
+		return metrics_;
+	}
+
+	private static HidUartBackend lib() {
+		return CP2110HidDriver.getBackend();
+	}
+
+	@Override
+	public byte HidUart_GetLibraryVersion(byte[] major, byte[] minor, boolean[] release) {
+		long t = System.nanoTime();
+		byte s = lib().HidUart_GetLibraryVersion(major, minor, release);
+		metrics_.record(NativeCall.GET_LIBRARY_VERSION, s, t);
+		return s;
+	}
+
+	@Override
+	public byte HidUart_GetHidLibraryVersion(byte[] major, byte[] minor, boolean[] release) {
+		long t = System.nanoTime();
+		byte s = lib().HidUart_GetHidLibraryVersion(major, minor, release);
+		metrics_.record(NativeCall.GET_HID_LIBRARY_VERSION, s, t);
+		return s;
+	}
+
+	@Override
+	public byte HidUart_GetNumDevices(int[] numDevices, short vid, short pid) {
+		long t = System.nanoTime();
+		byte s = lib().HidUart_GetNumDevices(numDevices, vid, pid);
+		metrics_.record(NativeCall.GET_NUM_DEVICES, s, t);
+		return s;
+	}
+
+	@Override
+	public byte HidUart_GetString(int deviceNum, short vid, short pid, byte[] deviceString, int options) {
+		long t = System.nanoTime();
+		byte s = lib().HidUart_GetString(deviceNum, vid, pid, deviceString, options);
+		metrics_.record(NativeCall.GET_STRING, s, t);
+		return s;
+	}
+
+	@Override
+	public byte HidUart_IsOpened(long device, IntByReference opened) {
+		long t = System.nanoTime();
+		byte s = lib().HidUart_IsOpened(device, opened);
+		metrics_.record(NativeCall.IS_OPENED, s, t);
+		return s;
+	}
+
+	@Override
+	public byte HidUart_Open(long[] device, int deviceNum, short vid, short pid) {
+		long t = System.nanoTime();
+		byte s = lib().HidUart_Open(device, deviceNum, vid, pid);
+		metrics_.record(NativeCall.OPEN, s, t);
+		return s;
+	}
+
+	@Override
+	public byte HidUart_GetPartNumber(long device, byte[] partNumber, byte[] version) {
+		long t = System.nanoTime();
+		byte s = lib().HidUart_GetPartNumber(device, partNumber, version);
+		metrics_.record(NativeCall.GET_PART_NUMBER, s, t);
+		return s;
+	}
+
+	@Override
+	public byte HidUart_SetUartConfig(long device, int baudRate, byte dataBits, byte parity, byte stopBits, byte flowControl) {
+		long t = System.nanoTime();
+		byte s = lib().HidUart_SetUartConfig(device, baudRate, dataBits, parity, stopBits, flowControl);
+		metrics_.record(NativeCall.SET_UART_CONFIG, s, t);
+		return s;
+	}
+
+	@Override
+	public byte HidUart_GetUartStatus(long device, short[] transmitFifoSize, short[] receiveFifoSize, byte[] errorStatus, byte[] lineBreakStatus) {
+		long t = System.nanoTime();
+		byte s = lib().HidUart_GetUartStatus(device, transmitFifoSize, receiveFifoSize, errorStatus, lineBreakStatus);
+		metrics_.record(NativeCall.GET_UART_STATUS, s, t);
+		return s;
+	}
+
+	@Override
+	public byte HidUart_GetUartConfig(long device, int[] baudRate, byte[] dataBits, byte[] parity, byte[] stopBits, byte[] flowControl) {
+		long t = System.nanoTime();
+		byte s = lib().HidUart_GetUartConfig(device, baudRate, dataBits, parity, stopBits, flowControl);
+		metrics_.record(NativeCall.GET_UART_CONFIG, s, t);
+		return s;
+	}
+
+	@Override
+	public byte HidUart_SetTimeouts(long device, int readTimeout, int writeTimeout) {
+		long t = System.nanoTime();
+		byte s = lib().HidUart_SetTimeouts(device, readTimeout, writeTimeout);
+		metrics_.record(NativeCall.SET_TIMEOUTS, s, t);
+		return s;
+	}
+
+	@Override
+	public byte HidUart_GetOpenedString(long device, byte[] deviceString, int options) {
+		long t = System.nanoTime();
+		byte s = lib().HidUart_GetOpenedString(device, deviceString, options);
+		metrics_.record(NativeCall.GET_OPENED_STRING, s, t);
+		return s;
+	}
+
+	@Override
+	public byte HidUart_Close(long device) {
+		long t = System.nanoTime();
+		byte s = lib().HidUart_Close(device);
+		metrics_.record(NativeCall.CLOSE, s, t);
+		return s;
+	}
+
+	@Override
+	public byte HidUart_Read(long device, Pointer buffer, int numBytesToRead, IntByReference numBytesRead) {
+		long t = System.nanoTime();
+		byte s = lib().HidUart_Read(device, buffer, numBytesToRead, numBytesRead);
+		metrics_.record(NativeCall.READ, s, t);
+		if (s == HID_UART_SUCCESS || s == HID_UART_READ_TIMED_OUT)
+			metrics_.addBytesRead(numBytesRead.getValue());
+		return s;
+	}
+
+	@Override
+	public byte HidUart_Write(long device, Pointer buffer, int numBytesToWrite, IntByReference numBytesWritten) {
+		long t = System.nanoTime();
+		byte s = lib().HidUart_Write(device, buffer, numBytesToWrite, numBytesWritten);
+		metrics_.record(NativeCall.WRITE, s, t);
+		if (s == HID_UART_SUCCESS || s == HID_UART_WRITE_TIMED_OUT)
+			metrics_.addBytesWritten(numBytesWritten.getValue());
+		return s;
+	}
+}
@@ -0,0 +1,48 @@
+/**
+ * The MIT LICENSE (MIT):
+ * 
+ * Copyright  2021 Ejaz Jamil, Jence.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of 
+ * this software and associated documentation files (the Software), to deal in 
+ * the Software without restriction, including without limitation the rights to 
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+ * of the Software, and to permit persons to whom the Software is furnished to do 
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. 
+ * 
+ */
+package jence.driver;
+
+/**
+ * The library functions called by the driver, as counted by {@link DriverMetrics}.
+ * 
+ * @author Ejaz Jamil, Jence.
+ *
+ */
+public enum NativeCall {
+	GET_LIBRARY_VERSION,
+	GET_HID_LIBRARY_VERSION,
+	GET_NUM_DEVICES,
+	GET_STRING,
+	IS_OPENED,
+	OPEN,
+	GET_PART_NUMBER,
+	SET_UART_CONFIG,
+	GET_UART_STATUS,
+	GET_UART_CONFIG,
+	SET_TIMEOUTS,
+	GET_OPENED_STRING,
+	CLOSE,
+	READ,
+	WRITE
+}
@@ -0,0 +1,350 @@
+/**
+ * The MIT LICENSE (MIT):
+ * 
+ * Copyright  2021 Ejaz Jamil, Jence.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of 
+ * this software and associated documentation files (the Software), to deal in 
+ * the Software without restriction, including without limitation the rights to 
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+ * of the Software, and to permit persons to whom the Software is furnished to do 
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. 
+ * 
+ */
+package jence.driver;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import com.sun.jna.Native;
+import com.sun.jna.NativeLibrary;
+import com.sun.jna.Platform;
+
+/**
+ * Loads the SiLabs library once per JVM, on first use, for the operating system
+ * and architecture the JVM runs on. The library is looked for in this order:
+ * 
+ * <ol>
+ * <li>The file named by the system property <code>jence.driver.library</code>,
+ * if set. Nothing else is tried then.</li>
+ * <li>The copy packed in the driver jar under <code>jence/driver/native/&lt;platform&gt;</code>.
+ * It is extracted into the cache directory, given by the system property 
+ * <code>jence.driver.cache</code> or <code>~/.cache/cp2110-hid-driver</code> by 
+ * default, and extracted again only if the packed file differs in size or time.</li>
+ * <li>The copy in the working directory, as laid out in the project folder: the 
+ * 64 bit DLLs at the top and the 32 bit DLLs in <code>x86</code>.</li>
+ * <li>The library installed on the system, found by the usual JNA search path.</li>
+ * </ol>
+ * 
+ * The platforms with a library in the project are <code>win32-x86-64</code>,
+ * <code>win32-x86</code>, <code>linux-x86</code> and <code>darwin</code>. On 
+ * Windows, SLABHIDDevice.dll is loaded first from the same directory.
+ * 
+ * The outcome, success or failure, is kept: a library that failed to load is
+ * not tried again until the JVM restarts. Call {@link #preload()} at startup to 
+ * take the load time there instead of in the first driver call.
+ * 
+ * @author Ejaz Jamil, Jence.
+ *
+ */
+public final class NativeLoader {
+	/**
+	 * System property naming the library file to load.
+	 */
+	public static final String PROPERTY_LIBRARY = "jence.driver.library";
+	/**
+	 * System property naming the directory the packed libraries are extracted to.
+	 */
+	public static final String PROPERTY_CACHE = "jence.driver.cache";
+
+	private static final String PLATFORM = platform();
+
+	private final HidUartBackend library_;
+	private final String path_;
+	private final long loadNanos_;
+	private final DriverException error_;
+
+	/**
+	 * Holds the outcome of the load. The JVM runs the load when the class is 
+	 * first used, exactly once and without further locking.
+	 */
+	private static final class Holder {
+		static final NativeLoader INSTANCE = load();
+	}
+
+	private NativeLoader(HidUartBackend library, String path, long loadNanos, DriverException error) {
+		library_ = library;
+		path_ = path;
+		loadNanos_ = loadNanos;
+		error_ = error;
+	}
+
+	/**
+	 * Loads the library now if it is not loaded yet.
+	 * 
+	 * @throws DriverException if the library cannot be loaded.
+	 */
+	public static void preload() throws DriverException {
+		library();
+	}
+
+	/**
+	 * Gets the loaded library, loading it on the first call.
+	 * 
+	 * @return the library.
+	 * @throws DriverException if the library cannot be loaded.
+	 */
+	static HidUartBackend library() throws DriverException {
+		NativeLoader loader = Holder.INSTANCE;
+		if (loader.error_ != null)
+			throw new DriverException(loader.error_.getMessage(), loader.error_);
+		return loader.library_;
+	}
+
+	/**
+	 * Gets the platform name used to pick the library, such as <code>win32-x86-64</code>
+	 * or <code>linux-x86</code>. Does not load the library.
+	 * 
+	 * @return platform name.
+	 */
+	public static String getPlatform() {
+		return PLATFORM;
+	}
+
+	/**
+	 * Gets the file the library was loaded from, loading it on the first call.
+	 * 
+	 * @return absolute path, or the library name if found on the search path. 
+	 * Null if the library could not be loaded.
+	 */
+	public static String getLibraryPath() {
+		return Holder.INSTANCE.path_;
+	}
+
+	/**
+	 * Gets the time the load took, extraction included, loading it on the 
+	 * first call.
+	 * 
+	 * @return time in nanoseconds.
+	 */
+	public static long getLoadTimeNanos() {
+		return Holder.INSTANCE.loadNanos_;
+	}
+
+	/**
+	 * Gets the error that prevented the load, loading it on the first call.
+	 * 
+	 * @return the error or null if loaded.
+	 */
+	public static DriverException getError() {
+		return Holder.INSTANCE.error_;
+	}
+
+	/**
+	 * Internal method that names the platform the JVM runs on, in the style
+	 * of the JNA resource prefix. The macOS library is universal, so there
+	 * is a single name for all Mac architectures.
+	 * 
+	 * @return platform name.
+	 */
+	private static String platform() {
+		if (Platform.isMac())
+			return "darwin";
+		String arch = Platform.ARCH;
+		if (Platform.isIntel())
+			arch = (Platform.is64Bit()) ? "x86-64" : "x86";
+		if (Platform.isWindows())
+			return "win32-" + arch;
+		if (Platform.isLinux())
+			return "linux-" + arch;
+		return Platform.RESOURCE_PREFIX;
+	}
+
+	/**
+	 * Internal method that lists the library files of a platform, the library
+	 * itself last, after the libraries it depends on.
+	 * 
+	 * @param platform platform name.
+	 * @return file names, or null if no library is packed for the platform.
+	 */
+	private static String[] files(String platform) {
+		switch (platform) {
+		case "win32-x86-64":
+		case "win32-x86":
+			return new String[] { "SLABHIDDevice.dll", "SLABHIDtoUART.dll" };
+		case "linux-x86":
+			return new String[] { "libslabhidtouart.so.1.0" };
+		case "darwin":
+			return new String[] { "libSLABHIDtoUART.dylib" };
+		}
+		return null;
+	}
+
+	/**
+	 * Internal method that loads the library, trying each place in turn.
+	 * 
+	 * @return the outcome.
+	 */
+	private static NativeLoader load() {
+		long start = System.nanoTime();
+		String[] files = files(PLATFORM);
+		DriverException error = null;
+
+		String explicit = System.getProperty(PROPERTY_LIBRARY);
+		if (explicit != null) {
+			File file = new File(explicit).getAbsoluteFile();
+			try {
+				return loaded(loadFrom(file.getParentFile(), (files == null) ? new String[] { file.getName() } 
+					: dependencies(files, file.getName())), file.getPath(), start);
+			} catch (UnsatisfiedLinkError e) {
+				return failed("Library not loaded from "+file+": "+e.getMessage(), e, start);
+			}
+		}
+
+		if (files != null) {
+			// packed in the jar
+			try {
+				File dir = extract(files);
+				if (dir != null)
+					return loaded(loadFrom(dir, files), new File(dir, files[files.length - 1]).getPath(), start);
+			} catch (IOException | UnsatisfiedLinkError e) {
+				error = new DriverException("Packed library not loaded for "+PLATFORM, e);
+			}
+			// in the working directory
+			File dir = new File(System.getProperty("user.dir"), (PLATFORM.equals("win32-x86")) ? "x86" : "");
+			File file = new File(dir, files[files.length - 1]);
+			if (file.isFile()) {
+				try {
+					return loaded(loadFrom(dir, files), file.getPath(), start);
+				} catch (UnsatisfiedLinkError e) {
+					if (error == null)
+						error = new DriverException("Library not loaded from "+file, e);
+				}
+			}
+		}
+
+		// installed on the system
+		String name = (Platform.isLinux()) ? "slabhidtouart" : "SLABHIDtoUART";
+		try {
+			return loaded(Native.load(name, CP2110HidDriver.IHIDUart.class), name, start);
+		} catch (UnsatisfiedLinkError e) {
+			DriverException last = new DriverException("Library not loaded for "+PLATFORM+": "+e.getMessage(), e);
+			if (error != null)
+				last.addSuppressed(error);
+			return new NativeLoader(null, null, System.nanoTime() - start, last);
+		}
+	}
+
+	/**
+	 * Internal method that records a successful load.
+	 */
+	private static NativeLoader loaded(HidUartBackend library, String path, long start) {
+		return new NativeLoader(library, path, System.nanoTime() - start, null);
+	}
+
+	/**
+	 * Internal method that records a failed load.
+	 */
+	private static NativeLoader failed(String message, Throwable cause, long start) {
+		return new NativeLoader(null, null, System.nanoTime() - start, new DriverException(message, cause));
+	}
+
+	/**
+	 * Internal method that replaces the library name of a platform file list
+	 * with the given one, keeping the dependencies.
+	 */
+	private static String[] dependencies(String[] files, String name) {
+		String[] list = files.clone();
+		list[list.length - 1] = name;
+		return list;
+	}
+
+	/**
+	 * Internal method that loads the dependencies present in the directory, 
+	 * then the library itself.
+	 * 
+	 * @param dir directory.
+	 * @param files file names, the library last.
+	 * @return the library.
+	 */
+	private static HidUartBackend loadFrom(File dir, String[] files) {
+		for (int i = 0; i < files.length - 1; i++) {
+			File dependency = new File(dir, files[i]);
+			if (dependency.isFile())
+				NativeLibrary.getInstance(dependency.getAbsolutePath());
+		}
+		return Native.load(new File(dir, files[files.length - 1]).getAbsolutePath(), CP2110HidDriver.IHIDUart.class);
+	}
+
+	/**
+	 * Internal method that copies the libraries packed in the jar into the 
+	 * cache directory, unless they are there already. When the classes are 
+	 * not in a jar, the packed directory is used as is.
+	 * 
+	 * @param files file names.
+	 * @return the directory holding the files, or null if none are packed.
+	 * @throws IOException
+	 */
+	private static File extract(String[] files) throws IOException {
+		String base = "native/" + PLATFORM + "/";
+		URL first = NativeLoader.class.getResource(base + files[0]);
+		if (first == null)
+			return null;
+		if ("file".equals(first.getProtocol())) {
+			try {
+				return new File(first.toURI()).getParentFile();
+			} catch (URISyntaxException e) {
+				throw new IOException(e);
+			}
+		}
+
+		String cache = System.getProperty(PROPERTY_CACHE);
+		File dir = (cache != null) ? new File(cache, PLATFORM) 
+			: new File(System.getProperty("user.home"), ".cache" + File.separator + "cp2110-hid-driver" + File.separator + PLATFORM);
+		Files.createDirectories(dir.toPath());
+		for (String name : files) {
+			URL url = NativeLoader.class.getResource(base + name);
+			if (url == null)
+				throw new IOException("Missing packed library "+base+name);
+			URLConnection connection = url.openConnection();
+			long size = connection.getContentLengthLong();
+			long time = connection.getLastModified();
+			File file = new File(dir, name);
+			// file systems keep the time in steps of up to two seconds
+			if (file.length() == size && Math.abs(file.lastModified() - time) <= 2000)
+				continue;
+			// copy next to the target and move, so that a concurrent start never loads a partial file
+			File tmp = File.createTempFile(name, ".tmp", dir);
+			try {
+				try (InputStream in = connection.getInputStream()) {
+					Files.copy(in, tmp.toPath(), StandardCopyOption.REPLACE_EXISTING);
+				}
+				tmp.setLastModified(time);
+				Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (IOException e) {
+				// a library in use by another process cannot be replaced on Windows
+				if (file.length() != size)
+					throw e;
+			} finally {
+				tmp.delete();
+			}
+		}
+		return dir;
+	}
+}
@@ -0,0 +1,91 @@
+/**
+ * The MIT LICENSE (MIT):
+ * 
+ * Copyright  2021 Ejaz Jamil, Jence.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of 
+ * this software and associated documentation files (the Software), to deal in 
+ * the Software without restriction, including without limitation the rights to 
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+ * of the Software, and to permit persons to whom the Software is furnished to do 
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. 
+ * 
+ */
+package jence.driver;
+
+/**
+ * Read settings of the driver, see {@link CP2110HidDriver#setReadProfile(ReadProfile)}.
+ * <code>HidUart_Read</code> returns as soon as the requested number of bytes has
+ * arrived, or when the read timeout expires. A small request with a short timeout
+ * delivers short frames, such as card taps, quickly. A large request with a long
+ * timeout makes fewer native calls for bulk transfers.
+ * 
+ * @author Ejaz Jamil, Jence.
+ *
+ */
+public enum ReadProfile {
+	/**
+	 * Small requests and a short timeout, for short frames that should be 
+	 * delivered without delay.
+	 */
+	LOW_LATENCY(64, 10),
+	/**
+	 * The default, {@link CP2110HidDriver#READ_SIZE} bytes and 
+	 * {@link CP2110HidDriver#READ_TIMEOUT} milliseconds.
+	 */
+	BALANCED(CP2110HidDriver.READ_SIZE, CP2110HidDriver.READ_TIMEOUT),
+	/**
+	 * Largest requests and a long timeout, for continuous data streams.
+	 */
+	BULK(CP2110HidDriver.HID_UART_MAX_READ_SIZE, 1000),
+	/**
+	 * Starts as {@link #BALANCED} and adjusts the request size and read timeout
+	 * to the data observed, see {@link AdaptiveReadTuner}.
+	 */
+	ADAPTIVE(CP2110HidDriver.READ_SIZE, CP2110HidDriver.READ_TIMEOUT),
+	/**
+	 * Asks the device how many bytes it has received with <code>HidUart_GetUartStatus</code>
+	 * before each read and requests exactly that many, up to the read size, so the
+	 * read returns without waiting. While nothing is received, the status is polled
+	 * again after a pause that grows from 1 to 16 ms, until the read timeout. 
+	 * Overruns and parity errors are counted on every poll, see 
+	 * {@link DriverMetrics#getOverruns()}.
+	 */
+	FIFO_POLLING(CP2110HidDriver.HID_UART_MAX_READ_SIZE, CP2110HidDriver.READ_TIMEOUT);
+
+	private final int readSize_;
+	private final int readTimeout_;
+
+	private ReadProfile(int readSize, int readTimeout) {
+		readSize_ = readSize;
+		readTimeout_ = readTimeout;
+	}
+
+	/**
+	 * Gets the number of bytes requested per read.
+	 * 
+	 * @return read size in bytes.
+	 */
+	public int getReadSize() {
+		return readSize_;
+	}
+
+	/**
+	 * Gets the read timeout.
+	 * 
+	 * @return timeout in milliseconds.
+	 */
+	public int getReadTimeout() {
+		return readTimeout_;
+	}
+}
@@ -0,0 +1,129 @@
+/**
+ * The MIT LICENSE (MIT):
+ * 
+ * Copyright  2021 Ejaz Jamil, Jence.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of 
+ * this software and associated documentation files (the Software), to deal in 
+ * the Software without restriction, including without limitation the rights to 
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+ * of the Software, and to permit persons to whom the Software is furnished to do 
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. 
+ * 
+ */
+package jence.driver;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides how a {@link SupervisedConnection} waits between the attempts to
+ * connect again to a lost device. The delay starts at the initial delay and 
+ * grows by the multiplier after each failed attempt, up to the maximum delay.
+ * A random part of each delay, given by the jitter, is taken off so that 
+ * several drivers that lost their devices at once do not retry in step.
+ * 
+ * @author Ejaz Jamil, Jence.
+ *
+ */
+public final class ReconnectPolicy {
+	/**
+	 * Starts at 10 ms, doubles up to 5 s, with 50% jitter, and never gives up.
+	 */
+	public static final ReconnectPolicy DEFAULT = new ReconnectPolicy(10, 5000, 2.0, 0.5, 0);
+
+	private final long initialDelayMillis_;
+	private final long maxDelayMillis_;
+	private final double multiplier_;
+	private final double jitter_;
+	private final int maxAttempts_;
+
+	/**
+	 * Creates the policy.
+	 * 
+	 * @param initialDelayMillis delay before the first attempt, in milliseconds.
+	 * @param maxDelayMillis largest delay between two attempts, in milliseconds.
+	 * @param multiplier growth of the delay after a failed attempt, at least 1.
+	 * @param jitter part of the delay taken off at random, from 0 (none) to 1 (up to all of it).
+	 * @param maxAttempts number of attempts before giving up. Zero to try forever.
+	 */
+	public ReconnectPolicy(long initialDelayMillis, long maxDelayMillis, double multiplier, double jitter, int maxAttempts) {
+		if (initialDelayMillis < 0 || maxDelayMillis < initialDelayMillis)
+			throw new IllegalArgumentException("Invalid reconnect delays.");
+		if (!(multiplier >= 1) || !(jitter >= 0 && jitter <= 1) || maxAttempts < 0)
+			throw new IllegalArgumentException("Invalid reconnect policy.");
+		initialDelayMillis_ = initialDelayMillis;
+		maxDelayMillis_ = maxDelayMillis;
+		multiplier_ = multiplier;
+		jitter_ = jitter;
+		maxAttempts_ = maxAttempts;
+	}
+
+	/**
+	 * Gets the delay before the given attempt, with the jitter applied.
+	 * 
+	 * @param attempt attempt number, starting at zero.
+	 * @return delay in milliseconds.
+	 */
+	long delay(int attempt) {
+		double d = initialDelayMillis_ * Math.pow(multiplier_, attempt);
+		long base = (d >= maxDelayMillis_) ? maxDelayMillis_ : (long)d;
+		if (jitter_ == 0 || base == 0)
+			return base;
+		return base - (long)(ThreadLocalRandom.current().nextDouble() * jitter_ * base);
+	}
+
+	/**
+	 * Gets the delay before the first attempt.
+	 * 
+	 * @return delay in milliseconds.
+	 */
+	public long getInitialDelayMillis() {
+		return initialDelayMillis_;
+	}
+
+	/**
+	 * Gets the largest delay between two attempts.
+	 * 
+	 * @return delay in milliseconds.
+	 */
+	public long getMaxDelayMillis() {
+		return maxDelayMillis_;
+	}
+
+	/**
+	 * Gets the growth of the delay after a failed attempt.
+	 * 
+	 * @return multiplier.
+	 */
+	public double getMultiplier() {
+		return multiplier_;
+	}
+
+	/**
+	 * Gets the part of the delay taken off at random.
+	 * 
+	 * @return jitter, from 0 to 1.
+	 */
+	public double getJitter() {
+		return jitter_;
+	}
+
+	/**
+	 * Gets the number of attempts before giving up.
+	 * 
+	 * @return attempts, zero if unlimited.
+	 */
+	public int getMaxAttempts() {
+		return maxAttempts_;
+	}
+}
@@ -0,0 +1,436 @@
+/**
+ * The MIT LICENSE (MIT):
+ * 
+ * Copyright  2021 Ejaz Jamil, Jence.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of 
+ * this software and associated documentation files (the Software), to deal in 
+ * the Software without restriction, including without limitation the rights to 
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+ * of the Software, and to permit persons to whom the Software is furnished to do 
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. 
+ * 
+ */
+package jence.driver;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.sun.jna.Pointer;
+import com.sun.jna.ptr.IntByReference;
+
+/**
+ * Backend that plays a capture written by {@link CaptureWriter} back to the
+ * driver. Every device serial in the capture is a device, and each read returns
+ * the next recorded chunk of that device once it is due, so <code>listen()</code>,
+ * the framer, the deduplicator and the listener run as they did in the field.
+ * <p>
+ * The chunks are due at the recorded times divided by the speed, counted from
+ * the first device opened: 1 replays in real time, 10 ten times faster, and 0
+ * as fast as the driver reads, which measures the throughput of the listener 
+ * code. Once all chunks of a device are returned, its reads time out.
+ * <pre>
+ * ReplayBackend replay = new ReplayBackend(dir, 0);
+ * CP2110HidDriver.setBackend(replay);
+ * CP2110HidDriver hid = new CP2110HidDriver();
+ * String serial = replay.getSerials()[0];
+ * hid.connect(serial, 9600, 8, 'N', 1, false);
+ * Subscription s = hid.listen(serial, listener, null);
+ * replay.awaitFinished(60000);
+ * s.close();
+ * </pre>
+ * 
+ * @author Ejaz Jamil, Jence.
+ *
+ */
+public class ReplayBackend implements HidUartBackend {
+	private final double speed_;
+	private final ByteBuffer[] segments_;
+	private final Track[] tracks_;
+	private final long firstNanos_;
+	private final ConcurrentHashMap<Long, Track> handles_ = new ConcurrentHashMap<Long, Track>();
+	private final AtomicLong nextHandle_ = new AtomicLong(1);
+	private long start_;
+
+	/**
+	 * The recorded chunks of a device.
+	 */
+	private static final class Track {
+		private final String serial_;
+		private long[] nanos_ = new long[64];
+		// segment index in the high int, data offset in the low int
+		private long[] pos_ = new long[64];
+		private int[] len_ = new int[64];
+		private int count_;
+		private int next_, partial_;
+		private boolean open_;
+		private int readTimeout_;
+		private int baudRate_ = 115200;
+		private byte dataBits_ = 0x03, parity_, stopBits_, flowControl_;
+		private ByteBuffer[] views_;
+		private final byte[] scratch_ = new byte[CP2110HidDriver.HID_UART_MAX_READ_SIZE];
+
+		Track(String serial) {
+			serial_ = serial;
+		}
+
+		void add(long nanos, int segment, int offset, int length) {
+			if (count_ == nanos_.length) {
+				nanos_ = Arrays.copyOf(nanos_, count_ * 2);
+				pos_ = Arrays.copyOf(pos_, count_ * 2);
+				len_ = Arrays.copyOf(len_, count_ * 2);
+			}
+			nanos_[count_] = nanos;
+			pos_[count_] = ((long)segment << 32) | offset;
+			len_[count_] = length;
+			count_++;
+		}
+	}
+
+	/**
+	 * Loads the index of a capture. The data stays in the mapped segments.
+	 * 
+	 * @param dir directory of the capture.
+	 * @param speed replay speed, 1 for real time, 0 for no delay.
+	 * @throws IOException
+	 */
+	public ReplayBackend(File dir, double speed) throws IOException {
+		if (speed < 0)
+			throw new IllegalArgumentException("Negative speed.");
+		speed_ = speed;
+		Map<String, Track> tracks = new LinkedHashMap<String, Track>();
+		List<ByteBuffer> segments = new ArrayList<ByteBuffer>();
+		long first = 0;
+		boolean any = false;
+		CaptureReader reader = new CaptureReader(dir);
+		try {
+			while (reader.next()) {
+				// a segment without records keeps its slot empty
+				while (segments.size() <= reader.segment())
+					segments.add(segments.size() == reader.segment() ? reader.buffer() : null);
+				Track track = tracks.get(reader.getSerial());
+				if (track == null) {
+					track = new Track(reader.getSerial());
+					tracks.put(track.serial_, track);
+				}
+				if (!any) {
+					first = reader.getNanos();
+					any = true;
+				}
+				track.add(reader.getNanos(), reader.segment(), reader.offset(), reader.getLength());
+			}
+		} finally {
+			reader.close();
+		}
+		firstNanos_ = first;
+		segments_ = segments.toArray(new ByteBuffer[segments.size()]);
+		tracks_ = tracks.values().toArray(new Track[tracks.size()]);
+	}
+
+	/**
+	 * Gets the serials of the devices in the capture.
+	 * 
+	 * @return serials, in order of their first record.
+	 */
+	public String[] getSerials() {
+		String[] serials = new String[tracks_.length];
+		for (int i = 0; i < tracks_.length; i++)
+			serials[i] = tracks_[i].serial_;
+		return serials;
+	}
+
+	/**
+	 * Gets the number of chunks in the capture.
+	 * 
+	 * @return chunks.
+	 */
+	public long getChunks() {
+		long n = 0;
+		for (Track track : tracks_)
+			n += track.count_;
+		return n;
+	}
+
+	/**
+	 * Gets the number of chunks returned so far.
+	 * 
+	 * @return chunks replayed.
+	 */
+	public long getChunksReplayed() {
+		long n = 0;
+		for (Track track : tracks_) {
+			synchronized (track) {
+				n += track.next_;
+			}
+		}
+		return n;
+	}
+
+	/**
+	 * Checks if all chunks were returned.
+	 * 
+	 * @return true when the replay is over.
+	 */
+	public boolean isFinished() {
+		return getChunksReplayed() == getChunks();
+	}
+
+	/**
+	 * Waits until all chunks were returned.
+	 * 
+	 * @param timeout time to wait in milliseconds.
+	 * @return true when the replay is over.
+	 * @throws InterruptedException
+	 */
+	public boolean awaitFinished(long timeout) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+		for (Track track : tracks_) {
+			synchronized (track) {
+				long wait;
+				while (track.next_ < track.count_) {
+					if ((wait = deadline - System.nanoTime()) <= 0)
+						return false;
+					TimeUnit.NANOSECONDS.timedWait(track, wait);
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Time the next chunk of the track is due.
+	 */
+	private long due(Track track) {
+		return start_ + (long)((track.nanos_[track.next_] - firstNanos_) / speed_);
+	}
+
+	private static byte string(Track track, byte[] deviceString, int options) {
+		String s;
+		switch (options) {
+		case 0x01: s = "10C4"; break;
+		case 0x02: s = "EA80"; break;
+		case 0x03: s = "replay://" + track.serial_; break;
+		case 0x04: s = track.serial_; break;
+		case 0x05: s = "Silicon Labs"; break;
+		case 0x06: s = "CP2110 HID USB-to-UART Bridge"; break;
+		default: return HID_UART_INVALID_PARAMETER;
+		}
+		byte[] b = s.getBytes(StandardCharsets.UTF_8);
+		int n = Math.min(b.length, deviceString.length - 1);
+		System.arraycopy(b, 0, deviceString, 0, n);
+		deviceString[n] = 0;
+		return HID_UART_SUCCESS;
+	}
+
+	@Override
+	public byte HidUart_GetLibraryVersion(byte[] major, byte[] minor, boolean[] release) {
+		major[0] = 1;
+		minor[0] = 0;
+		release[0] = true;
+		return HID_UART_SUCCESS;
+	}
+
+	@Override
+	public byte HidUart_GetHidLibraryVersion(byte[] major, byte[] minor, boolean[] release) {
+		return HidUart_GetLibraryVersion(major, minor, release);
+	}
+
+	@Override
+	public byte HidUart_GetNumDevices(int[] numDevices, short vid, short pid) {
+		numDevices[0] = tracks_.length;
+		return HID_UART_SUCCESS;
+	}
+
+	@Override
+	public byte HidUart_GetString(int deviceNum, short vid, short pid, byte[] deviceString, int options) {
+		if (deviceNum < 0 || deviceNum >= tracks_.length)
+			return HID_UART_DEVICE_NOT_FOUND;
+		return string(tracks_[deviceNum], deviceString, options);
+	}
+
+	@Override
+	public byte HidUart_IsOpened(long device, IntByReference opened) {
+		if (!handles_.containsKey(device))
+			return HID_UART_INVALID_DEVICE_OBJECT;
+		opened.setValue(1);
+		return HID_UART_SUCCESS;
+	}
+
+	@Override
+	public byte HidUart_Open(long[] device, int deviceNum, short vid, short pid) {
+		if (deviceNum < 0 || deviceNum >= tracks_.length)
+			return HID_UART_DEVICE_NOT_FOUND;
+		Track track = tracks_[deviceNum];
+		synchronized (this) {
+			if (start_ == 0)
+				start_ = System.nanoTime();
+		}
+		synchronized (track) {
+			if (track.open_)
+				return HID_UART_DEVICE_ACCESS_ERROR;
+			track.open_ = true;
+			if (track.views_ == null) {
+				track.views_ = new ByteBuffer[segments_.length];
+				for (int i = 0; i < segments_.length; i++)
+					track.views_[i] = (segments_[i] != null) ? segments_[i].duplicate() : null;
+			}
+		}
+		long handle = nextHandle_.getAndIncrement();
+		handles_.put(handle, track);
+		device[0] = handle;
+		return HID_UART_SUCCESS;
+	}
+
+	@Override
+	public byte HidUart_GetPartNumber(long device, byte[] partNumber, byte[] version) {
+		if (!handles_.containsKey(device))
+			return HID_UART_INVALID_DEVICE_OBJECT;
+		partNumber[0] = 0x0A;
+		version[0] = 1;
+		return HID_UART_SUCCESS;
+	}
+
+	@Override
+	public byte HidUart_SetUartConfig(long device, int baudRate, byte dataBits, byte parity, byte stopBits, byte flowControl) {
+		Track track = handles_.get(device);
+		if (track == null)
+			return HID_UART_INVALID_DEVICE_OBJECT;
+		synchronized (track) {
+			track.baudRate_ = baudRate;
+			track.dataBits_ = dataBits;
+			track.parity_ = parity;
+			track.stopBits_ = stopBits;
+			track.flowControl_ = flowControl;
+		}
+		return HID_UART_SUCCESS;
+	}
+
+	@Override
+	public byte HidUart_GetUartStatus(long device, short[] transmitFifoSize, short[] receiveFifoSize, byte[] errorStatus, byte[] lineBreakStatus) {
+		Track track = handles_.get(device);
+		if (track == null)
+			return HID_UART_INVALID_DEVICE_OBJECT;
+		synchronized (track) {
+			int rx = 0;
+			if (track.next_ < track.count_ && (speed_ == 0 || due(track) <= System.nanoTime()))
+				rx = track.len_[track.next_] - track.partial_;
+			transmitFifoSize[0] = 0;
+			receiveFifoSize[0] = (short)rx;
+			errorStatus[0] = 0;
+			lineBreakStatus[0] = 0;
+		}
+		return HID_UART_SUCCESS;
+	}
+
+	@Override
+	public byte HidUart_GetUartConfig(long device, int[] baudRate, byte[] dataBits, byte[] parity, byte[] stopBits, byte[] flowControl) {
+		Track track = handles_.get(device);
+		if (track == null)
+			return HID_UART_INVALID_DEVICE_OBJECT;
+		synchronized (track) {
+			baudRate[0] = track.baudRate_;
+			dataBits[0] = track.dataBits_;
+			parity[0] = track.parity_;
+			stopBits[0] = track.stopBits_;
+			flowControl[0] = track.flowControl_;
+		}
+		return HID_UART_SUCCESS;
+	}
+
+	@Override
+	public byte HidUart_SetTimeouts(long device, int readTimeout, int writeTimeout) {
+		Track track = handles_.get(device);
+		if (track == null)
+			return HID_UART_INVALID_DEVICE_OBJECT;
+		synchronized (track) {
+			track.readTimeout_ = readTimeout;
+		}
+		return HID_UART_SUCCESS;
+	}
+
+	@Override
+	public byte HidUart_GetOpenedString(long device, byte[] deviceString, int options) {
+		Track track = handles_.get(device);
+		if (track == null)
+			return HID_UART_INVALID_DEVICE_OBJECT;
+		return string(track, deviceString, options);
+	}
+
+	@Override
+	public byte HidUart_Close(long device) {
+		Track track = handles_.remove(device);
+		if (track == null)
+			return HID_UART_INVALID_DEVICE_OBJECT;
+		synchronized (track) {
+			track.open_ = false;
+			track.notifyAll();
+		}
+		return HID_UART_SUCCESS;
+	}
+
+	@Override
+	public byte HidUart_Read(long device, Pointer buffer, int numBytesToRead, IntByReference numBytesRead) {
+		numBytesRead.setValue(0);
+		Track track = handles_.get(device);
+		if (track == null)
+			return HID_UART_INVALID_DEVICE_OBJECT;
+		if (numBytesToRead < CP2110HidDriver.HID_UART_MIN_READ_SIZE || numBytesToRead > CP2110HidDriver.HID_UART_MAX_READ_SIZE)
+			return HID_UART_INVALID_REQUEST_LENGTH;
+		synchronized (track) {
+			long now = System.nanoTime();
+			long deadline = now + TimeUnit.MILLISECONDS.toNanos(track.readTimeout_);
+			long until = (track.next_ < track.count_) ? (speed_ == 0 ? now : Math.min(due(track), deadline)) : deadline;
+			try {
+				while (track.open_ && (now = System.nanoTime()) < until)
+					TimeUnit.NANOSECONDS.timedWait(track, until - now);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			if (!track.open_ || track.next_ == track.count_ || (speed_ != 0 && due(track) > System.nanoTime()))
+				return HID_UART_READ_TIMED_OUT;
+			int i = track.next_;
+			int n = Math.min(numBytesToRead, track.len_[i] - track.partial_);
+			ByteBuffer view = track.views_[(int)(track.pos_[i] >>> 32)];
+			view.limit(view.capacity()).position((int)track.pos_[i] + track.partial_);
+			view.get(track.scratch_, 0, n);
+			buffer.write(0, track.scratch_, 0, n);
+			track.partial_ += n;
+			if (track.partial_ == track.len_[i]) {
+				track.partial_ = 0;
+				track.next_++;
+				track.notifyAll();
+			}
+			numBytesRead.setValue(n);
+			return (n == numBytesToRead) ? HID_UART_SUCCESS : HID_UART_READ_TIMED_OUT;
+		}
+	}
+
+	@Override
+	public byte HidUart_Write(long device, Pointer buffer, int numBytesToWrite, IntByReference numBytesWritten) {
+		if (!handles_.containsKey(device))
+			return HID_UART_INVALID_DEVICE_OBJECT;
+		// writes are not part of the capture and are dropped
+		numBytesWritten.setValue(numBytesToWrite);
+		return HID_UART_SUCCESS;
+	}
+}
@@ -0,0 +1,693 @@
+/**
+ * The MIT LICENSE (MIT):
+ * 
+ * Copyright  2021 Ejaz Jamil, Jence.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of 
+ * this software and associated documentation files (the Software), to deal in 
+ * the Software without restriction, including without limitation the rights to 
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+ * of the Software, and to permit persons to whom the Software is furnished to do 
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. 
+ * 
+ */
+package jence.driver;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.sun.jna.Pointer;
+import com.sun.jna.ptr.IntByReference;
+
+/**
+ * In-memory backend that simulates CP2110 devices, so the driver and the 
+ * software built on it can be run and load tested without the chip.
+ * <p>
+ * Each simulated {@link Device} receives from a serial line into the FIFO of
+ * the chip, {@link #FIFO_SIZE} bytes, followed by the {@link #HOST_BUFFER_SIZE}
+ * bytes of input reports the HID driver buffers on the host. Bytes are put on the line with {@link Device#feed(byte[])}
+ * or repeated forever with {@link Device#setPattern(byte[])}, and they arrive
+ * at the line rate set by the UART configuration, or by {@link Device#setLineRate(int)}.
+ * Without flow control, bytes arriving when both are full are lost and the overrun
+ * error is reported by <code>HidUart_GetUartStatus</code>; with RTS/CTS flow
+ * control they wait on the line. Reads and writes honor the timeouts set with
+ * <code>HidUart_SetTimeouts</code>. Failures are injected with 
+ * {@link Device#injectFailure(int, int)} and {@link Device#injectOverrun()},
+ * and unplugging is simulated by {@link #removeDevice(String)}.
+ * <p>
+ * Usage:
+ * <pre>
+ * SimulatedCP2110 sim = new SimulatedCP2110();
+ * sim.addDevice("SIM0").setPattern(frame);
+ * CP2110HidDriver.setBackend(sim);
+ * CP2110HidDriver hid = new CP2110HidDriver();
+ * hid.connect("SIM0", 9600, 8, 'N', 1, false);
+ * </pre>
+ * 
+ * @author Ejaz Jamil, Jence.
+ *
+ */
+public class SimulatedCP2110 implements HidUartBackend {
+	/**
+	 * Size of the receive and the transmit FIFO of the CP2110.
+	 */
+	public static final int FIFO_SIZE = 480;
+
+	/**
+	 * Input reports buffered by the HID driver on the host, 32 reports of
+	 * 63 bytes.
+	 */
+	public static final int HOST_BUFFER_SIZE = 32 * 63;
+
+	private static final int RX_SIZE = FIFO_SIZE + HOST_BUFFER_SIZE;
+
+	private static final short VID = 0x10C4;
+	private static final short PID = (short)0xEA80;
+	private static final String[] STRINGS = {null, "10C4", "EA80", null, null, "Silicon Labs", "CP2110 HID USB-to-UART Bridge"};
+
+	private final List<Device> devices_ = new ArrayList<Device>();
+	private final ConcurrentHashMap<Long, Device> handles_ = new ConcurrentHashMap<Long, Device>();
+	private final AtomicLong nextHandle_ = new AtomicLong(1);
+
+	/**
+	 * A simulated device. The methods are thread safe.
+	 */
+	public static final class Device {
+		private final String serial_;
+		private final byte[] rx_ = new byte[RX_SIZE];
+		private int rxHead_, rxCount_;
+		private byte[] line_ = new byte[64];
+		private int lineHead_, lineCount_;
+		private byte[] pattern_;
+		private int patternPos_;
+		private long lineClock_ = System.nanoTime();
+		private long txClock_;
+		private long charNanos_;
+
+		private int baudRate_ = 115200;
+		private int dataBits_ = 0x03, parity_ = 0x00, stopBits_ = 0x00, flowControl_ = 0x00;
+		private int lineRate_ = -1;
+		private int readTimeout_ = 0, writeTimeout_ = 0;
+		private boolean loopback_;
+
+		private boolean open_, unplugged_;
+		private int errorStatus_;
+		private int failStatus_, failCalls_;
+
+		private long bytesWritten_, bytesDropped_, overruns_;
+
+		private Device(String serial) {
+			serial_ = serial;
+			charNanos_ = charNanos();
+		}
+
+		/**
+		 * Gets the serial number.
+		 * 
+		 * @return serial number.
+		 */
+		public String getSerial() {
+			return serial_;
+		}
+
+		/**
+		 * Checks if a handle to the device is open.
+		 * 
+		 * @return true if open.
+		 */
+		public synchronized boolean isOpen() {
+			return open_;
+		}
+
+		/**
+		 * Puts bytes on the line. They are received at the line rate.
+		 * 
+		 * @param data bytes sent to the device.
+		 */
+		public void feed(byte[] data) {
+			feed(data, 0, data.length);
+		}
+
+		/**
+		 * Puts bytes on the line. They are received at the line rate.
+		 * 
+		 * @param data bytes sent to the device.
+		 * @param off offset of the first byte.
+		 * @param len number of bytes.
+		 */
+		public synchronized void feed(byte[] data, int off, int len) {
+			advance(System.nanoTime());
+			if (lineCount_ + len > line_.length) {
+				byte[] line = new byte[Math.max(line_.length * 2, lineCount_ + len)];
+				for (int i = 0; i < lineCount_; i++)
+					line[i] = line_[(lineHead_ + i) % line_.length];
+				line_ = line;
+				lineHead_ = 0;
+			}
+			for (int i = 0; i < len; i++)
+				line_[(lineHead_ + lineCount_ + i) % line_.length] = data[off + i];
+			lineCount_ += len;
+			notifyAll();
+		}
+
+		/**
+		 * Sends the pattern over and over once the bytes fed are sent, like a 
+		 * reader that keeps reporting a card. At a line rate above what the 
+		 * host reads, the FIFO overruns.
+		 * 
+		 * @param pattern bytes to repeat, null to stop.
+		 */
+		public synchronized void setPattern(byte[] pattern) {
+			advance(System.nanoTime());
+			pattern_ = (pattern == null || pattern.length == 0) ? null : pattern.clone();
+			patternPos_ = 0;
+			notifyAll();
+		}
+
+		/**
+		 * Overrides the line rate given by the UART configuration.
+		 * 
+		 * @param bytesPerSecond bytes per second, 0 for no limit, -1 to follow
+		 * the UART configuration again.
+		 */
+		public synchronized void setLineRate(int bytesPerSecond) {
+			advance(System.nanoTime());
+			lineRate_ = bytesPerSecond;
+			charNanos_ = charNanos();
+			notifyAll();
+		}
+
+		/**
+		 * Writes are sent back to the line when the loopback is on, as with
+		 * TX wired to RX.
+		 * 
+		 * @param loopback true to loop back.
+		 */
+		public synchronized void setLoopback(boolean loopback) {
+			loopback_ = loopback;
+		}
+
+		/**
+		 * Makes the next calls on the open handle fail with the status,
+		 * for example {@link HidUartBackend#HID_UART_DEVICE_IO_FAILED}.
+		 * 
+		 * @param status status to return.
+		 * @param calls number of calls to fail.
+		 */
+		public synchronized void injectFailure(int status, int calls) {
+			failStatus_ = status;
+			failCalls_ = calls;
+		}
+
+		/**
+		 * Simulates a receive overrun: the bytes on the line are lost and
+		 * {@link HidUartBackend#HID_UART_OVERRUN_ERROR} is reported by the
+		 * next <code>HidUart_GetUartStatus</code>.
+		 */
+		public synchronized void injectOverrun() {
+			advance(System.nanoTime());
+			drop(lineCount_);
+		}
+
+		/**
+		 * Simulates a parity error on a received byte, reported as
+		 * {@link HidUartBackend#HID_UART_PARITY_ERROR} by the next
+		 * <code>HidUart_GetUartStatus</code>.
+		 */
+		public synchronized void injectParityError() {
+			errorStatus_ |= HID_UART_PARITY_ERROR;
+		}
+
+		/**
+		 * Gets the number of bytes written by the host.
+		 * 
+		 * @return bytes written.
+		 */
+		public synchronized long getBytesWritten() {
+			return bytesWritten_;
+		}
+
+		/**
+		 * Gets the number of bytes lost by overruns.
+		 * 
+		 * @return bytes lost.
+		 */
+		public synchronized long getBytesDropped() {
+			return bytesDropped_;
+		}
+
+		/**
+		 * Gets the number of overruns.
+		 * 
+		 * @return overruns.
+		 */
+		public synchronized long getOverruns() {
+			return overruns_;
+		}
+
+		/**
+		 * Time on the line of one character, 0 if not limited.
+		 */
+		private long charNanos() {
+			if (lineRate_ == 0)
+				return 0;
+			if (lineRate_ > 0)
+				return TimeUnit.SECONDS.toNanos(1) / lineRate_;
+			// start, data, parity and stop bits counted in half bits
+			int halfBits = 2 * (1 + dataBits_ + 5 + (parity_ != 0 ? 1 : 0));
+			halfBits += (stopBits_ == 0) ? 2 : (dataBits_ == 0) ? 3 : 4;
+			return TimeUnit.SECONDS.toNanos(1) * halfBits / (2L * baudRate_);
+		}
+
+		/**
+		 * Bytes still to be sent on the line.
+		 */
+		private long pending() {
+			return (pattern_ != null) ? Long.MAX_VALUE : lineCount_;
+		}
+
+		private byte next() {
+			if (lineCount_ > 0) {
+				byte b = line_[lineHead_];
+				lineHead_ = (lineHead_ + 1) % line_.length;
+				lineCount_--;
+				return b;
+			}
+			byte b = pattern_[patternPos_];
+			patternPos_ = (patternPos_ + 1) % pattern_.length;
+			return b;
+		}
+
+		private void skip(long n) {
+			int k = (int)Math.min(n, lineCount_);
+			lineHead_ = (lineHead_ + k) % line_.length;
+			lineCount_ -= k;
+			if (n > k && pattern_ != null)
+				patternPos_ = (int)((patternPos_ + n - k) % pattern_.length);
+		}
+
+		private void drop(long n) {
+			if (n <= 0)
+				return;
+			skip(n);
+			errorStatus_ |= HID_UART_OVERRUN_ERROR;
+			bytesDropped_ += n;
+			overruns_++;
+		}
+
+		/**
+		 * Moves the bytes that arrived since the last call from the line into
+		 * the receive buffer.
+		 */
+		private void advance(long now) {
+			long n = (charNanos_ == 0) ? Long.MAX_VALUE : (now - lineClock_) / charNanos_;
+			if (n <= 0)
+				return;
+			long k = Math.min(n, pending());
+			int space = RX_SIZE - rxCount_;
+			if (flowControl_ != 0 || charNanos_ == 0)
+				k = Math.min(k, space);
+			int accept = (int)Math.min(k, space);
+			for (int i = 0; i < accept; i++)
+				rx_[(rxHead_ + rxCount_ + i) % RX_SIZE] = next();
+			rxCount_ += accept;
+			drop(k - accept);
+			// the line went idle or is held by flow control
+			lineClock_ = (k < n) ? now : lineClock_ + k * charNanos_;
+		}
+
+		/**
+		 * Status of a call on the open handle.
+		 */
+		private byte fault() {
+			if (unplugged_)
+				return HID_UART_DEVICE_IO_FAILED;
+			if (failCalls_ > 0) {
+				failCalls_--;
+				return (byte)failStatus_;
+			}
+			return HID_UART_SUCCESS;
+		}
+
+		private synchronized byte open() {
+			if (unplugged_)
+				return HID_UART_DEVICE_NOT_FOUND;
+			if (open_)
+				return HID_UART_DEVICE_ACCESS_ERROR;
+			open_ = true;
+			advance(System.nanoTime());
+			rxCount_ = 0;
+			errorStatus_ = 0;
+			return HID_UART_SUCCESS;
+		}
+
+		private synchronized boolean attached() {
+			return !unplugged_;
+		}
+
+		private synchronized void close() {
+			open_ = false;
+			notifyAll();
+		}
+
+		private synchronized void unplug() {
+			unplugged_ = true;
+			notifyAll();
+		}
+
+		private synchronized byte setUartConfig(int baudRate, int dataBits, int parity, int stopBits, int flowControl) {
+			byte status = fault();
+			if (status != HID_UART_SUCCESS)
+				return status;
+			if (baudRate < 300 || baudRate > 1000000 || dataBits < 0 || dataBits > 3 ||
+				parity < 0 || parity > 4 || stopBits < 0 || stopBits > 1 ||
+				flowControl < 0 || flowControl > 1)
+				return HID_UART_INVALID_PARAMETER;
+			advance(System.nanoTime());
+			baudRate_ = baudRate;
+			dataBits_ = dataBits;
+			parity_ = parity;
+			stopBits_ = stopBits;
+			flowControl_ = flowControl;
+			charNanos_ = charNanos();
+			return HID_UART_SUCCESS;
+		}
+
+		private synchronized byte getUartConfig(int[] baudRate, byte[] dataBits, byte[] parity, byte[] stopBits, byte[] flowControl) {
+			byte status = fault();
+			if (status != HID_UART_SUCCESS)
+				return status;
+			baudRate[0] = baudRate_;
+			dataBits[0] = (byte)dataBits_;
+			parity[0] = (byte)parity_;
+			stopBits[0] = (byte)stopBits_;
+			flowControl[0] = (byte)flowControl_;
+			return HID_UART_SUCCESS;
+		}
+
+		private synchronized byte getUartStatus(short[] transmitFifoSize, short[] receiveFifoSize, byte[] errorStatus, byte[] lineBreakStatus) {
+			byte status = fault();
+			if (status != HID_UART_SUCCESS)
+				return status;
+			long now = System.nanoTime();
+			advance(now);
+			long tx = (charNanos_ == 0) ? 0 : Math.max(0, txClock_ - now) / charNanos_;
+			transmitFifoSize[0] = (short)Math.min(tx, FIFO_SIZE);
+			receiveFifoSize[0] = (short)rxCount_;
+			errorStatus[0] = (byte)errorStatus_;
+			lineBreakStatus[0] = 0;
+			errorStatus_ = 0;
+			return HID_UART_SUCCESS;
+		}
+
+		private synchronized byte setTimeouts(int readTimeout, int writeTimeout) {
+			byte status = fault();
+			if (status != HID_UART_SUCCESS)
+				return status;
+			readTimeout_ = readTimeout;
+			writeTimeout_ = writeTimeout;
+			return HID_UART_SUCCESS;
+		}
+
+		private synchronized byte read(Pointer buffer, int len, IntByReference numBytesRead) {
+			numBytesRead.setValue(0);
+			byte status = fault();
+			if (status != HID_UART_SUCCESS)
+				return status;
+			if (len < CP2110HidDriver.HID_UART_MIN_READ_SIZE || len > CP2110HidDriver.HID_UART_MAX_READ_SIZE)
+				return HID_UART_INVALID_REQUEST_LENGTH;
+			long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(readTimeout_);
+			while (true) {
+				long now = System.nanoTime();
+				advance(now);
+				if (rxCount_ >= len || !open_ || unplugged_)
+					break;
+				long wait = deadline - now;
+				if (wait <= 0)
+					break;
+				if (charNanos_ != 0 && pending() > 0 && (flowControl_ == 0 || rxCount_ < RX_SIZE)) {
+					long eta = lineClock_ + Math.min(len - rxCount_, pending()) * charNanos_ - now;
+					wait = Math.min(wait, Math.max(eta, 1000));
+				}
+				try {
+					TimeUnit.NANOSECONDS.timedWait(this, wait);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					break;
+				}
+			}
+			if (unplugged_)
+				return HID_UART_DEVICE_IO_FAILED;
+			int n = Math.min(len, rxCount_);
+			int first = Math.min(n, RX_SIZE - rxHead_);
+			buffer.write(0, rx_, rxHead_, first);
+			if (n > first)
+				buffer.write(first, rx_, 0, n - first);
+			rxHead_ = (rxHead_ + n) % RX_SIZE;
+			rxCount_ -= n;
+			numBytesRead.setValue(n);
+			return (n == len) ? HID_UART_SUCCESS : HID_UART_READ_TIMED_OUT;
+		}
+
+		private synchronized byte write(Pointer buffer, int len, IntByReference numBytesWritten) {
+			numBytesWritten.setValue(0);
+			byte status = fault();
+			if (status != HID_UART_SUCCESS)
+				return status;
+			if (len < CP2110HidDriver.HID_UART_MIN_WRITE_SIZE || len > CP2110HidDriver.HID_UART_MAX_WRITE_SIZE)
+				return HID_UART_INVALID_REQUEST_LENGTH;
+			int accepted = len;
+			if (charNanos_ != 0) {
+				// bytes beyond the free TX FIFO wait for the line, up to the write timeout
+				long now = System.nanoTime();
+				long start = Math.max(now, txClock_);
+				long queued = (start - now) / charNanos_;
+				long room = FIFO_SIZE - queued + TimeUnit.MILLISECONDS.toNanos(writeTimeout_) / charNanos_;
+				accepted = (int)Math.max(0, Math.min(len, room));
+				long ready = start + (accepted - FIFO_SIZE) * charNanos_;
+				txClock_ = start + accepted * charNanos_;
+				while ((now = System.nanoTime()) < ready && !unplugged_) {
+					try {
+						TimeUnit.NANOSECONDS.timedWait(this, ready - now);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						break;
+					}
+				}
+				if (unplugged_)
+					return HID_UART_DEVICE_IO_FAILED;
+			}
+			bytesWritten_ += accepted;
+			if (loopback_ && accepted > 0)
+				feed(buffer.getByteArray(0, accepted), 0, accepted);
+			numBytesWritten.setValue(accepted);
+			return (accepted == len) ? HID_UART_SUCCESS : HID_UART_WRITE_TIMED_OUT;
+		}
+	}
+
+	/**
+	 * Attaches a new device.
+	 * 
+	 * @param serial serial number, used as the device id.
+	 * @return the device.
+	 */
+	public synchronized Device addDevice(String serial) {
+		Device device = new Device(serial);
+		devices_.add(device);
+		return device;
+	}
+
+	/**
+	 * Gets an attached device.
+	 * 
+	 * @param serial serial number.
+	 * @return the device, null if not attached.
+	 */
+	public synchronized Device getDevice(String serial) {
+		for (Device device : devices_)
+			if (device.serial_.equals(serial))
+				return device;
+		return null;
+	}
+
+	/**
+	 * Unplugs a device. Calls on its open handle fail with
+	 * {@link HidUartBackend#HID_UART_DEVICE_IO_FAILED} until it is closed.
+	 * 
+	 * @param serial serial number.
+	 * @return true if the device was attached.
+	 */
+	public synchronized boolean removeDevice(String serial) {
+		Device device = getDevice(serial);
+		if (device == null)
+			return false;
+		devices_.remove(device);
+		device.unplug();
+		return true;
+	}
+
+	private static boolean matches(short vid, short pid) {
+		return (vid == 0 || vid == VID) && (pid == 0 || pid == PID);
+	}
+
+	private synchronized Device device(int deviceNum, short vid, short pid) {
+		if (!matches(vid, pid) || deviceNum < 0 || deviceNum >= devices_.size())
+			return null;
+		return devices_.get(deviceNum);
+	}
+
+	private static byte string(Device device, byte[] deviceString, int options) {
+		if (options < 1 || options >= STRINGS.length)
+			return HID_UART_INVALID_PARAMETER;
+		String s = (options == 0x03) ? "sim://" + device.serial_ : (options == 0x04) ? device.serial_ : STRINGS[options];
+		byte[] b = s.getBytes(StandardCharsets.UTF_8);
+		int n = Math.min(b.length, deviceString.length - 1);
+		System.arraycopy(b, 0, deviceString, 0, n);
+		deviceString[n] = 0;
+		return HID_UART_SUCCESS;
+	}
+
+	@Override
+	public byte HidUart_GetLibraryVersion(byte[] major, byte[] minor, boolean[] release) {
+		major[0] = 1;
+		minor[0] = 7;
+		release[0] = true;
+		return HID_UART_SUCCESS;
+	}
+
+	@Override
+	public byte HidUart_GetHidLibraryVersion(byte[] major, byte[] minor, boolean[] release) {
+		return HidUart_GetLibraryVersion(major, minor, release);
+	}
+
+	@Override
+	public synchronized byte HidUart_GetNumDevices(int[] numDevices, short vid, short pid) {
+		numDevices[0] = matches(vid, pid) ? devices_.size() : 0;
+		return HID_UART_SUCCESS;
+	}
+
+	@Override
+	public byte HidUart_GetString(int deviceNum, short vid, short pid, byte[] deviceString, int options) {
+		Device device = device(deviceNum, vid, pid);
+		if (device == null)
+			return HID_UART_DEVICE_NOT_FOUND;
+		return string(device, deviceString, options);
+	}
+
+	@Override
+	public byte HidUart_IsOpened(long device, IntByReference opened) {
+		Device d = handles_.get(device);
+		if (d == null)
+			return HID_UART_INVALID_DEVICE_OBJECT;
+		opened.setValue((d.attached()) ? 1 : 0);
+		return HID_UART_SUCCESS;
+	}
+
+	@Override
+	public byte HidUart_Open(long[] device, int deviceNum, short vid, short pid) {
+		Device d = device(deviceNum, vid, pid);
+		if (d == null)
+			return HID_UART_DEVICE_NOT_FOUND;
+		byte status = d.open();
+		if (status != HID_UART_SUCCESS)
+			return status;
+		long handle = nextHandle_.getAndIncrement();
+		handles_.put(handle, d);
+		device[0] = handle;
+		return HID_UART_SUCCESS;
+	}
+
+	@Override
+	public byte HidUart_GetPartNumber(long device, byte[] partNumber, byte[] version) {
+		Device d = handles_.get(device);
+		if (d == null)
+			return HID_UART_INVALID_DEVICE_OBJECT;
+		synchronized (d) {
+			byte status = d.fault();
+			if (status != HID_UART_SUCCESS)
+				return status;
+		}
+		partNumber[0] = 0x0A;
+		version[0] = 1;
+		return HID_UART_SUCCESS;
+	}
+
+	@Override
+	public byte HidUart_SetUartConfig(long device, int baudRate, byte dataBits, byte parity, byte stopBits, byte flowControl) {
+		Device d = handles_.get(device);
+		if (d == null)
+			return HID_UART_INVALID_DEVICE_OBJECT;
+		return d.setUartConfig(baudRate, dataBits, parity, stopBits, flowControl);
+	}
+
+	@Override
+	public byte HidUart_GetUartStatus(long device, short[] transmitFifoSize, short[] receiveFifoSize, byte[] errorStatus, byte[] lineBreakStatus) {
+		Device d = handles_.get(device);
+		if (d == null)
+			return HID_UART_INVALID_DEVICE_OBJECT;
+		return d.getUartStatus(transmitFifoSize, receiveFifoSize, errorStatus, lineBreakStatus);
+	}
+
+	@Override
+	public byte HidUart_GetUartConfig(long device, int[] baudRate, byte[] dataBits, byte[] parity, byte[] stopBits, byte[] flowControl) {
+		Device d = handles_.get(device);
+		if (d == null)
+			return HID_UART_INVALID_DEVICE_OBJECT;
+		return d.getUartConfig(baudRate, dataBits, parity, stopBits, flowControl);
+	}
+
+	@Override
+	public byte HidUart_SetTimeouts(long device, int readTimeout, int writeTimeout) {
+		Device d = handles_.get(device);
+		if (d == null)
+			return HID_UART_INVALID_DEVICE_OBJECT;
+		return d.setTimeouts(readTimeout, writeTimeout);
+	}
+
+	@Override
+	public byte HidUart_GetOpenedString(long device, byte[] deviceString, int options) {
+		Device d = handles_.get(device);
+		if (d == null)
+			return HID_UART_INVALID_DEVICE_OBJECT;
+		return string(d, deviceString, options);
+	}
+
+	@Override
+	public byte HidUart_Close(long device) {
+		Device d = handles_.remove(device);
+		if (d == null)
+			return HID_UART_INVALID_DEVICE_OBJECT;
+		d.close();
+		return HID_UART_SUCCESS;
+	}
+
+	@Override
+	public byte HidUart_Read(long device, Pointer buffer, int numBytesToRead, IntByReference numBytesRead) {
+		Device d = handles_.get(device);
+		if (d == null)
+			return HID_UART_INVALID_DEVICE_OBJECT;
+		return d.read(buffer, numBytesToRead, numBytesRead);
+	}
+
+	@Override
+	public byte HidUart_Write(long device, Pointer buffer, int numBytesToWrite, IntByReference numBytesWritten) {
+		Device d = handles_.get(device);
+		if (d == null)
+			return HID_UART_INVALID_DEVICE_OBJECT;
+		return d.write(buffer, numBytesToWrite, numBytesWritten);
+	}
+}
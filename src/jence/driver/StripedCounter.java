@@ -0,0 +1,79 @@
+/**
+ * The MIT LICENSE (MIT):
+ * 
+ * Copyright  2021 Ejaz Jamil, Jence.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of 
+ * this software and associated documentation files (the Software), to deal in 
+ * the Software without restriction, including without limitation the rights to 
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+ * of the Software, and to permit persons to whom the Software is furnished to do 
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. 
+ * 
+ */
+package jence.driver;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free counter spread over several cells, so threads on different
+ * processors rarely update the same cache line. Adding does not allocate
+ * memory. The sum is not an atomic snapshot while updates are in progress.
+ * 
+ * @author Ejaz Jamil, Jence.
+ *
+ */
+class StripedCounter {
+	// one cell per 64 byte cache line
+	private static final int STRIDE = 8;
+	private static final int STRIPES;
+	static {
+		int n = Integer.highestOneBit(Runtime.getRuntime().availableProcessors());
+		STRIPES = Math.max(1, Math.min(n, 16));
+	}
+
+	private final AtomicLongArray cells_ = new AtomicLongArray(STRIPES * STRIDE);
+
+	/**
+	 * Adds to the counter.
+	 * 
+	 * @param x value to add.
+	 */
+	void add(long x) {
+		cells_.getAndAdd(stripe(), x);
+	}
+
+	/**
+	 * Adds one to the counter.
+	 */
+	void increment() {
+		cells_.getAndIncrement(stripe());
+	}
+
+	/**
+	 * Gets the sum of all cells.
+	 * 
+	 * @return the count.
+	 */
+	long sum() {
+		long sum = 0;
+		for (int i = 0; i < STRIPES; i++)
+			sum += cells_.get(i * STRIDE);
+		return sum;
+	}
+
+	private static int stripe() {
+		long id = Thread.currentThread().getId() * 0x9E3779B97F4A7C15L;
+		return ((int)(id >>> 32) & (STRIPES - 1)) * STRIDE;
+	}
+}
@@ -0,0 +1,88 @@
+/**
+ * The MIT LICENSE (MIT):
+ * 
+ * Copyright  2021 Ejaz Jamil, Jence.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of 
+ * this software and associated documentation files (the Software), to deal in 
+ * the Software without restriction, including without limitation the rights to 
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+ * of the Software, and to permit persons to whom the Software is furnished to do 
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. 
+ * 
+ */
+package jence.driver;
+
+/**
+ * Frames enclosed between a start byte (STX) and an end byte (ETX), as sent
+ * by many RFID readers. The markers are not part of the frame and the bytes 
+ * before a start byte are dropped.
+ * 
+ * @author Ejaz Jamil, Jence.
+ *
+ */
+public class StxEtxFramer extends Framer {
+	/**
+	 * ASCII start of text.
+	 */
+	public static final byte STX = 0x02;
+	/**
+	 * ASCII end of text.
+	 */
+	public static final byte ETX = 0x03;
+
+	private final byte stx_;
+	private final byte etx_;
+
+	/**
+	 * Creates the framer with {@link #STX}, {@link #ETX} and {@link Framer#DEFAULT_MAX_FRAME_LENGTH}.
+	 */
+	public StxEtxFramer() {
+		this(STX, ETX, DEFAULT_MAX_FRAME_LENGTH);
+	}
+
+	/**
+	 * Creates the framer.
+	 * 
+	 * @param stx start byte.
+	 * @param etx end byte.
+	 * @param maxFrameLength maximum frame length, including the markers.
+	 */
+	public StxEtxFramer(byte stx, byte etx, int maxFrameLength) {
+		super(maxFrameLength);
+		stx_ = stx;
+		etx_ = etx;
+	}
+
+	@Override
+	protected int decode(byte[] buf, int start, int end) {
+		int s = start;
+		while (s < end && buf[s] != stx_)
+			s++;
+		if (s > start) {
+			skip(s - start);
+			start = s;
+		}
+		if (start == end)
+			return -1;
+		for (int i = start + Math.max(1, scanned); i < end; i++) {
+			if (buf[i] == etx_) {
+				frameOffset = start + 1;
+				frameLength = i - start - 1;
+				return i + 1;
+			}
+		}
+		scanned = end - start;
+		return -1;
+	}
+}
@@ -0,0 +1,207 @@
+/**
+ * The MIT LICENSE (MIT):
+ * 
+ * Copyright  2021 Ejaz Jamil, Jence.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of 
+ * this software and associated documentation files (the Software), to deal in 
+ * the Software without restriction, including without limitation the rights to 
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+ * of the Software, and to permit persons to whom the Software is furnished to do 
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. 
+ * 
+ */
+package jence.driver;
+
+import java.io.Closeable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Handle of a listen loop started by 
+ * {@link CP2110HidDriver#listen(String, DriverListener, Executor)}.
+ * Closing the handle stops the loop; the loop notices it after the read in
+ * progress returns, which is within one read timeout.
+ * 
+ * @author Ejaz Jamil, Jence.
+ *
+ */
+public class Subscription implements Closeable {
+	private static Executor defaultExecutor_ = null;
+
+	private final CP2110HidDriver driver_;
+	private final String deviceid_;
+	private final DriverListener listener_;
+	private final CountDownLatch done_ = new CountDownLatch(1);
+	// taken by the loop when it starts, or by close() if it has not started yet
+	private final AtomicBoolean started_ = new AtomicBoolean();
+	private volatile boolean active_ = true;
+	private volatile Thread thread_ = null;
+	private volatile DriverException error_ = null;
+
+	Subscription(CP2110HidDriver driver, String deviceid, DriverListener listener) {
+		driver_ = driver;
+		deviceid_ = deviceid;
+		listener_ = listener;
+	}
+
+	/**
+	 * Internal method that runs the listen loop on the executor.
+	 * 
+	 * @param executor executor, or null for the default executor.
+	 * @throws RejectedExecutionException if the executor does not take the loop.
+	 * The subscription is closed then.
+	 */
+	void start(Executor executor) {
+		if (executor == null)
+			executor = defaultExecutor();
+		try {
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					loop();
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			active_ = false;
+			if (started_.compareAndSet(false, true))
+				done_.countDown();
+			throw e;
+		}
+	}
+
+	/**
+	 * Internal method that runs the listen loop, unless closed before it started.
+	 */
+	private void loop() {
+		if (!started_.compareAndSet(false, true))
+			return;
+		thread_ = Thread.currentThread();
+		DriverMetrics metrics = driver_.getMetrics();
+		metrics.listenStarted();
+		try {
+			while (active_) {
+				byte[] buffer = driver_.read();
+				if (buffer != null && active_)
+					driver_.dispatch(deviceid_, listener_, buffer);
+			}
+		} catch (DriverException e) {
+			error_ = e;
+		} finally {
+			metrics.listenStopped();
+			active_ = false;
+			thread_ = null;
+			done_.countDown();
+		}
+	}
+
+	/**
+	 * Stops the listen loop and waits until it has ended. When called by the
+	 * listener itself, or when the executor has not started the loop yet, 
+	 * returns without waiting.
+	 */
+	@Override
+	public void close() {
+		if (stop())
+			return;
+		boolean interrupted = false;
+		for (;;) {
+			try {
+				done_.await();
+				break;
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted)
+			Thread.currentThread().interrupt();
+	}
+
+	/**
+	 * Stops the listen loop and waits until it has ended, at most for the given time.
+	 * 
+	 * @param timeout longest time to wait.
+	 * @param unit unit of the timeout.
+	 * @return <true>, if the loop has ended, or is ending because this is called
+	 * by the listener itself. <false>, if the time ran out or the caller was interrupted.
+	 */
+	public boolean close(long timeout, TimeUnit unit) {
+		if (stop())
+			return true;
+		try {
+			return done_.await(timeout, unit);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return done_.getCount() == 0;
+		}
+	}
+
+	/**
+	 * Internal method that tells the loop to stop.
+	 * 
+	 * @return <true>, if there is no need to wait for the loop.
+	 */
+	private boolean stop() {
+		active_ = false;
+		if (started_.compareAndSet(false, true)) {
+			// the executor never ran the loop
+			done_.countDown();
+			return true;
+		}
+		return Thread.currentThread() == thread_;
+	}
+
+	/**
+	 * Checks if the listen loop is still running.
+	 * 
+	 * @return <true>, if running.
+	 */
+	public boolean isActive() {
+		return active_;
+	}
+
+	/**
+	 * Gets the error that ended the listen loop, if any.
+	 * 
+	 * @return the error or null.
+	 */
+	public DriverException getError() {
+		return error_;
+	}
+
+	/**
+	 * Internal method that returns the executor used when the caller does not
+	 * provide one. Each loop gets its own daemon thread. Virtual threads are not
+	 * used by default, since a virtual thread stays pinned to its carrier while
+	 * it waits inside the native read, and the loops beyond the number of
+	 * carriers would never run.
+	 * 
+	 * @return the default executor.
+	 */
+	static synchronized Executor defaultExecutor() {
+		if (defaultExecutor_ == null) {
+			defaultExecutor_ = new Executor() {
+				@Override
+				public void execute(Runnable command) {
+					Thread t = new Thread(command, "CP2110-listen");
+					t.setDaemon(true);
+					t.start();
+				}
+			};
+		}
+		return defaultExecutor_;
+	}
+}
@@ -0,0 +1,325 @@
+/**
+ * The MIT LICENSE (MIT):
+ * 
+ * Copyright  2021 Ejaz Jamil, Jence.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of 
+ * this software and associated documentation files (the Software), to deal in 
+ * the Software without restriction, including without limitation the rights to 
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+ * of the Software, and to permit persons to whom the Software is furnished to do 
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. 
+ * 
+ */
+package jence.driver;
+
+import java.io.Closeable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Handle of a supervised listen loop started by 
+ * {@link CP2110HidDriver#supervise(String, DriverListener, ReconnectPolicy, Executor)}.
+ * The loop reads the device and hands the data to the listener like
+ * {@link Subscription}, but when a read fails because the device was lost,
+ * for example unplugged or reset, it connects again by serial number with the
+ * settings of the last connect, waiting between the attempts as told by the 
+ * {@link ReconnectPolicy}, and then carries on delivering to the same listener.
+ * Data that arrived while the device was away is lost, and a frame that was 
+ * incomplete when the device went away is dropped.
+ * 
+ * Any other read error, or running out of attempts, ends the loop; the error
+ * is available from {@link #getError()}.
+ * 
+ * @author Ejaz Jamil, Jence.
+ *
+ */
+public class SupervisedConnection implements Closeable {
+	private final CP2110HidDriver driver_;
+	private final String deviceid_;
+	private final DriverListener listener_;
+	private final ReconnectPolicy policy_;
+	private final Object pause_ = new Object();
+	private final CountDownLatch done_ = new CountDownLatch(1);
+	// taken by the loop when it starts, or by close() if it has not started yet
+	private final AtomicBoolean started_ = new AtomicBoolean();
+	private volatile boolean active_ = true;
+	private volatile Thread thread_ = null;
+	private volatile DriverException error_ = null;
+	// written by the loop thread only
+	private volatile long lostAt_ = 0;
+	private volatile long reconnects_ = 0;
+	private volatile long attempts_ = 0;
+	private volatile long downtimeNanos_ = 0;
+	private volatile long lastDowntimeNanos_ = 0;
+
+	SupervisedConnection(CP2110HidDriver driver, String deviceid, DriverListener listener, ReconnectPolicy policy) {
+		driver_ = driver;
+		deviceid_ = deviceid;
+		listener_ = listener;
+		policy_ = (policy == null) ? ReconnectPolicy.DEFAULT : policy;
+	}
+
+	/**
+	 * Internal method that runs the supervised loop on the executor.
+	 * 
+	 * @param executor executor, or null for the default executor of {@link Subscription}.
+	 * @throws RejectedExecutionException if the executor does not take the loop.
+	 * The connection is closed then.
+	 */
+	void start(Executor executor) {
+		if (executor == null)
+			executor = Subscription.defaultExecutor();
+		try {
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					loop();
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			active_ = false;
+			if (started_.compareAndSet(false, true))
+				done_.countDown();
+			throw e;
+		}
+	}
+
+	/**
+	 * Internal method that runs the supervised loop, unless closed before it started.
+	 */
+	private void loop() {
+		if (!started_.compareAndSet(false, true))
+			return;
+		thread_ = Thread.currentThread();
+		DriverMetrics metrics = driver_.getMetrics();
+		metrics.listenStarted();
+		try {
+			while (active_) {
+				try {
+					byte[] buffer = driver_.read();
+					if (buffer != null && active_)
+						driver_.dispatch(deviceid_, listener_, buffer);
+				} catch (DriverException e) {
+					if (!active_)
+						break;
+					if (!driver_.isLost()) {
+						error_ = e;
+						break;
+					}
+					if (!recover())
+						break;
+				}
+			}
+		} finally {
+			metrics.listenStopped();
+			active_ = false;
+			lostAt_ = 0;
+			thread_ = null;
+			done_.countDown();
+		}
+	}
+
+	/**
+	 * Internal method that connects again to the lost device, waiting between 
+	 * the attempts.
+	 * 
+	 * @return <true>, if connected. <false>, if closed or out of attempts.
+	 */
+	private boolean recover() {
+		long lost = System.nanoTime();
+		lostAt_ = lost;
+		int max = policy_.getMaxAttempts();
+		for (int attempt = 0; max == 0 || attempt < max; attempt++) {
+			if (!pause(policy_.delay(attempt)))
+				return false;
+			attempts_++;
+			try {
+				driver_.reconnect();
+			} catch (DriverException e) {
+				error_ = e;
+				continue;
+			}
+			// the partial frame from before the loss cannot be completed
+			Framer framer = driver_.getFramer();
+			if (framer != null)
+				framer.reset();
+			long down = System.nanoTime() - lost;
+			lastDowntimeNanos_ = down;
+			downtimeNanos_ += down;
+			reconnects_++;
+			lostAt_ = 0;
+			error_ = null;
+			driver_.getMetrics().reconnected(down);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Internal method that waits before an attempt, returning early when closed.
+	 * 
+	 * @param millis delay in milliseconds.
+	 * @return <true>, if still active.
+	 */
+	private boolean pause(long millis) {
+		long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+		synchronized (pause_) {
+			for (;;) {
+				if (!active_)
+					return false;
+				long remaining = TimeUnit.NANOSECONDS.toMillis(end - System.nanoTime());
+				if (remaining <= 0)
+					return true;
+				try {
+					pause_.wait(remaining);
+				} catch (InterruptedException e) {
+					active_ = false;
+					Thread.currentThread().interrupt();
+					return false;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Stops the loop and waits until it has ended. A wait between two attempts
+	 * is cut short. When called by the listener itself, or when the executor has
+	 * not started the loop yet, returns without waiting.
+	 */
+	@Override
+	public void close() {
+		if (stop())
+			return;
+		boolean interrupted = false;
+		for (;;) {
+			try {
+				done_.await();
+				break;
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted)
+			Thread.currentThread().interrupt();
+	}
+
+	/**
+	 * Stops the loop and waits until it has ended, at most for the given time.
+	 * 
+	 * @param timeout longest time to wait.
+	 * @param unit unit of the timeout.
+	 * @return <true>, if the loop has ended, or is ending because this is called
+	 * by the listener itself. <false>, if the time ran out or the caller was interrupted.
+	 */
+	public boolean close(long timeout, TimeUnit unit) {
+		if (stop())
+			return true;
+		try {
+			return done_.await(timeout, unit);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return done_.getCount() == 0;
+		}
+	}
+
+	/**
+	 * Internal method that tells the loop to stop.
+	 * 
+	 * @return <true>, if there is no need to wait for the loop.
+	 */
+	private boolean stop() {
+		active_ = false;
+		synchronized (pause_) {
+			pause_.notifyAll();
+		}
+		if (started_.compareAndSet(false, true)) {
+			// the executor never ran the loop
+			done_.countDown();
+			return true;
+		}
+		return Thread.currentThread() == thread_;
+	}
+
+	/**
+	 * Checks if the loop is still running, including while it connects again.
+	 * 
+	 * @return <true>, if running.
+	 */
+	public boolean isActive() {
+		return active_;
+	}
+
+	/**
+	 * Checks if the device is connected and being read.
+	 * 
+	 * @return <true>, if running and the device is not lost.
+	 */
+	public boolean isConnected() {
+		return active_ && lostAt_ == 0;
+	}
+
+	/**
+	 * Gets the error that ended the loop, or while connecting again, the error
+	 * of the last failed attempt.
+	 * 
+	 * @return the error or null.
+	 */
+	public DriverException getError() {
+		return error_;
+	}
+
+	/**
+	 * Gets the number of times the device was lost and connected again.
+	 * 
+	 * @return reconnect count.
+	 */
+	public long getReconnects() {
+		return reconnects_;
+	}
+
+	/**
+	 * Gets the number of attempts made to connect again, successful or not.
+	 * 
+	 * @return attempt count.
+	 */
+	public long getAttempts() {
+		return attempts_;
+	}
+
+	/**
+	 * Gets the total time the device was lost, including the current loss if
+	 * the loop is connecting again.
+	 * 
+	 * @return downtime in milliseconds.
+	 */
+	public long getDowntimeMillis() {
+		long lost = lostAt_;
+		long down = downtimeNanos_;
+		if (lost != 0)
+			down += System.nanoTime() - lost;
+		return TimeUnit.NANOSECONDS.toMillis(down);
+	}
+
+	/**
+	 * Gets the time from the loss of the device to the last successful reconnect.
+	 * 
+	 * @return downtime in milliseconds, zero if never reconnected.
+	 */
+	public long getLastDowntimeMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(lastDowntimeNanos_);
+	}
+}
@@ -0,0 +1,98 @@
+/**
+ * The MIT LICENSE (MIT):
+ * 
+ * Copyright  2021 Ejaz Jamil, Jence.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of 
+ * this software and associated documentation files (the Software), to deal in 
+ * the Software without restriction, including without limitation the rights to 
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+ * of the Software, and to permit persons to whom the Software is furnished to do 
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. 
+ * 
+ */
+package jence.driver;
+
+/**
+ * State of the UART as reported by <code>HidUart_GetUartStatus</code>, see
+ * {@link CP2110HidDriver#getUartStatus()}. The error flags are cleared by the 
+ * device when they are reported, so each error is seen once.
+ * 
+ * @author Ejaz Jamil, Jence.
+ *
+ */
+public final class UartStatus {
+	private final int txFifo_;
+	private final int rxFifo_;
+	private final int errors_;
+	private final boolean lineBreak_;
+
+	UartStatus(int txFifo, int rxFifo, int errors, boolean lineBreak) {
+		txFifo_ = txFifo;
+		rxFifo_ = rxFifo;
+		errors_ = errors;
+		lineBreak_ = lineBreak;
+	}
+
+	/**
+	 * Gets the number of bytes waiting to be transmitted.
+	 * 
+	 * @return bytes in the transmit FIFO.
+	 */
+	public int getTxFifo() {
+		return txFifo_;
+	}
+
+	/**
+	 * Gets the number of bytes received and not read yet.
+	 * 
+	 * @return bytes in the receive FIFO.
+	 */
+	public int getRxFifo() {
+		return rxFifo_;
+	}
+
+	/**
+	 * Checks if a byte was received with a wrong parity bit since the last status.
+	 * 
+	 * @return <true>, if a parity error occurred.
+	 */
+	public boolean isParityError() {
+		return (errors_ & HidUartBackend.HID_UART_PARITY_ERROR) != 0;
+	}
+
+	/**
+	 * Checks if received bytes were lost because the receive FIFO was full since
+	 * the last status, which means the host reads too slowly.
+	 * 
+	 * @return <true>, if an overrun occurred.
+	 */
+	public boolean isOverrunError() {
+		return (errors_ & HidUartBackend.HID_UART_OVERRUN_ERROR) != 0;
+	}
+
+	/**
+	 * Checks if the receive line is held in the break state.
+	 * 
+	 * @return <true>, if a line break is active.
+	 */
+	public boolean isLineBreak() {
+		return lineBreak_;
+	}
+
+	@Override
+	public String toString() {
+		return "TX="+txFifo_+", RX="+rxFifo_+((isParityError()) ? ", parity error" : "")
+			+((isOverrunError()) ? ", overrun" : "")+((lineBreak_) ? ", line break" : "");
+	}
+}
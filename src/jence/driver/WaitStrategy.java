@@ -0,0 +1,67 @@
+/**
+ * The MIT LICENSE (MIT):
+ * 
+ * Copyright  2021 Ejaz Jamil, Jence.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of 
+ * this software and associated documentation files (the Software), to deal in 
+ * the Software without restriction, including without limitation the rights to 
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+ * of the Software, and to permit persons to whom the Software is furnished to do 
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. 
+ * 
+ */
+package jence.driver;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Defines how a thread waits when the ring buffer between the reader
+ * and the dispatcher is empty (consumer side) or full (producer side,
+ * when {@link OverflowPolicy#BLOCK} is used).
+ * 
+ * @author Ejaz Jamil, Jence.
+ *
+ */
+public enum WaitStrategy {
+	/**
+	 * Parks the thread. An idle consumer sleeps until the next chunk arrives,
+	 * a producer blocked on a full buffer checks again every {@link #PARK_NANOS}.
+	 * Lowest CPU usage, adds the time to wake a thread to the latency.
+	 */
+	PARK,
+	/**
+	 * Yields the processor to other threads. Low latency, moderate CPU usage.
+	 */
+	YIELD,
+	/**
+	 * Spins on the processor. Lowest latency, occupies one core.
+	 */
+	BUSY_SPIN;
+
+	/**
+	 * Time a parked producer sleeps before checking the full buffer again.
+	 */
+	public static final long PARK_NANOS = 50000L;
+
+	/**
+	 * Called each time the waiting condition is still not met.
+	 */
+	void idle() {
+		switch (this) {
+		case PARK:		LockSupport.parkNanos(PARK_NANOS);	break;
+		case YIELD:		Thread.yield();						break;
+		case BUSY_SPIN:										break;
+		}
+	}
+}
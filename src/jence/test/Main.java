@@ -72,7 +72,8 @@ public class Main {
 				
 				// connect to the first device. If multiple device needs to be connected
 				// and used at the same time, you should separate instances of the
-				// CP2110HidDriver class and connect to each device separately.
+				// CP2110HidDriver class and connect to each device separately, or
+				// use a DeviceRegistry, which connects all the devices in parallel.
 				hid.connect(deviceString[0], 9600, 8, 'N', 1, false);
 				test.setCombo(deviceString);
 				System.out.println(hid.getProperties());
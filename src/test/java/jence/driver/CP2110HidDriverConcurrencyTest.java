@@ -0,0 +1,292 @@
+/**
+ * The MIT LICENSE (MIT):
+ * 
+ * Copyright  2021 Ejaz Jamil, Jence.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of 
+ * this software and associated documentation files (the Software), to deal in 
+ * the Software without restriction, including without limitation the rights to 
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+ * of the Software, and to permit persons to whom the Software is furnished to do 
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. 
+ * 
+ */
+package jence.driver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Stress tests of the per handle locking on the {@link SimulatedCP2110}. The
+ * backend is wrapped in a proxy that counts the native calls in progress on
+ * each handle and records every overlap the locking must prevent: two reads,
+ * two writes, or a configuration call next to any read, write or other
+ * configuration call.
+ *
+ * @author Ejaz Jamil, Jence.
+ *
+ */
+public class CP2110HidDriverConcurrencyTest {
+	private static final long STRESS_MILLIS = 1500;
+
+	private SimulatedCP2110 sim_;
+	private Overlaps overlaps_;
+	private final List<CP2110HidDriver> drivers_ = new ArrayList<CP2110HidDriver>();
+
+	@Before
+	public void setUp() {
+		sim_ = new SimulatedCP2110();
+		sim_.addDevice("S0");
+		sim_.addDevice("S1");
+		overlaps_ = new Overlaps(sim_);
+		CP2110HidDriver.setBackend(overlaps_.backend());
+	}
+
+	@After
+	public void tearDown() throws DriverException {
+		for (CP2110HidDriver driver : drivers_)
+			driver.disconnect();
+		drivers_.clear();
+	}
+
+	@Test
+	public void writeCompletesWhileReadWaitsOnTimeout() throws Exception {
+		final CP2110HidDriver driver = connect("S0");
+		driver.setReadWriteTimeout(1000, 1000);
+		Reader reader = new Reader(driver);
+		reader.start();
+		assertTrue(overlaps_.readEntered_.await(1, TimeUnit.SECONDS));
+
+		long start = System.nanoTime();
+		assertEquals(8, driver.write(new byte[8], 0, 8));
+		long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+		assertTrue("write took " + elapsed + " ms", elapsed < 250);
+		assertTrue(overlaps_.writesDuringRead_.get() > 0);
+		reader.join(2000);
+		assertNull(reader.error_.get());
+		assertEquals(0, overlaps_.violations_.get());
+	}
+
+	@Test
+	public void configurationExcludesReadsAndWrites() throws Exception {
+		final CP2110HidDriver driver = connect("S0");
+		sim_.getDevice("S0").setLoopback(true);
+		driver.setReadProfile(ReadProfile.LOW_LATENCY);
+		final long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(STRESS_MILLIS);
+		final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int i = 0; i < 3; i++) {
+			threads.add(new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						while (System.nanoTime() < end)
+							driver.write(new byte[16], 0, 16);
+					} catch (Throwable t) {
+						error.compareAndSet(null, t);
+					}
+				}
+			}, "writer-" + i));
+		}
+		threads.add(new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					while (System.nanoTime() < end)
+						driver.read();
+				} catch (Throwable t) {
+					error.compareAndSet(null, t);
+				}
+			}
+		}, "reader"));
+		threads.add(new Thread(new Runnable() {
+			@Override
+			public void run() {
+				Random random = new Random(1);
+				ReadProfile[] profiles = {ReadProfile.LOW_LATENCY, ReadProfile.BALANCED, ReadProfile.ADAPTIVE};
+				try {
+					for (int i = 0; System.nanoTime() < end; i++) {
+						driver.setReadWriteTimeout(5 + random.nextInt(20), 1000);
+						driver.setReadProfile(profiles[random.nextInt(profiles.length)]);
+						if (i % 10 == 0)
+							driver.reconnect();
+						Thread.sleep(2);
+					}
+				} catch (Throwable t) {
+					error.compareAndSet(null, t);
+				}
+			}
+		}, "config"));
+		for (Thread t : threads)
+			t.start();
+		for (Thread t : threads)
+			t.join(STRESS_MILLIS + 5000);
+
+		assertNull(error.get());
+		assertTrue(overlaps_.count("HidUart_Read") > 0);
+		assertTrue(overlaps_.count("HidUart_Write") > 0);
+		assertTrue(overlaps_.count("HidUart_SetTimeouts") > 0);
+		assertEquals(0, overlaps_.violations_.get());
+	}
+
+	@Test
+	public void handlesDoNotBlockEachOther() throws Exception {
+		CP2110HidDriver d0 = connect("S0");
+		CP2110HidDriver d1 = connect("S1");
+		d0.setReadWriteTimeout(1000, 1000);
+		Reader reader = new Reader(d0);
+		reader.start();
+		assertTrue(overlaps_.readEntered_.await(1, TimeUnit.SECONDS));
+
+		long start = System.nanoTime();
+		d1.setReadWriteTimeout(50, 1000);
+		d1.setReadProfile(ReadProfile.LOW_LATENCY);
+		assertEquals(8, d1.write(new byte[8], 0, 8));
+		sim_.getDevice("S1").feed(new byte[] {1, 2, 3});
+		byte[] data = d1.read();
+		long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+		assertTrue("second handle took " + elapsed + " ms", elapsed < 250);
+		assertEquals(3, data.length);
+		assertTrue(reader.isAlive());
+		reader.join(2000);
+		assertNull(reader.error_.get());
+		assertEquals(0, overlaps_.violations_.get());
+	}
+
+	private CP2110HidDriver connect(String serial) throws DriverException {
+		CP2110HidDriver driver = new CP2110HidDriver();
+		driver.connect(serial, 115200, 8, 'N', 1, false);
+		drivers_.add(driver);
+		return driver;
+	}
+
+	/**
+	 * Single read on its own thread.
+	 */
+	private static class Reader extends Thread {
+		private final CP2110HidDriver driver_;
+		private final AtomicReference<Throwable> error_ = new AtomicReference<Throwable>();
+
+		Reader(CP2110HidDriver driver) {
+			super("reader");
+			driver_ = driver;
+		}
+
+		@Override
+		public void run() {
+			try {
+				driver_.read();
+			} catch (Throwable t) {
+				error_.set(t);
+			}
+		}
+	}
+
+	/**
+	 * Counts the native calls in progress per handle and kind.
+	 */
+	private static class Overlaps implements InvocationHandler {
+		private final HidUartBackend target_;
+		private final ConcurrentHashMap<String, AtomicInteger> inflight_ = new ConcurrentHashMap<String, AtomicInteger>();
+		private final ConcurrentHashMap<String, AtomicInteger> calls_ = new ConcurrentHashMap<String, AtomicInteger>();
+		private final AtomicInteger violations_ = new AtomicInteger();
+		private final AtomicInteger writesDuringRead_ = new AtomicInteger();
+		private final CountDownLatch readEntered_ = new CountDownLatch(1);
+
+		Overlaps(HidUartBackend target) {
+			target_ = target;
+		}
+
+		HidUartBackend backend() {
+			return (HidUartBackend)Proxy.newProxyInstance(getClass().getClassLoader(),
+					new Class<?>[] {HidUartBackend.class}, this);
+		}
+
+		int count(String name) {
+			AtomicInteger n = calls_.get(name);
+			return (n == null) ? 0 : n.get();
+		}
+
+		private AtomicInteger counter(ConcurrentHashMap<String, AtomicInteger> map, String key) {
+			AtomicInteger n = map.get(key);
+			if (n == null) {
+				map.putIfAbsent(key, new AtomicInteger());
+				n = map.get(key);
+			}
+			return n;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			String name = method.getName();
+			String kind = null;
+			if (name.equals("HidUart_Read"))
+				kind = "R";
+			else if (name.equals("HidUart_Write"))
+				kind = "W";
+			else if (name.equals("HidUart_SetTimeouts") || name.equals("HidUart_SetUartConfig") || name.equals("HidUart_Close"))
+				kind = "C";
+			if (method.getDeclaringClass() == HidUartBackend.class)
+				counter(calls_, name).incrementAndGet();
+			if (kind == null)
+				return call(method, args);
+
+			String handle = String.valueOf(args[0]);
+			int reads = counter(inflight_, handle + "R").get();
+			int writes = counter(inflight_, handle + "W").get();
+			int configs = counter(inflight_, handle + "C").get();
+			if (configs > 0 || (kind.equals("R") && reads > 0) || (kind.equals("W") && writes > 0)
+					|| (kind.equals("C") && reads + writes > 0))
+				violations_.incrementAndGet();
+			if (kind.equals("W") && reads > 0)
+				writesDuringRead_.incrementAndGet();
+			AtomicInteger n = counter(inflight_, handle + kind);
+			n.incrementAndGet();
+			try {
+				if (kind.equals("R"))
+					readEntered_.countDown();
+				return call(method, args);
+			} finally {
+				n.decrementAndGet();
+			}
+		}
+
+		private Object call(Method method, Object[] args) throws Throwable {
+			try {
+				return method.invoke(target_, args);
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+		}
+	}
+}
@@ -0,0 +1,79 @@
+/**
+ * The MIT LICENSE (MIT):
+ * 
+ * Copyright  2021 Ejaz Jamil, Jence.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of 
+ * this software and associated documentation files (the Software), to deal in 
+ * the Software without restriction, including without limitation the rights to 
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+ * of the Software, and to permit persons to whom the Software is furnished to do 
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. 
+ * 
+ */
+package jence.driver;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.ref.WeakReference;
+
+import org.junit.Test;
+
+/**
+ * Tests of {@link ChunkRingBuffer}.
+ *
+ * @author Ejaz Jamil, Jence.
+ *
+ */
+public class ChunkRingBufferTest {
+
+	private static boolean collected(WeakReference<?> ref) throws InterruptedException {
+		for (int i = 0; i < 20 && ref.get() != null; i++) {
+			System.gc();
+			Thread.sleep(10);
+		}
+		return ref.get() == null;
+	}
+
+	@Test
+	public void polledChunkIsReleased() throws Exception {
+		ChunkRingBuffer ring = new ChunkRingBuffer(4, WaitStrategy.YIELD, OverflowPolicy.BLOCK);
+		byte[] chunk = new byte[1024];
+		WeakReference<byte[]> ref = new WeakReference<byte[]>(chunk);
+		ring.offer(chunk);
+		chunk = null;
+
+		assertEquals(1024, ring.poll().length);
+		assertTrue(collected(ref));
+	}
+
+	@Test
+	public void droppedOldestChunkIsReleased() throws Exception {
+		ChunkRingBuffer ring = new ChunkRingBuffer(2, WaitStrategy.YIELD, OverflowPolicy.DROP_OLDEST);
+		byte[] oldest = new byte[1024];
+		WeakReference<byte[]> ref = new WeakReference<byte[]>(oldest);
+		ring.offer(oldest);
+		oldest = null;
+		ring.offer(new byte[] {2});
+		ring.offer(new byte[] {3});
+
+		assertEquals(1, ring.getDroppedChunks());
+		assertTrue(collected(ref));
+		assertArrayEquals(new byte[] {2}, ring.poll());
+		assertArrayEquals(new byte[] {3}, ring.poll());
+		assertNull(ring.poll());
+	}
+}
@@ -0,0 +1,150 @@
+/**
+ * The MIT LICENSE (MIT):
+ * 
+ * Copyright  2021 Ejaz Jamil, Jence.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of 
+ * this software and associated documentation files (the Software), to deal in 
+ * the Software without restriction, including without limitation the rights to 
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+ * of the Software, and to permit persons to whom the Software is furnished to do 
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. 
+ * 
+ */
+package jence.driver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests of the error handling of {@link DevicePublisher} on the {@link SimulatedCP2110}.
+ *
+ * @author Ejaz Jamil, Jence.
+ *
+ */
+public class DevicePublisherTest {
+	private SimulatedCP2110.Device device_;
+	private CP2110HidDriver driver_;
+
+	@Before
+	public void setUp() throws DriverException {
+		SimulatedCP2110 sim = new SimulatedCP2110();
+		device_ = sim.addDevice("S0");
+		CP2110HidDriver.setBackend(sim);
+		driver_ = new CP2110HidDriver();
+		driver_.connect("S0", 115200, 8, 'N', 1, false);
+		driver_.setReadProfile(ReadProfile.LOW_LATENCY);
+		device_.setLineRate(0);
+	}
+
+	@After
+	public void tearDown() throws DriverException {
+		driver_.disconnect();
+	}
+
+	@Test
+	public void throwingSubscriberReceivesOnError() throws Exception {
+		final RuntimeException failure = new RuntimeException("sink failed");
+		Recorder failing = new Recorder() {
+			@Override
+			public void onNext(Frame item) {
+				super.onNext(item);
+				throw failure;
+			}
+		};
+		Recorder healthy = new Recorder();
+		DevicePublisher publisher = driver_.publish("S0", null);
+		publisher.subscribe(failing);
+		publisher.subscribe(healthy);
+
+		device_.feed(new byte[] {1});
+		assertTrue(failing.done_.await(1, TimeUnit.SECONDS));
+		assertSame(failure, failing.error_.get());
+		device_.feed(new byte[] {2});
+		assertTrue(healthy.await(2));
+
+		publisher.close();
+		assertTrue(healthy.done_.await(1, TimeUnit.SECONDS));
+		assertEquals(1, failing.frames_.get());
+		assertNull(healthy.error_.get());
+	}
+
+	@Test
+	public void loopFailureEndsStreamWithError() throws Exception {
+		final IllegalStateException failure = new IllegalStateException("framer failed");
+		driver_.setFramer(new Framer(16) {
+			@Override
+			protected int decode(byte[] buf, int start, int end) {
+				throw failure;
+			}
+		});
+		Recorder subscriber = new Recorder();
+		DevicePublisher publisher = driver_.publish("S0", null);
+		publisher.subscribe(subscriber);
+
+		device_.feed(new byte[] {1});
+
+		assertTrue(subscriber.done_.await(1, TimeUnit.SECONDS));
+		assertSame(failure, subscriber.error_.get());
+		assertEquals(0, publisher.getSubscribers());
+	}
+
+	/**
+	 * Subscriber with unbounded demand that records what it receives.
+	 */
+	private static class Recorder implements Flow.Subscriber<Frame> {
+		final AtomicInteger frames_ = new AtomicInteger();
+		final AtomicReference<Throwable> error_ = new AtomicReference<Throwable>();
+		final CountDownLatch done_ = new CountDownLatch(1);
+
+		@Override
+		public void onSubscribe(Flow.Subscription subscription) {
+			subscription.request(Long.MAX_VALUE);
+		}
+
+		@Override
+		public void onNext(Frame item) {
+			frames_.incrementAndGet();
+		}
+
+		@Override
+		public void onError(Throwable throwable) {
+			error_.set(throwable);
+			done_.countDown();
+		}
+
+		@Override
+		public void onComplete() {
+			done_.countDown();
+		}
+
+		boolean await(int frames) throws InterruptedException {
+			long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+			while (frames_.get() < frames && System.nanoTime() < end)
+				Thread.sleep(5);
+			return frames_.get() >= frames;
+		}
+	}
+}
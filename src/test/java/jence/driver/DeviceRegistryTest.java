@@ -0,0 +1,113 @@
+/**
+ * The MIT LICENSE (MIT):
+ * 
+ * Copyright  2021 Ejaz Jamil, Jence.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of 
+ * this software and associated documentation files (the Software), to deal in 
+ * the Software without restriction, including without limitation the rights to 
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+ * of the Software, and to permit persons to whom the Software is furnished to do 
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. 
+ * 
+ */
+package jence.driver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Tests of {@link DeviceRegistry#connectAll(String...)} on the {@link SimulatedCP2110}.
+ *
+ * @author Ejaz Jamil, Jence.
+ *
+ */
+public class DeviceRegistryTest {
+
+	@Test
+	public void deviceOpenedWithAnotherSerialIsClosed() throws Exception {
+		// the devices swapped places since the enumeration
+		SimulatedCP2110 sim = new SimulatedCP2110() {
+			@Override
+			public byte HidUart_Open(long[] device, int deviceNum, short vid, short pid) {
+				return super.HidUart_Open(device, 1 - deviceNum, vid, pid);
+			}
+		};
+		SimulatedCP2110.Device s0 = sim.addDevice("S0");
+		SimulatedCP2110.Device s1 = sim.addDevice("S1");
+		CP2110HidDriver.setBackend(sim);
+		DeviceRegistry registry = new DeviceRegistry(115200, 8, 'N', 1, false);
+
+		Map<String, DriverException> failed = registry.connectAll("S0", "S1");
+
+		assertEquals(2, failed.size());
+		assertTrue(failed.get("S0") instanceof DeviceNotFoundException);
+		assertTrue(failed.get("S1") instanceof DeviceNotFoundException);
+		assertEquals(0, registry.size());
+		assertFalse(s0.isOpen());
+		assertFalse(s1.isOpen());
+	}
+
+	@Test
+	public void interruptedConnectClosesOpenedDevices() throws Exception {
+		// S1 takes long to open and does not notice the interrupt, as a native call
+		SimulatedCP2110 sim = new SimulatedCP2110() {
+			@Override
+			public byte HidUart_Open(long[] device, int deviceNum, short vid, short pid) {
+				if (deviceNum == 1) {
+					long end = System.currentTimeMillis() + 300;
+					while (System.currentTimeMillis() < end)
+						Thread.interrupted();
+				}
+				return super.HidUart_Open(device, deviceNum, vid, pid);
+			}
+		};
+		SimulatedCP2110.Device s0 = sim.addDevice("S0");
+		SimulatedCP2110.Device s1 = sim.addDevice("S1");
+		CP2110HidDriver.setBackend(sim);
+		DeviceRegistry registry = new DeviceRegistry(115200, 8, 'N', 1, false);
+
+		final Thread caller = Thread.currentThread();
+		Thread interrupter = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					Thread.sleep(100);
+				} catch (InterruptedException e) {
+					return;
+				}
+				caller.interrupt();
+			}
+		});
+		interrupter.start();
+		try {
+			registry.connectAll("S0", "S1");
+			fail("not interrupted");
+		} catch (InterruptedException e) {
+			// expected
+		}
+		interrupter.join();
+
+		assertEquals(0, registry.size());
+		assertFalse(s0.isOpen());
+		// S1 is closed by its own task once its open returns
+		Thread.sleep(500);
+		assertFalse(s1.isOpen());
+	}
+}
@@ -0,0 +1,102 @@
+/**
+ * The MIT LICENSE (MIT):
+ * 
+ * Copyright  2021 Ejaz Jamil, Jence.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of 
+ * this software and associated documentation files (the Software), to deal in 
+ * the Software without restriction, including without limitation the rights to 
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+ * of the Software, and to permit persons to whom the Software is furnished to do 
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. 
+ * 
+ */
+package jence.driver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests of the exceptions thrown for the statuses of the library, on the
+ * {@link SimulatedCP2110}.
+ *
+ * @author Ejaz Jamil, Jence.
+ *
+ */
+public class DriverExceptionTest {
+	private SimulatedCP2110.Device device_;
+	private CP2110HidDriver driver_;
+
+	@Before
+	public void setUp() throws DriverException {
+		SimulatedCP2110 sim = new SimulatedCP2110();
+		device_ = sim.addDevice("S0");
+		CP2110HidDriver.setBackend(sim);
+		driver_ = new CP2110HidDriver();
+		driver_.connect("S0", 115200, 8, 'N', 1, false);
+	}
+
+	@After
+	public void tearDown() throws DriverException {
+		driver_.disconnect();
+	}
+
+	private DriverException uartStatusFailure() {
+		device_.injectFailure(HidUartBackend.HID_UART_DEVICE_IO_FAILED, 1);
+		try {
+			driver_.getUartStatus();
+		} catch (DriverException e) {
+			return e;
+		}
+		fail("no exception");
+		return null;
+	}
+
+	private DriverException readFailure() {
+		device_.injectFailure(HidUartBackend.HID_UART_DEVICE_IO_FAILED, 1);
+		try {
+			driver_.read();
+		} catch (DriverException e) {
+			return e;
+		}
+		fail("no exception");
+		return null;
+	}
+
+	@Test
+	public void callFailureHasStackTraceAndDevice() {
+		DriverException e = uartStatusFailure();
+
+		assertTrue(e instanceof DeviceIOException);
+		assertEquals(HidUartStatus.DEVICE_IO_FAILED, e.getStatus());
+		assertTrue(e.getMessage(), e.getMessage().contains("S0"));
+		assertTrue(e.getStackTrace().length > 0);
+		assertNotSame(e, uartStatusFailure());
+	}
+
+	@Test
+	public void readFailureIsShared() {
+		DriverException e = readFailure();
+
+		assertTrue(e instanceof DeviceIOException);
+		assertEquals(0, e.getStackTrace().length);
+		assertSame(e, readFailure());
+	}
+}
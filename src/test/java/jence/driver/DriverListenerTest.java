@@ -0,0 +1,138 @@
+/**
+ * The MIT LICENSE (MIT):
+ * 
+ * Copyright  2021 Ejaz Jamil, Jence.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of 
+ * this software and associated documentation files (the Software), to deal in 
+ * the Software without restriction, including without limitation the rights to 
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+ * of the Software, and to permit persons to whom the Software is furnished to do 
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. 
+ * 
+ */
+package jence.driver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests that the primitive fast path of {@link DriverListener} gives the same
+ * values as the BigInteger path it replaces.
+ *
+ * @author Ejaz Jamil, Jence.
+ *
+ */
+public class DriverListenerTest {
+	private DriverListener listener_;
+
+	@Before
+	public void setUp() {
+		listener_ = new DriverListener() {
+			@Override
+			protected void onData() {
+			}
+		};
+	}
+
+	/**
+	 * The value as the BigInteger path computes it.
+	 */
+	private static BigInteger expected(byte[] data, int start, int len) {
+		BigInteger big = new BigInteger(data);
+		if (start < 0)
+			return big;
+		BigInteger mask = BigInteger.ONE.shiftLeft(len).subtract(BigInteger.ONE);
+		return big.shiftRight(start - len).and(mask);
+	}
+
+	private void check(byte[] data, int start, int len) {
+		listener_.setData("S0", DriverListener.CardType.LF, data);
+		listener_.mask(start, len);
+		BigInteger value = expected(data, start, len);
+		String where = new BigInteger(1, data).toString(16) + " mask " + start + "," + len;
+
+		assertEquals(where, value.toString(16), listener_.dataAsHex());
+		assertEquals(where, value.toString(10), listener_.dataAsDecimal());
+		char[] dst = new char[200];
+		int n = listener_.dataAsHex(dst, 3);
+		assertEquals(where, value.toString(16), new String(dst, 3, n));
+		n = listener_.dataAsDecimal(dst, 5);
+		assertEquals(where, value.toString(10), new String(dst, 5, n));
+	}
+
+	@Test
+	public void fastPathMatchesBigIntegerOnRandomFrames() {
+		Random random = new Random(2110);
+		for (int i = 0; i < 20000; i++) {
+			byte[] data = new byte[1 + random.nextInt(16)];
+			random.nextBytes(data);
+			int bits = data.length * 8;
+			switch (random.nextInt(3)) {
+			case 0:
+				check(data, -1, -1);
+				break;
+			case 1:
+				// within or past the data, and below bit zero
+				int len = 1 + random.nextInt(63);
+				check(data, random.nextInt(bits + 16), len);
+				break;
+			default:
+				len = 64 + random.nextInt(40);
+				check(data, len + random.nextInt(bits + 8), len);
+				break;
+			}
+		}
+	}
+
+	@Test
+	public void signedDataWithTopBitSet() {
+		check(new byte[] {(byte)0x80}, -1, -1);
+		check(new byte[] {(byte)0xFF, 0x00, 0x01}, -1, -1);
+		check(new byte[] {(byte)0x80, 0, 0, 0, 0, 0, 0, 0}, -1, -1);
+		check(new byte[] {(byte)0xFF, (byte)0xFF, (byte)0xFF, (byte)0xFF, (byte)0xFF, (byte)0xFF, (byte)0xFF, (byte)0xFF}, -1, -1);
+		// nine bytes go through BigInteger
+		check(new byte[] {(byte)0x80, 0, 0, 0, 0, 0, 0, 0, 1}, -1, -1);
+		// the mask reaches into the sign extension above the data
+		check(new byte[] {(byte)0x81, 0x23}, 24, 16);
+		check(new byte[] {(byte)0x81, 0x23}, 70, 63);
+	}
+
+	@Test
+	public void maskOf63BitsIsFast() {
+		byte[] data = {(byte)0xFF, (byte)0xFF, (byte)0xFF, (byte)0xFF, (byte)0xFF, (byte)0xFF, (byte)0xFF, (byte)0xFF, (byte)0xFF};
+		check(data, 63, 63);
+		check(data, 72, 63);
+		listener_.mask(72, 63);
+		assertEquals(Long.MAX_VALUE, listener_.dataAsLong());
+	}
+
+	@Test
+	public void maskPast63BitsFallsBack() {
+		byte[] data = {(byte)0xFF, (byte)0xFF, (byte)0xFF, (byte)0xFF, (byte)0xFF, (byte)0xFF, (byte)0xFF, (byte)0xFF, (byte)0xFF};
+		check(data, 64, 64);
+		check(data, 72, 65);
+		listener_.mask(64, 64);
+		try {
+			listener_.dataAsLong();
+			fail("64 bit mask fits a long");
+		} catch (IllegalStateException e) {
+		}
+	}
+}
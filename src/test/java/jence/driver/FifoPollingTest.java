@@ -0,0 +1,130 @@
+/**
+ * The MIT LICENSE (MIT):
+ * 
+ * Copyright  2021 Ejaz Jamil, Jence.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of 
+ * this software and associated documentation files (the Software), to deal in 
+ * the Software without restriction, including without limitation the rights to 
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+ * of the Software, and to permit persons to whom the Software is furnished to do 
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. 
+ * 
+ */
+package jence.driver;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.jna.Pointer;
+import com.sun.jna.ptr.IntByReference;
+
+/**
+ * Tests of {@link ReadProfile#FIFO_POLLING} on the {@link SimulatedCP2110}.
+ *
+ * @author Ejaz Jamil, Jence.
+ *
+ */
+public class FifoPollingTest {
+	private final List<Integer> reads_ = new CopyOnWriteArrayList<Integer>();
+	private final AtomicInteger polls_ = new AtomicInteger();
+	private SimulatedCP2110.Device device_;
+	private CP2110HidDriver driver_;
+
+	@Before
+	public void setUp() throws DriverException {
+		SimulatedCP2110 sim = new SimulatedCP2110() {
+			@Override
+			public byte HidUart_Read(long device, Pointer buffer, int numBytesToRead, IntByReference numBytesRead) {
+				reads_.add(numBytesToRead);
+				return super.HidUart_Read(device, buffer, numBytesToRead, numBytesRead);
+			}
+
+			@Override
+			public byte HidUart_GetUartStatus(long device, short[] transmitFifoSize, short[] receiveFifoSize,
+					byte[] errorStatus, byte[] lineBreakStatus) {
+				polls_.incrementAndGet();
+				return super.HidUart_GetUartStatus(device, transmitFifoSize, receiveFifoSize, errorStatus, lineBreakStatus);
+			}
+		};
+		device_ = sim.addDevice("S0");
+		CP2110HidDriver.setBackend(sim);
+		driver_ = new CP2110HidDriver();
+		driver_.connect("S0", 115200, 8, 'N', 1, false);
+		driver_.setReadProfile(ReadProfile.FIFO_POLLING);
+	}
+
+	@After
+	public void tearDown() throws DriverException {
+		driver_.disconnect();
+	}
+
+	@Test
+	public void readIsSizedToReceiveLevel() throws DriverException {
+		driver_.setReadWriteTimeout(1000, 1000);
+		device_.setLineRate(0);
+		byte[] data = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10};
+		device_.feed(data);
+
+		long start = System.nanoTime();
+		byte[] read = driver_.read();
+		long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+		assertArrayEquals(data, read);
+		assertEquals(1, reads_.size());
+		assertEquals(Integer.valueOf(data.length), reads_.get(0));
+		assertTrue("read took " + elapsed + " ms", elapsed < 250);
+	}
+
+	@Test
+	public void emptyFifoBacksOffThenReturnsZero() throws DriverException {
+		driver_.setReadWriteTimeout(100, 1000);
+		polls_.set(0);
+
+		long start = System.nanoTime();
+		assertNull(driver_.read());
+		long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		assertEquals(0, driver_.read(new byte[16], 0, 16));
+
+		assertTrue("read took " + elapsed + " ms", elapsed >= 90);
+		assertTrue(reads_.isEmpty());
+		// 1, 2, 4, 8 and then 16 ms apart: about 10 polls per read, not 100
+		assertTrue("polls " + polls_.get(), polls_.get() >= 6 && polls_.get() <= 40);
+	}
+
+	@Test
+	public void uartErrorsReachMetrics() throws DriverException {
+		driver_.setReadWriteTimeout(20, 1000);
+		device_.setLineRate(10);
+		device_.feed(new byte[] {1, 2, 3, 4, 5});
+		device_.injectOverrun();
+		device_.injectParityError();
+
+		assertNull(driver_.read());
+
+		assertEquals(1, driver_.getMetrics().getOverruns());
+		assertEquals(1, driver_.getMetrics().getParityErrors());
+		assertEquals(1, device_.getOverruns());
+	}
+}
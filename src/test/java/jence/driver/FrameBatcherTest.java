@@ -0,0 +1,112 @@
+/**
+ * The MIT LICENSE (MIT):
+ * 
+ * Copyright  2021 Ejaz Jamil, Jence.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of 
+ * this software and associated documentation files (the Software), to deal in 
+ * the Software without restriction, including without limitation the rights to 
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+ * of the Software, and to permit persons to whom the Software is furnished to do 
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. 
+ * 
+ */
+package jence.driver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+/**
+ * Tests of the delivery of {@link FrameBatcher}.
+ *
+ * @author Ejaz Jamil, Jence.
+ *
+ */
+public class FrameBatcherTest {
+
+	private static Frame frame(int i) {
+		return new Frame("S0", null, 0, new byte[] {(byte)i});
+	}
+
+	@Test
+	public void addDoesNotWaitForDelivery() throws Exception {
+		final CountDownLatch delivering = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final FrameBatcher batcher = new FrameBatcher(new BatchPolicy(2, 0, 10000), new BatchListener() {
+			@Override
+			public void onBatch(List<Frame> batch) {
+				delivering.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		});
+		Thread device = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				batcher.add(frame(0));
+				batcher.add(frame(1));
+			}
+		});
+		device.start();
+		assertTrue(delivering.await(1, TimeUnit.SECONDS));
+
+		// returns while the first batch is still being delivered
+		long start = System.nanoTime();
+		batcher.add(frame(2));
+		long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		release.countDown();
+		device.join();
+		batcher.close();
+
+		assertTrue("add took " + elapsed + " ms", elapsed < 250);
+	}
+
+	@Test
+	public void lingerFlushRunsOnGivenExecutor() throws Exception {
+		ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				return new Thread(r, "caller-timer");
+			}
+		});
+		final AtomicReference<String> thread = new AtomicReference<String>();
+		final CountDownLatch delivered = new CountDownLatch(1);
+		FrameBatcher batcher = new FrameBatcher(new BatchPolicy(10, 0, 20), new BatchListener() {
+			@Override
+			public void onBatch(List<Frame> batch) {
+				thread.set(Thread.currentThread().getName());
+				delivered.countDown();
+			}
+		}, executor);
+		try {
+			batcher.add(frame(0));
+			assertTrue(delivered.await(1, TimeUnit.SECONDS));
+			assertEquals("caller-timer", thread.get());
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
@@ -0,0 +1,129 @@
+/**
+ * The MIT LICENSE (MIT):
+ * 
+ * Copyright  2021 Ejaz Jamil, Jence.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of 
+ * this software and associated documentation files (the Software), to deal in 
+ * the Software without restriction, including without limitation the rights to 
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+ * of the Software, and to permit persons to whom the Software is furnished to do 
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. 
+ * 
+ */
+package jence.driver;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.jna.Memory;
+import com.sun.jna.ptr.IntByReference;
+
+/**
+ * Tests of the report framing of {@link HidrawBackend}, with a regular file
+ * standing in for the hidraw node.
+ *
+ * @author Ejaz Jamil, Jence.
+ *
+ */
+public class HidrawBackendTest {
+	private static final short VID = (short)0x10C4;
+	private static final short PID = (short)0xEA80;
+
+	private File node_;
+	private HidrawBackend backend_;
+	private long device_;
+
+	@Before
+	public void setUp() throws Exception {
+		node_ = File.createTempFile("hidraw", ".node");
+		backend_ = new HidrawBackend(node_.getPath());
+	}
+
+	@After
+	public void tearDown() {
+		if (device_ != 0)
+			backend_.HidUart_Close(device_);
+		node_.delete();
+	}
+
+	private void open() {
+		long[] device = new long[1];
+		assertEquals(HidUartBackend.HID_UART_SUCCESS, backend_.HidUart_Open(device, 0, VID, PID));
+		device_ = device[0];
+		assertEquals(HidUartBackend.HID_UART_SUCCESS, backend_.HidUart_SetTimeouts(device_, 1000, 1000));
+	}
+
+	private static byte[] data(int len) {
+		byte[] b = new byte[len];
+		for (int i = 0; i < len; i++)
+			b[i] = (byte)(i * 7 + 1);
+		return b;
+	}
+
+	@Test
+	public void readerFillsReceiveBuffer() throws Exception {
+		byte[] data = data(70);
+		// two input reports, the second one with a report ID past the data
+		byte[] reports = new byte[2 + data.length];
+		reports[0] = 63;
+		System.arraycopy(data, 0, reports, 1, 63);
+		reports[64] = 7;
+		System.arraycopy(data, 63, reports, 65, 7);
+		Files.write(node_.toPath(), reports);
+		open();
+
+		Memory buffer = new Memory(data.length);
+		IntByReference read = new IntByReference();
+		assertEquals(HidUartBackend.HID_UART_SUCCESS, backend_.HidUart_Read(device_, buffer, data.length, read));
+		assertEquals(data.length, read.getValue());
+		assertArrayEquals(data, buffer.getByteArray(0, data.length));
+	}
+
+	@Test
+	public void writeIsSplitIntoReports() throws Exception {
+		open();
+		byte[] data = data(130);
+		Memory buffer = new Memory(data.length);
+		buffer.write(0, data, 0, data.length);
+		IntByReference written = new IntByReference();
+		// an interrupt does not close the output, as it would a channel
+		Thread.currentThread().interrupt();
+		try {
+			assertEquals(HidUartBackend.HID_UART_SUCCESS, backend_.HidUart_Write(device_, buffer, data.length, written));
+			assertEquals(HidUartBackend.HID_UART_SUCCESS, backend_.HidUart_Write(device_, buffer, 1, written));
+		} finally {
+			assertTrue(Thread.interrupted());
+		}
+
+		byte[] out = Files.readAllBytes(node_.toPath());
+		assertEquals(1 + 63 + 1 + 63 + 1 + 4 + 1 + 1, out.length);
+		assertEquals(63, out[0]);
+		assertArrayEquals(Arrays.copyOfRange(data, 0, 63), Arrays.copyOfRange(out, 1, 64));
+		assertEquals(63, out[64]);
+		assertArrayEquals(Arrays.copyOfRange(data, 63, 126), Arrays.copyOfRange(out, 65, 128));
+		assertEquals(4, out[128]);
+		assertArrayEquals(Arrays.copyOfRange(data, 126, 130), Arrays.copyOfRange(out, 129, 133));
+		assertEquals(1, out[133]);
+		assertEquals(data[0], out[134]);
+	}
+}
@@ -0,0 +1,111 @@
+/**
+ * The MIT LICENSE (MIT):
+ * 
+ * Copyright  2021 Ejaz Jamil, Jence.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of 
+ * this software and associated documentation files (the Software), to deal in 
+ * the Software without restriction, including without limitation the rights to 
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+ * of the Software, and to permit persons to whom the Software is furnished to do 
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. 
+ * 
+ */
+package jence.driver;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests of {@link ListenerDispatcher} on the {@link SimulatedCP2110}.
+ *
+ * @author Ejaz Jamil, Jence.
+ *
+ */
+public class ListenerDispatcherTest {
+	private SimulatedCP2110.Device device_;
+	private CP2110HidDriver driver_;
+
+	@Before
+	public void setUp() throws DriverException {
+		SimulatedCP2110 sim = new SimulatedCP2110();
+		device_ = sim.addDevice("S0");
+		CP2110HidDriver.setBackend(sim);
+		driver_ = new CP2110HidDriver();
+		driver_.connect("S0", 115200, 8, 'N', 1, false);
+		driver_.setReadProfile(ReadProfile.LOW_LATENCY);
+		device_.setLineRate(0);
+	}
+
+	@After
+	public void tearDown() throws DriverException {
+		driver_.disconnect();
+	}
+
+	@Test(timeout = 5000)
+	public void throwingListenerStopsBothThreads() throws Exception {
+		final IllegalStateException failure = new IllegalStateException("listener failed");
+		// the device keeps sending, so the reader fills the buffer and blocks
+		device_.setPattern(new byte[] {1, 2, 3, 4});
+		ListenerDispatcher dispatcher = driver_.listen("S0", new DriverListener() {
+			@Override
+			protected void onData() {
+				throw failure;
+			}
+		}, 2, WaitStrategy.PARK, OverflowPolicy.BLOCK);
+
+		while (dispatcher.isRunning())
+			Thread.sleep(5);
+		// returns only once both threads have ended
+		dispatcher.stop();
+
+		assertSame(failure, dispatcher.getDispatchError());
+		assertNull(dispatcher.getError());
+		assertEquals(0, dispatcher.getDispatchedChunks());
+	}
+
+	@Test(timeout = 5000)
+	public void parkedDispatcherWakesOnChunk() throws Exception {
+		final AtomicReference<byte[]> received = new AtomicReference<byte[]>();
+		final CountDownLatch delivered = new CountDownLatch(1);
+		ListenerDispatcher dispatcher = driver_.listen("S0", new DriverListener() {
+			@Override
+			protected void onData() {
+				received.set(dataAsBytes());
+				delivered.countDown();
+			}
+		}, 8, WaitStrategy.PARK, OverflowPolicy.BLOCK);
+		// the dispatcher is parked without a timeout by now
+		Thread.sleep(100);
+
+		device_.feed(new byte[] {7, 8, 9});
+
+		assertTrue(delivered.await(1, TimeUnit.SECONDS));
+		assertArrayEquals(new byte[] {7, 8, 9}, received.get());
+		dispatcher.stop();
+		assertFalse(dispatcher.isRunning());
+		assertNull(dispatcher.getDispatchError());
+	}
+}
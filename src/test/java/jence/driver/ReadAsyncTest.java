@@ -0,0 +1,101 @@
+/**
+ * The MIT LICENSE (MIT):
+ * 
+ * Copyright  2021 Ejaz Jamil, Jence.
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of 
+ * this software and associated documentation files (the Software), to deal in 
+ * the Software without restriction, including without limitation the rights to 
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies 
+ * of the Software, and to permit persons to whom the Software is furnished to do 
+ * so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all 
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED AS IS, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR 
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, 
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE 
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, 
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN 
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE. 
+ * 
+ */
+package jence.driver;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests of {@link CP2110HidDriver#readAsync(long, TimeUnit)} on the {@link SimulatedCP2110}.
+ *
+ * @author Ejaz Jamil, Jence.
+ *
+ */
+public class ReadAsyncTest {
+	private SimulatedCP2110.Device device_;
+	private CP2110HidDriver driver_;
+
+	@Before
+	public void setUp() throws DriverException {
+		SimulatedCP2110 sim = new SimulatedCP2110();
+		device_ = sim.addDevice("S0");
+		CP2110HidDriver.setBackend(sim);
+		driver_ = new CP2110HidDriver();
+		driver_.connect("S0", 115200, 8, 'N', 1, false);
+		driver_.setReadWriteTimeout(300, 1000);
+		device_.setLineRate(0);
+	}
+
+	@After
+	public void tearDown() throws DriverException {
+		driver_.disconnect();
+	}
+
+	@Test
+	public void bytesReadAfterDeadlineAreKept() throws Exception {
+		CompletableFuture<byte[]> late = driver_.readAsync(50, TimeUnit.MILLISECONDS);
+		try {
+			late.get(1, TimeUnit.SECONDS);
+			fail("deadline not reached");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof TimeoutException);
+		}
+		// arrives while the read of the expired future is still waiting
+		device_.feed(new byte[] {1, 2, 3, 4, 5});
+
+		// queued behind the expired read, so it returns the kept bytes
+		CompletableFuture<byte[]> next = driver_.readAsync();
+		assertArrayEquals(new byte[] {1, 2, 3, 4, 5}, next.get(1, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void keptBytesAreTakenInParts() throws Exception {
+		CompletableFuture<byte[]> late = driver_.readAsync(50, TimeUnit.MILLISECONDS);
+		try {
+			late.get(1, TimeUnit.SECONDS);
+			fail("deadline not reached");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof TimeoutException);
+		}
+		device_.feed(new byte[] {1, 2, 3, 4, 5});
+		// queued behind the expired read, so the bytes are kept by then
+		driver_.writeAsync(new byte[1]).get(1, TimeUnit.SECONDS);
+
+		byte[] part = new byte[2];
+		assertEquals(2, driver_.read(part, 0, part.length));
+		assertArrayEquals(new byte[] {1, 2}, part);
+		assertArrayEquals(new byte[] {3, 4, 5}, driver_.read());
+	}
+}